@@ -0,0 +1,87 @@
+import com.nepaltourismmanagementapp.model.Booking;
+import com.nepaltourismmanagementapp.utils.BookingCodec;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the booking codec with the old split/format based code on synthetic lines.
+ * Run from the project root with target/classes on the classpath.
+ */
+public class CodecBenchmark {
+    private static final int ROWS = 200_000;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        List<String> lines = new ArrayList<>(ROWS);
+        LocalDate start = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < ROWS; i++) {
+            Booking booking = new Booking("BK" + (1752937827175L + i), "TOU" + (i % 500), "GUD" + (i % 40),
+                    "ATT00" + (i % 6 + 1), start.plusDays(i % 365), 1000.0 + (i % 97) * 25.5);
+            booking.setNotes(i % 3 == 0 ? "" : "Pickup at hotel, early start");
+            booking.setNumberOfPeople(1 + i % 6);
+            lines.add(legacyEncode(booking));
+        }
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            long t0 = System.nanoTime();
+            List<Booking> legacy = new ArrayList<>(ROWS);
+            for (String line : lines) {
+                legacy.add(legacyDecode(line));
+            }
+            long t1 = System.nanoTime();
+            List<Booking> decoded = new ArrayList<>(ROWS);
+            for (String line : lines) {
+                decoded.add(BookingCodec.decode(line));
+            }
+            long t2 = System.nanoTime();
+            long legacyChars = 0;
+            for (Booking booking : legacy) {
+                legacyChars += legacyEncode(booking).length();
+            }
+            long t3 = System.nanoTime();
+            long codecChars = 0;
+            for (Booking booking : decoded) {
+                codecChars += BookingCodec.encode(booking).length();
+            }
+            long t4 = System.nanoTime();
+
+            System.out.printf("Round %d: load legacy %d ms, codec %d ms | save legacy %d ms, codec %d ms (%d/%d chars)%n",
+                    round, (t1 - t0) / 1_000_000, (t2 - t1) / 1_000_000,
+                    (t3 - t2) / 1_000_000, (t4 - t3) / 1_000_000, legacyChars, codecChars);
+        }
+    }
+
+    // The pre-codec Booking.toString
+    private static String legacyEncode(Booking b) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        return b.getId() + "," + b.getTouristUsername() + "," + b.getGuideUsername() + "," + b.getAttractionId() + ","
+                + b.getBookingDate().format(formatter) + "," + b.getTrekDate().format(formatter) + ","
+                + b.getStatus().name() + "," + b.getTotalPrice() + "," + b.getDiscount() + ","
+                + (b.getNotes() != null ? b.getNotes().replace(",", ";") : "") + "," + b.isEmergencyReported() + ","
+                + b.getNumberOfPeople();
+    }
+
+    // The pre-codec Booking.fromString
+    private static Booking legacyDecode(String data) {
+        String[] parts = data.split(",", -1);
+        Booking booking = new Booking();
+        booking.setId(parts[0]);
+        booking.setTouristUsername(parts[1]);
+        booking.setGuideUsername(parts[2]);
+        booking.setAttractionId(parts[3]);
+        booking.setBookingDate(LocalDate.parse(parts[4]));
+        booking.setTrekDate(LocalDate.parse(parts[5]));
+        booking.setStatus(Booking.BookingStatus.valueOf(parts[6]));
+        booking.setTotalPrice(Double.parseDouble(parts[7]));
+        booking.setDiscount(Double.parseDouble(parts[8]));
+        if (!parts[9].isEmpty()) {
+            booking.setNotes(parts[9].replace(";", ","));
+        }
+        booking.setEmergencyReported(Boolean.parseBoolean(parts[10]));
+        booking.setNumberOfPeople(Integer.parseInt(parts[11]));
+        return booking;
+    }
+}
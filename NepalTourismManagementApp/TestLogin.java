@@ -1,6 +1,6 @@
+import com.nepaltourismmanagementapp.utils.AuthManager;
 import com.nepaltourismmanagementapp.utils.DataManager;
 import com.nepaltourismmanagementapp.model.User;
-import java.util.List;
 
 public class TestLogin {
     public static void main(String[] args) {
@@ -9,16 +9,7 @@ public class TestLogin {
 
             // Initialize data files
             DataManager.initializeDataFiles();
-
-            // Load all users
-            List<User> users = DataManager.loadAllUsers();
-            System.out.println("Loaded " + users.size() + " users:");
-
-            for (User user : users) {
-                System.out.println("- Username: " + user.getUsername() +
-                        ", Role: " + user.getRole() +
-                        ", UserType: " + user.getUserType());
-            }
+            System.out.println("Loaded " + DataManager.loadAllUsers().size() + " users");
 
             // Test authentication for each known user
             String[][] testCredentials = {
@@ -34,17 +25,19 @@ public class TestLogin {
                 String password = cred[1];
                 String expectedRole = cred[2];
 
-                User foundUser = users.stream()
-                        .filter(user -> user.getUsername().equals(username) &&
-                                user.getPassword().equals(password) &&
-                                user.getRole().equalsIgnoreCase(expectedRole))
-                        .findFirst()
-                        .orElse(null);
-
-                if (foundUser != null) {
-                    System.out.println("✓ " + username + " (" + expectedRole + ") - Authentication SUCCESS");
-                } else {
-                    System.out.println("✗ " + username + " (" + expectedRole + ") - Authentication FAILED");
+                // The second attempt is answered from the login cache
+                for (int attempt = 1; attempt <= 2; attempt++) {
+                    long start = System.nanoTime();
+                    User foundUser = AuthManager.authenticate(username, password, expectedRole);
+                    long micros = (System.nanoTime() - start) / 1000;
+
+                    if (foundUser != null) {
+                        System.out.println("✓ " + username + " (" + expectedRole + ") - Authentication SUCCESS in "
+                                + micros + " µs");
+                    } else {
+                        System.out.println("✗ " + username + " (" + expectedRole + ") - Authentication FAILED in "
+                                + micros + " µs");
+                    }
                 }
             }
 
@@ -1,5 +1,6 @@
 package com.nepaltourismmanagementapp.controller;
 
+import com.nepaltourismmanagementapp.exception.ConcurrentUpdateException;
 import com.nepaltourismmanagementapp.model.*;
 import com.nepaltourismmanagementapp.utils.*;
 import javafx.collections.FXCollections;
@@ -29,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 public class AdminDashboardController implements Initializable {
@@ -40,6 +42,8 @@ public class AdminDashboardController implements Initializable {
     private TableView<User> usersTable;
     @FXML
     private TableColumn<User, String> userIdCol, usernameCol, emailCol, userTypeCol;
+    @FXML
+    private TextField guideLanguagesField, guideSpecializationsField;
 
     @FXML
     private TableView<Attraction> attractionsTable;
@@ -61,12 +65,42 @@ public class AdminDashboardController implements Initializable {
     private final ObservableList<User> usersList = FXCollections.observableArrayList();
     private final ObservableList<Attraction> attractionsList = FXCollections.observableArrayList();
     private final ObservableList<Booking> bookingsList = FXCollections.observableArrayList();
+    // True while the users table shows the guides found by skill rather than every user
+    private boolean showingGuideSearch;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         setupTables();
         loadAllData();
-        updateStatistics();
+        ChangeFeed.subscribeOnFxThread(usersTable, this::onDataChanged);
+    }
+
+    /** Applies a user or booking saved anywhere in the application to the tables and statistics. */
+    private void onDataChanged(ChangeFeed.Event event) {
+        if (event instanceof ChangeFeed.Reloaded) {
+            loadAllData();
+        } else if (showingGuideSearch
+                && (event instanceof ChangeFeed.UserUpdated || event instanceof ChangeFeed.UserRemoved)) {
+            // The change may move a guide in or out of the search, so run it again
+            handleFindGuides();
+            AsyncDataManager.onFxThread(AsyncDataManager.loadAllUsers(),
+                    users -> totalUsersLabel.setText(String.valueOf(users.size())),
+                    e -> System.out.println("Warning: could not refresh user statistics: " + e.getMessage()));
+        } else if (event instanceof ChangeFeed.UserUpdated updated) {
+            ChangeFeed.apply(usersList, User::getUserId, updated.user().getUserId(), updated.user());
+            totalUsersLabel.setText(String.valueOf(usersList.size()));
+        } else if (event instanceof ChangeFeed.UserRemoved removed) {
+            ChangeFeed.apply(usersList, User::getUserId, removed.user().getUserId(), null);
+            totalUsersLabel.setText(String.valueOf(usersList.size()));
+        } else if (event instanceof ChangeFeed.BookingEvent change) {
+            Booking booking = change.booking();
+            boolean kept = !(change instanceof ChangeFeed.BookingRemoved);
+            ChangeFeed.apply(bookingsList, Booking::getId, booking.getId(), kept ? booking : null);
+            AsyncDataManager.onFxThread(AsyncDataManager.queryBookingTotals(BookingAggregates::overall), stats -> {
+                totalBookingsLabel.setText(String.valueOf(stats.count()));
+                totalRevenueLabel.setText("NPR " + String.format("%.2f", stats.revenue()));
+            }, e -> System.out.println("Warning: could not refresh booking statistics: " + e.getMessage()));
+        }
     }
 
     public void setCurrentUser(Admin user) {
@@ -99,32 +133,93 @@ public class AdminDashboardController implements Initializable {
     }
 
     private void loadAllData() {
-        try {
-            usersList.setAll(DataManager.loadAllUsers());
-            attractionsList.setAll(DataManager.loadAllAttractions());
-            bookingsList.setAll(DataManager.loadAllBookings());
-        } catch (IOException e) {
-            showAlert("Error", "Failed to load data: " + e.getMessage());
+        loadAllData(null);
+    }
+
+    /** Reloads the tables and the statistics in the background, then runs {@code onLoaded} (if any). */
+    private void loadAllData(Runnable onLoaded) {
+        // Show loading state until the files have been read
+        usersTable.setPlaceholder(new Label("Loading users..."));
+        attractionsTable.setPlaceholder(new Label("Loading attractions..."));
+        bookingsTable.setPlaceholder(new Label("Loading bookings..."));
+        for (Label label : List.of(totalUsersLabel, totalAttractionsLabel, totalBookingsLabel, totalRevenueLabel)) {
+            label.setText("...");
         }
+
+        CompletableFuture<List<User>> users = AsyncDataManager.loadAllUsers();
+        CompletableFuture<List<Attraction>> attractions = AsyncDataManager.loadAllAttractions();
+        CompletableFuture<List<Booking>> bookings = AsyncDataManager.loadAllBookings();
+        CompletableFuture<BookingAggregates.Summary> bookingStats = AsyncDataManager.queryBookingTotals(
+                BookingAggregates::overall);
+
+        AsyncDataManager.onFxThread(CompletableFuture.allOf(users, attractions, bookings, bookingStats), ignored -> {
+            clearPlaceholders();
+            showingGuideSearch = false;
+            usersList.setAll(users.join());
+            attractionsList.setAll(attractions.join());
+            bookingsList.setAll(bookings.join());
+            updateStatistics(users.join(), attractions.join(), bookingStats.join());
+            if (onLoaded != null) {
+                onLoaded.run();
+            }
+        }, e -> {
+            clearPlaceholders();
+            showAlert("Error", "Failed to load data: " + e.getMessage());
+        });
     }
 
-    private void updateStatistics() {
-        try {
-            List<User> users = DataManager.loadAllUsers();
-            List<Attraction> attractions = DataManager.loadAllAttractions();
-            List<Booking> bookings = DataManager.loadAllBookings();
-
-            totalUsersLabel.setText(String.valueOf(users.size()));
-            totalAttractionsLabel.setText(String.valueOf(attractions.size()));
-            totalBookingsLabel.setText(String.valueOf(bookings.size()));
-
-            double totalRevenue = bookings.stream()
-                    .mapToDouble(Booking::getTotalPrice)
-                    .sum();
-            totalRevenueLabel.setText("NPR " + String.format("%.2f", totalRevenue));
-        } catch (IOException e) {
-            showAlert("Error", "Failed to update statistics: " + e.getMessage());
+    private void clearPlaceholders() {
+        usersTable.setPlaceholder(null);
+        attractionsTable.setPlaceholder(null);
+        bookingsTable.setPlaceholder(null);
+    }
+
+    private void updateStatistics(List<User> users, List<Attraction> attractions, BookingAggregates.Summary bookingStats) {
+        totalUsersLabel.setText(String.valueOf(users.size()));
+        totalAttractionsLabel.setText(String.valueOf(attractions.size()));
+        totalBookingsLabel.setText(String.valueOf(bookingStats.count()));
+        totalRevenueLabel.setText("NPR " + String.format("%.2f", bookingStats.revenue()));
+    }
+
+    /**
+     * Shows only the guides speaking every language and having every specialization typed in
+     * (comma separated; see {@link GuideSkillIndex}).
+     */
+    @FXML
+    private void handleFindGuides() {
+        List<String> languages = splitList(guideLanguagesField.getText());
+        List<String> specializations = splitList(guideSpecializationsField.getText());
+        showingGuideSearch = true;
+        usersTable.setPlaceholder(new Label("Searching guides..."));
+        AsyncDataManager.onFxThread(AsyncDataManager.findGuides(languages, specializations), guides -> {
+            if (!showingGuideSearch) {
+                return; // "Show All Users" was pressed while searching
+            }
+            usersTable.setPlaceholder(new Label("No guide has all of those skills."));
+            usersList.setAll(guides);
+        }, e -> showAlert("Error", "Failed to search guides: " + e.getMessage()));
+    }
+
+    @FXML
+    private void handleShowAllUsers() {
+        guideLanguagesField.clear();
+        guideSpecializationsField.clear();
+        showingGuideSearch = false;
+        usersTable.setPlaceholder(new Label("Loading users..."));
+        AsyncDataManager.onFxThread(AsyncDataManager.loadAllUsers(), users -> {
+            if (showingGuideSearch) {
+                return; // a new search was started meanwhile
+            }
+            usersTable.setPlaceholder(null);
+            usersList.setAll(users);
+        }, e -> showAlert("Error", "Failed to load users: " + e.getMessage()));
+    }
+
+    private static List<String> splitList(String text) {
+        if (text == null) {
+            return List.of();
         }
+        return Arrays.stream(text.split("[,;]")).map(String::trim).filter(value -> !value.isEmpty()).toList();
     }
 
     // ==================== USER CRUD OPERATIONS ====================
@@ -347,9 +442,7 @@ public class AdminDashboardController implements Initializable {
 
         dialog.showAndWait().ifPresent(user -> {
             try {
-                DataManager.saveUser(user);
-                loadAllData();
-                updateStatistics();
+                DataManager.saveUser(user); // The change feed adds it to the table
                 showAlert("Success", "User created successfully!");
             } catch (IOException e) {
                 showAlert("Error", "Failed to create user: " + e.getMessage());
@@ -358,6 +451,7 @@ public class AdminDashboardController implements Initializable {
     }
 
     private void showEditUserDialog(User user) {
+        int version = user.getVersion(); // Saving fails if the user changes elsewhere meanwhile
         Dialog<User> dialog = new Dialog<>();
         dialog.setTitle("Edit User");
         dialog.setHeaderText("Edit user information for: " + user.getUsername());
@@ -393,12 +487,14 @@ public class AdminDashboardController implements Initializable {
 
             dialog.setResultConverter(dialogButton -> {
                 if (dialogButton == saveButtonType) {
-                    tourist.setEmail(emailField.getText());
-                    tourist.setFullName(fullNameField.getText());
-                    tourist.setPhone(phoneField.getText());
-                    tourist.setNationality(nationalityField.getText());
-                    tourist.setAge(ageSpinner.getValue());
-                    return tourist;
+                    // Edited on a copy; the cached user only changes once updateUser saves it
+                    Tourist edited = tourist.copy();
+                    edited.setEmail(emailField.getText());
+                    edited.setFullName(fullNameField.getText());
+                    edited.setPhone(phoneField.getText());
+                    edited.setNationality(nationalityField.getText());
+                    edited.setAge(ageSpinner.getValue());
+                    return edited;
                 }
                 return null;
             });
@@ -416,13 +512,14 @@ public class AdminDashboardController implements Initializable {
 
             dialog.setResultConverter(dialogButton -> {
                 if (dialogButton == saveButtonType) {
-                    guide.setEmail(emailField.getText());
-                    guide.setFullName(fullNameField.getText());
-                    guide.setPhone(phoneField.getText());
-                    guide.setLanguages(Arrays.asList(languagesField.getText().split(", ")));
-                    guide.setSpecializations(Arrays.asList(specializationsField.getText().split(", ")));
-                    guide.setExperienceYears(experienceSpinner.getValue());
-                    return guide;
+                    Guide edited = guide.copy();
+                    edited.setEmail(emailField.getText());
+                    edited.setFullName(fullNameField.getText());
+                    edited.setPhone(phoneField.getText());
+                    edited.setLanguages(Arrays.asList(languagesField.getText().split(", ")));
+                    edited.setSpecializations(Arrays.asList(specializationsField.getText().split(", ")));
+                    edited.setExperienceYears(experienceSpinner.getValue());
+                    return edited;
                 }
                 return null;
             });
@@ -436,11 +533,12 @@ public class AdminDashboardController implements Initializable {
 
             dialog.setResultConverter(dialogButton -> {
                 if (dialogButton == saveButtonType) {
-                    admin.setEmail(emailField.getText());
-                    admin.setFullName(fullNameField.getText());
-                    admin.setPhone(phoneField.getText());
-                    admin.setAdminLevel(adminLevelCombo.getValue());
-                    return admin;
+                    Admin edited = admin.copy();
+                    edited.setEmail(emailField.getText());
+                    edited.setFullName(fullNameField.getText());
+                    edited.setPhone(phoneField.getText());
+                    edited.setAdminLevel(adminLevelCombo.getValue());
+                    return edited;
                 }
                 return null;
             });
@@ -450,10 +548,11 @@ public class AdminDashboardController implements Initializable {
 
         dialog.showAndWait().ifPresent(updatedUser -> {
             try {
-                DataManager.updateUser(updatedUser);
-                loadAllData();
-                updateStatistics();
+                DataManager.updateUser(updatedUser, version); // The change feed updates the table
                 showAlert("Success", "User updated successfully!");
+            } catch (ConcurrentUpdateException e) {
+                loadAllData();
+                showAlert("User Changed", e.getMessage() + "\nThe list has been refreshed.");
             } catch (IOException e) {
                 showAlert("Error", "Failed to update user: " + e.getMessage());
             }
@@ -462,18 +561,7 @@ public class AdminDashboardController implements Initializable {
 
     private void deleteUser(User user) {
         try {
-            List<User> allUsers = DataManager.loadAllUsers();
-            allUsers.removeIf(u -> u.getUserId().equals(user.getUserId()));
-
-            // Rewrite users file
-            try (PrintWriter writer = new PrintWriter(new FileWriter("Data/users.txt"))) {
-                for (User u : allUsers) {
-                    writer.println(u.toString());
-                }
-            }
-
-            loadAllData();
-            updateStatistics();
+            DataManager.deleteUser(user.getUserId()); // The change feed removes it from the table
             showAlert("Success", "User deleted successfully!");
         } catch (IOException e) {
             showAlert("Error", "Failed to delete user: " + e.getMessage());
@@ -565,7 +653,6 @@ public class AdminDashboardController implements Initializable {
             try {
                 saveAttraction(attraction);
                 loadAllData();
-                updateStatistics();
                 showAlert("Success", "Attraction created successfully!");
             } catch (IOException e) {
                 showAlert("Error", "Failed to create attraction: " + e.getMessage());
@@ -661,7 +748,6 @@ public class AdminDashboardController implements Initializable {
             try {
                 updateAttraction(updatedAttraction);
                 loadAllData();
-                updateStatistics();
                 showAlert("Success", "Attraction updated successfully!");
             } catch (IOException e) {
                 showAlert("Error", "Failed to update attraction: " + e.getMessage());
@@ -671,18 +757,9 @@ public class AdminDashboardController implements Initializable {
 
     private void deleteAttraction(Attraction attraction) {
         try {
-            List<Attraction> allAttractions = DataManager.loadAllAttractions();
-            allAttractions.removeIf(a -> a.getAttractionId().equals(attraction.getAttractionId()));
-
-            // Rewrite attractions file
-            try (PrintWriter writer = new PrintWriter(new FileWriter("Data/attractions.txt"))) {
-                for (Attraction a : allAttractions) {
-                    writer.println(a.toString());
-                }
-            }
+            DataManager.deleteAttraction(attraction.getAttractionId());
 
             loadAllData();
-            updateStatistics();
             showAlert("Success", "Attraction deleted successfully!");
         } catch (IOException e) {
             showAlert("Error", "Failed to delete attraction: " + e.getMessage());
@@ -693,9 +770,12 @@ public class AdminDashboardController implements Initializable {
 
     @FXML
     private void handleGenerateReport() {
-        try {
-            String report = generateSystemReport();
+        AsyncDataManager.onFxThread(AsyncDataManager.supply(this::generateSystemReport), this::saveSystemReport,
+                e -> showAlert("Error", "Failed to generate report: " + e.getMessage()));
+    }
 
+    private void saveSystemReport(String report) {
+        try {
             FileChooser fileChooser = new FileChooser();
             fileChooser.setTitle("Save System Report");
             fileChooser.setInitialFileName("system_report_" +
@@ -745,93 +825,96 @@ public class AdminDashboardController implements Initializable {
         report.append("\n");
 
         // Booking Stats
-        List<Booking> bookings = DataManager.loadAllBookings();
-        Map<String, Long> statusCount = bookings.stream()
-                .collect(Collectors.groupingBy(b -> b.getStatus().name(), Collectors.counting()));
-
-        double totalRevenue = bookings.stream().mapToDouble(Booking::getTotalPrice).sum();
+        BookingAggregates.Summary bookingStats = DataManager.queryBookingTotals(BookingAggregates::overall);
 
         report.append("BOOKING STATISTICS\n").append("-".repeat(30)).append("\n")
-                .append("Total Bookings: ").append(bookings.size()).append("\n");
-        statusCount.forEach((status, count) -> report.append(status).append(" Bookings: ").append(count).append("\n"));
-        report.append("Total Revenue: NPR ").append(String.format("%.2f", totalRevenue)).append("\n\n");
+                .append("Total Bookings: ").append(bookingStats.count()).append("\n");
+        for (Booking.BookingStatus status : Booking.BookingStatus.values()) {
+            if (bookingStats.count(status) > 0) {
+                report.append(status.name()).append(" Bookings: ").append(bookingStats.count(status)).append("\n");
+            }
+        }
+        report.append("Total Revenue: NPR ").append(String.format("%.2f", bookingStats.revenue())).append("\n\n");
 
         return report.toString();
     }
 
     @FXML
     private void handleRefreshData() {
-        loadAllData();
-        updateStatistics();
-        showAlert("Success", "Data refreshed successfully!");
+        loadAllData(() -> showAlert("Success", "Data refreshed successfully!"));
     }
 
     @FXML
     private void handleViewStatistics() {
-        try {
-            List<User> users = DataManager.loadAllUsers();
-            List<Booking> bookings = DataManager.loadAllBookings();
-
-            long tourists = users.stream().filter(u -> "TOURIST".equals(u.getUserType())).count();
-            long guides = users.stream().filter(u -> "GUIDE".equals(u.getUserType())).count();
-            long admins = users.stream().filter(u -> "ADMIN".equals(u.getUserType())).count();
-            double totalRevenue = bookings.stream().mapToDouble(Booking::getTotalPrice).sum();
-            double avgBooking = bookings.isEmpty() ? 0 : totalRevenue / bookings.size();
-
-            StringBuilder stats = new StringBuilder();
-            stats.append("USER BREAKDOWN:\n")
-                    .append("Tourists: ").append(tourists).append("\n")
-                    .append("Guides: ").append(guides).append("\n")
-                    .append("Admins: ").append(admins).append("\n\n")
-                    .append("REVENUE STATISTICS:\n")
-                    .append("Total Revenue: NPR ").append(String.format("%.2f", totalRevenue)).append("\n")
-                    .append("Average Booking Value: NPR ").append(String.format("%.2f", avgBooking)).append("\n");
-
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("Detailed Statistics");
-            alert.setHeaderText("System Statistics");
-            alert.setContentText(stats.toString());
-            alert.showAndWait();
+        CompletableFuture<List<User>> users = AsyncDataManager.loadAllUsers();
+        CompletableFuture<BookingAggregates.Summary> bookingStats = AsyncDataManager.queryBookingTotals(
+                BookingAggregates::overall);
+        AsyncDataManager.onFxThread(CompletableFuture.allOf(users, bookingStats),
+                ignored -> showStatistics(users.join(), bookingStats.join()),
+                e -> showAlert("Error", "Failed to load statistics: " + e.getMessage()));
+    }
 
-        } catch (IOException e) {
-            showAlert("Error", "Failed to load statistics: " + e.getMessage());
-        }
+    private void showStatistics(List<User> users, BookingAggregates.Summary bookingStats) {
+        long tourists = users.stream().filter(u -> "TOURIST".equals(u.getUserType())).count();
+        long guides = users.stream().filter(u -> "GUIDE".equals(u.getUserType())).count();
+        long admins = users.stream().filter(u -> "ADMIN".equals(u.getUserType())).count();
+        double totalRevenue = bookingStats.revenue();
+        double avgBooking = bookingStats.averageRevenue();
+
+        StringBuilder stats = new StringBuilder();
+        stats.append("USER BREAKDOWN:\n")
+                .append("Tourists: ").append(tourists).append("\n")
+                .append("Guides: ").append(guides).append("\n")
+                .append("Admins: ").append(admins).append("\n\n")
+                .append("REVENUE STATISTICS:\n")
+                .append("Total Revenue: NPR ").append(String.format("%.2f", totalRevenue)).append("\n")
+                .append("Average Booking Value: NPR ").append(String.format("%.2f", avgBooking)).append("\n");
+
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Detailed Statistics");
+        alert.setHeaderText("System Statistics");
+        alert.setContentText(stats.toString());
+        alert.showAndWait();
     }
 
     @FXML
     private void handleViewAllBookings() {
-        try {
+        CompletableFuture<List<AttractionCatalog.BookedAttraction>> enriched = AsyncDataManager.supply(() -> {
             List<Booking> allBookings = DataManager.loadAllBookings();
+            return DataManager.queryAttractions(catalog -> catalog.enrich(allBookings));
+        });
+        AsyncDataManager.onFxThread(enriched, this::showAllBookings,
+                e -> showAlert("Error", "Failed to load bookings: " + e.getMessage()));
+    }
 
-            if (allBookings.isEmpty()) {
-                showAlert("No Bookings", "No bookings found in the system.");
-                return;
-            }
-
-            StringBuilder bookingDetails = new StringBuilder();
-            bookingDetails.append("ALL SYSTEM BOOKINGS\n")
-                    .append("=".repeat(50)).append("\n\n");
-
-            for (Booking booking : allBookings) {
-                bookingDetails.append("Booking ID: ").append(booking.getId()).append("\n")
-                        .append("Tourist: ").append(booking.getTouristUsername()).append("\n")
-                        .append("Guide: ").append(booking.getGuideUsername()).append("\n")
-                        .append("Attraction: ").append(booking.getAttractionId()).append("\n")
-                        .append("Trek Date: ").append(booking.getTrekDate()).append("\n")
-                        .append("Status: ").append(booking.getStatus()).append("\n")
-                        .append("Amount: NPR ").append(String.format("%.2f", booking.getTotalPrice())).append("\n")
-                        .append("-".repeat(30)).append("\n");
-            }
-
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("All Bookings");
-            alert.setHeaderText("Complete Booking List (" + allBookings.size() + " bookings)");
-            alert.setContentText(bookingDetails.toString());
-            alert.showAndWait();
+    private void showAllBookings(List<AttractionCatalog.BookedAttraction> allBookings) {
+        if (allBookings.isEmpty()) {
+            showAlert("No Bookings", "No bookings found in the system.");
+            return;
+        }
 
-        } catch (IOException e) {
-            showAlert("Error", "Failed to load bookings: " + e.getMessage());
+        StringBuilder bookingDetails = new StringBuilder();
+        bookingDetails.append("ALL SYSTEM BOOKINGS\n")
+                .append("=".repeat(50)).append("\n\n");
+
+        for (AttractionCatalog.BookedAttraction entry : allBookings) {
+            Booking booking = entry.booking();
+            bookingDetails.append("Booking ID: ").append(booking.getId()).append("\n")
+                    .append("Tourist: ").append(booking.getTouristUsername()).append("\n")
+                    .append("Guide: ").append(booking.getGuideUsername()).append("\n")
+                    .append("Attraction: ").append(entry.attractionName())
+                    .append(" (").append(booking.getAttractionId()).append(")\n")
+                    .append("Trek Date: ").append(booking.getTrekDate()).append("\n")
+                    .append("Status: ").append(booking.getStatus()).append("\n")
+                    .append("Amount: NPR ").append(String.format("%.2f", booking.getTotalPrice())).append("\n")
+                    .append("-".repeat(30)).append("\n");
         }
+
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("All Bookings");
+        alert.setHeaderText("Complete Booking List (" + allBookings.size() + " bookings)");
+        alert.setContentText(bookingDetails.toString());
+        alert.showAndWait();
     }
 
     @FXML
@@ -988,26 +1071,11 @@ public class AdminDashboardController implements Initializable {
     }
 
     private void saveAttraction(Attraction attraction) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter("Data/attractions.txt", true))) {
-            writer.println(attraction.toString());
-        }
+        DataManager.saveAttraction(attraction);
     }
 
     private void updateAttraction(Attraction updatedAttraction) throws IOException {
-        List<Attraction> allAttractions = DataManager.loadAllAttractions();
-        for (int i = 0; i < allAttractions.size(); i++) {
-            if (allAttractions.get(i).getAttractionId().equals(updatedAttraction.getAttractionId())) {
-                allAttractions.set(i, updatedAttraction);
-                break;
-            }
-        }
-
-        // Rewrite attractions file
-        try (PrintWriter writer = new PrintWriter(new FileWriter("Data/attractions.txt"))) {
-            for (Attraction a : allAttractions) {
-                writer.println(a.toString());
-            }
-        }
+        DataManager.updateAttraction(updatedAttraction);
     }
 
     private void showAlert(String title, String message) {
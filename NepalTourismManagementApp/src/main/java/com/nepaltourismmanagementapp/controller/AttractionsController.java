@@ -1,5 +1,6 @@
 package com.nepaltourismmanagementapp.controller;
 
+import com.nepaltourismmanagementapp.exception.CapacityExceededException;
 import com.nepaltourismmanagementapp.model.*;
 import com.nepaltourismmanagementapp.utils.*;
 import javafx.collections.FXCollections;
@@ -12,6 +13,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
@@ -19,8 +21,15 @@ import javafx.stage.Stage;
 import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class AttractionsController implements Initializable {
 
@@ -28,15 +37,20 @@ public class AttractionsController implements Initializable {
     @FXML
     private ImageView backgroundImage;
     @FXML
-    private Button backButton, prevButton, nextButton, bookButton, safetyWarningsButton;
+    private Button backButton, prevButton, nextButton, bookButton, safetyWarningsButton, confirmBookingButton,
+            addToTripButton, planTripButton;
     @FXML
-    private Label featuredAttractionName, featuredAttractionDescription;
+    private Label featuredAttractionName, featuredAttractionDescription, nearbyLabel;
     @FXML
     private VBox featuredAttractionCard, bookingModal;
     @FXML
     private HBox attractionCardsContainer;
     @FXML
     private ScrollPane attractionScrollPane;
+    @FXML
+    private TextField searchField;
+    @FXML
+    private VBox facetSidebar;
 
     // Booking Modal Components
     @FXML
@@ -46,18 +60,43 @@ public class AttractionsController implements Initializable {
     @FXML
     private TextArea specialRequestsArea;
     @FXML
-    private Label totalAmountLabel, festivalDiscountLabel;
+    private Label totalAmountLabel, festivalDiscountLabel, fareCalendarTitle;
+    @FXML
+    private GridPane fareCalendarGrid;
+
+    // Days ahead the fare calendar covers; the grid shows the month of the chosen date from it
+    private static final int FARE_CALENDAR_DAYS = 180;
+    private static final int NEARBY_SHOWN = 5;
 
     // Data and State
     private Tourist currentUser;
     private final ObservableList<Attraction> attractionsList = FXCollections.observableArrayList();
     private int currentAttractionIndex = 0;
     private Attraction selectedAttraction;
+    private long searchRequest; // the latest search or filter change; older results arriving late are dropped
+    private long priceRequest; // the latest change to the booking form; older quotes arriving late are dropped
+    private long fareRequest; // likewise for the fare calendar
+    // Ticked sidebar values per facet; tourists only ever see open attractions
+    private final Map<AttractionFacets.Facet, Set<String>> facetSelection = new EnumMap<>(AttractionFacets.Facet.class);
+    private final Set<String> tripStops = new LinkedHashSet<>(); // attraction ids picked for a trip
+
+    // Cards shown for a search; the carousel only ever shows a screenful
+    private static final int SEARCH_RESULTS = 100;
+    private static final List<AttractionFacets.Facet> SIDEBAR_FACETS = List.of(AttractionFacets.Facet.CATEGORY,
+            AttractionFacets.Facet.PROVINCE, AttractionFacets.Facet.DISTRICT, AttractionFacets.Facet.FEE_BAND,
+            AttractionFacets.Facet.RATING_BAND);
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        for (AttractionFacets.Facet facet : AttractionFacets.Facet.values()) {
+            facetSelection.put(facet, new HashSet<>());
+        }
+        facetSelection.get(AttractionFacets.Facet.ACTIVE).add(AttractionFacets.OPEN);
         setupBookingControls();
         loadAttractions();
+        if (searchField != null) {
+            searchField.textProperty().addListener((obs, oldText, newText) -> refreshAttractions());
+        }
     }
 
     public void setCurrentUser(Tourist user) {
@@ -116,19 +155,86 @@ public class AttractionsController implements Initializable {
     }
 
     private void loadAttractions() {
-        try {
-            List<Attraction> attractions = DataManager.loadAllAttractions();
-            attractionsList.setAll(attractions.stream().filter(Attraction::isActive).toList());
+        featuredAttractionName.setText("Loading attractions...");
+        refreshAttractions();
+    }
 
-            if (!attractionsList.isEmpty()) {
-                displayFeaturedAttraction();
-                createAttractionCards();
+    /**
+     * Shows the attractions matching both the search box and the sidebar's filters, and refreshes
+     * the counts next to the filters.
+     */
+    private void refreshAttractions() {
+        long request = ++searchRequest;
+        String query = searchField != null ? searchField.getText() : "";
+        Map<AttractionFacets.Facet, Set<String>> selection = new EnumMap<>(AttractionFacets.Facet.class);
+        facetSelection.forEach((facet, values) -> selection.put(facet, Set.copyOf(values)));
+
+        boolean searching = query != null && !query.isBlank();
+        // One pass gives the matches of both the search and the filters, and counts within the search
+        CompletableFuture<AttractionFacets.Result> filtered = AsyncDataManager.filterAttractions(query, selection,
+                AttractionFacets.Order.BEST_RATED, SEARCH_RESULTS);
+
+        AsyncDataManager.onFxThread(filtered, result -> {
+            if (request != searchRequest) {
+                return;
             }
-        } catch (IOException e) {
+            featuredAttractionName.setText("");
+            updateFacetSidebar(result.counts());
+            List<Attraction> results = result.attractions();
+            attractionsList.setAll(results);
+            currentAttractionIndex = 0;
+            if (results.isEmpty()) {
+                attractionCardsContainer.getChildren().clear();
+                featuredAttractionName.setText(searching ? "No attractions match \"" + query.trim() + "\""
+                        : "No attractions match the filters");
+                featuredAttractionDescription.setText("");
+                nearbyLabel.setText("");
+                selectedAttraction = null;
+                return;
+            }
+            displayFeaturedAttraction();
+            createAttractionCards();
+        }, e -> {
+            featuredAttractionName.setText("");
             showAlert("Error", "Failed to load attractions: " + e.getMessage());
+        });
+    }
+
+    /** Lists every value of the sidebar's facets with its count, keeping the ticked ones ticked. */
+    private void updateFacetSidebar(Map<AttractionFacets.Facet, Map<String, Integer>> counts) {
+        if (facetSidebar == null) {
+            return;
+        }
+        facetSidebar.getChildren().clear();
+        for (AttractionFacets.Facet facet : SIDEBAR_FACETS) {
+            Label header = new Label(facet.getLabel());
+            header.getStyleClass().add("facet-header");
+            facetSidebar.getChildren().add(header);
+            Set<String> chosen = facetSelection.get(facet);
+            for (Map.Entry<String, Integer> value : counts.getOrDefault(facet, Map.of()).entrySet()) {
+                CheckBox box = new CheckBox(value.getKey() + " (" + value.getValue() + ")");
+                box.getStyleClass().add("facet-option");
+                box.setSelected(chosen.contains(value.getKey()));
+                box.setDisable(value.getValue() == 0 && !box.isSelected());
+                box.setOnAction(e -> {
+                    if (box.isSelected()) {
+                        chosen.add(value.getKey());
+                    } else {
+                        chosen.remove(value.getKey());
+                    }
+                    refreshAttractions();
+                });
+                facetSidebar.getChildren().add(box);
+            }
         }
     }
 
+    @FXML
+    private void handleClearFilters() {
+        SIDEBAR_FACETS.forEach(facet -> facetSelection.get(facet).clear());
+        refreshAttractions();
+    }
+
     private void displayFeaturedAttraction() {
         if (!attractionsList.isEmpty() && currentAttractionIndex < attractionsList.size()) {
             Attraction featured = attractionsList.get(currentAttractionIndex);
@@ -137,6 +243,8 @@ public class AttractionsController implements Initializable {
             // Update UI elements
             featuredAttractionName.setText(featured.getName());
             featuredAttractionDescription.setText(featured.getDescription());
+            showNearby(featured);
+            updateTripButtons();
 
             // Update background image with enhanced fallback logic
             updateBackgroundImage(featured);
@@ -144,6 +252,26 @@ public class AttractionsController implements Initializable {
         }
     }
 
+    /** Fills the line under the description with the attractions closest to {@code featured}. */
+    private void showNearby(Attraction featured) {
+        nearbyLabel.setText("");
+        AsyncDataManager.onFxThread(AsyncDataManager.queryNearby(index -> index.nearest(featured, NEARBY_SHOWN)), nearby -> {
+            if (featured != selectedAttraction || nearby.isEmpty()) {
+                return;
+            }
+            StringBuilder text = new StringBuilder("Nearby: ");
+            for (int i = 0; i < nearby.size(); i++) {
+                AttractionGeoIndex.Nearby place = nearby.get(i);
+                if (i > 0) {
+                    text.append(", ");
+                }
+                text.append(place.attraction().getName()).append(String.format(
+                        place.distanceKm() < 10 ? " (%.1f km)" : " (%.0f km)", place.distanceKm()));
+            }
+            nearbyLabel.setText(text.toString());
+        }, e -> System.out.println("Warning: could not find nearby attractions: " + e.getMessage()));
+    }
+
     private void updateBackgroundImage(Attraction attraction) {
         try {
             // Try to load the specific attraction image
@@ -265,41 +393,147 @@ public class AttractionsController implements Initializable {
             return;
         }
 
-        try {
-            List<User> allUsers = DataManager.loadAllUsers();
-            List<Guide> guides = allUsers.stream()
-                    .filter(u -> u instanceof Guide)
-                    .map(u -> (Guide) u)
-                    .toList();
-
-            if (guides.isEmpty()) {
-                showAlert("No Guides", "No guides available for booking.");
+        // Read everything the booking needs here; the rest happens off the FX thread
+        Attraction attraction = selectedAttraction;
+        String touristId = currentUser.getUserId();
+        int numberOfPeople = peopleSpinner.getValue();
+        String specialRequests = specialRequestsArea.getText();
+        confirmBookingButton.setDisable(true);
+
+        String language = LanguageManager.getInstance().isNepali() ? "Nepali" : "English";
+        CompletableFuture<Booking> created = AsyncDataManager.supply(() -> BookingManager.bookWithAvailableGuide(
+                touristId, attraction, visitDate, numberOfPeople, specialRequests, language));
+
+        AsyncDataManager.onFxThread(created, booking -> {
+            confirmBookingButton.setDisable(false);
+            if (booking == null) {
+                showAlert("No Guides", "No guide is free on " + visitDate + ". Please choose another date.");
                 return;
             }
 
-            Guide selectedGuide = guides.stream().findFirst().orElse(null);
-            if (selectedGuide == null) {
-                showAlert("No Guides", "No guides available for booking.");
-                return;
-            }
-
-            Booking booking = BookingManager.createBooking(
-                    currentUser.getUserId(),
-                    selectedGuide.getUserId(),
-                    selectedAttraction.getAttractionId(),
-                    visitDate,
-                    peopleSpinner.getValue(),
-                    selectedAttraction.getEntryFee(),
-                    specialRequestsArea.getText());
-
             showAlert("Booking Confirmed",
                     "Your booking has been confirmed!\nBooking ID: " + booking.getId() +
                             "\nTotal Amount: NPR " + String.format("%.2f", booking.getTotalPrice()));
 
             handleCancelBooking(); // Close the modal
-        } catch (IOException e) {
-            showAlert("Error", "Failed to create booking: " + e.getMessage());
+        }, e -> {
+            confirmBookingButton.setDisable(false);
+            if (e instanceof CapacityExceededException) {
+                showAlert("Fully Booked", e.getMessage());
+            } else {
+                showAlert("Error", "Failed to create booking: " + e.getMessage());
+            }
+        });
+    }
+
+    /** Adds the featured attraction to the trip, or takes it off again if it is already on it. */
+    @FXML
+    private void handleAddToTrip() {
+        if (selectedAttraction == null) {
+            return;
+        }
+        String attractionId = selectedAttraction.getAttractionId();
+        if (!tripStops.remove(attractionId)) {
+            tripStops.add(attractionId);
+        }
+        updateTripButtons();
+    }
+
+    private void updateTripButtons() {
+        boolean onTrip = selectedAttraction != null && tripStops.contains(selectedAttraction.getAttractionId());
+        addToTripButton.setText(onTrip ? "Remove from Trip" : "Add to Trip");
+        planTripButton.setText("Plan Trip (" + tripStops.size() + ")");
+        planTripButton.setDisable(tripStops.isEmpty());
+    }
+
+    /**
+     * Shows the trip's stops in the shortest visiting order found by {@link ItineraryPlanner}, one
+     * a day from the chosen visit date unless the dates are changed, and books them all at once.
+     */
+    @FXML
+    private void handlePlanTrip() {
+        if (tripStops.isEmpty()) {
+            return;
+        }
+        List<String> stops = new ArrayList<>(tripStops);
+        LocalDate start = visitDatePicker.getValue() != null ? visitDatePicker.getValue() : LocalDate.now().plusDays(1);
+        DatePicker fromPicker = new DatePicker(start);
+        DatePicker toPicker = new DatePicker(start.plusDays(stops.size() - 1));
+        Label planLabel = new Label("Planning...");
+        planLabel.setWrapText(true);
+        ItineraryPlanner.Plan[] shown = new ItineraryPlanner.Plan[1];
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Plan Trip");
+        dialog.setHeaderText(stops.size() + " attractions, in the order with the least travelling");
+        ButtonType bookAll = new ButtonType("Book All", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(bookAll, ButtonType.CANCEL);
+        dialog.getDialogPane().lookupButton(bookAll).setDisable(true);
+        GridPane dates = new GridPane();
+        dates.setHgap(10);
+        dates.setVgap(10);
+        dates.addRow(0, new Label("From:"), fromPicker, new Label("To:"), toPicker);
+        dialog.getDialogPane().setContent(new VBox(15, dates, planLabel));
+
+        Runnable replan = () -> {
+            LocalDate from = fromPicker.getValue();
+            LocalDate to = toPicker.getValue();
+            shown[0] = null;
+            dialog.getDialogPane().lookupButton(bookAll).setDisable(true);
+            if (from == null || to == null || from.isBefore(LocalDate.now())) {
+                planLabel.setText("Please choose future dates.");
+                return;
+            }
+            AsyncDataManager.onFxThread(AsyncDataManager.supply(() -> ItineraryPlanner.plan(stops, from, to)), plan -> {
+                if (!from.equals(fromPicker.getValue()) || !to.equals(toPicker.getValue())) {
+                    return; // the dates changed while this was planned
+                }
+                shown[0] = plan;
+                planLabel.setText(describePlan(plan));
+                dialog.getDialogPane().lookupButton(bookAll).setDisable(false);
+            }, e -> planLabel.setText(e.getMessage()));
+        };
+        fromPicker.valueProperty().addListener((obs, oldVal, newVal) -> replan.run());
+        toPicker.valueProperty().addListener((obs, oldVal, newVal) -> replan.run());
+        replan.run();
+
+        if (dialog.showAndWait().orElse(ButtonType.CANCEL) != bookAll || shown[0] == null) {
+            return;
+        }
+        ItineraryPlanner.Plan plan = shown[0];
+        String touristId = currentUser.getUserId();
+        int numberOfPeople = peopleSpinner.getValue();
+        String language = LanguageManager.getInstance().isNepali() ? "Nepali" : "English";
+        planTripButton.setDisable(true);
+        AsyncDataManager.onFxThread(AsyncDataManager.supply(() -> BookingManager.bookItinerary(
+                touristId, plan, numberOfPeople, "", language)), booked -> {
+            double total = booked.stream().mapToDouble(Booking::getTotalPrice).sum();
+            showAlert("Trip Booked", booked.size() + " bookings confirmed.\nTotal Amount: NPR "
+                    + String.format("%.2f", total));
+            tripStops.clear();
+            updateTripButtons();
+        }, e -> {
+            updateTripButtons();
+            if (e instanceof CapacityExceededException) {
+                showAlert("Fully Booked", e.getMessage() + "\nNothing was booked.");
+            } else {
+                showAlert("Error", "Failed to book the trip: " + e.getMessage());
+            }
+        });
+    }
+
+    private static String describePlan(ItineraryPlanner.Plan plan) {
+        StringBuilder text = new StringBuilder();
+        int number = 1;
+        for (ItineraryPlanner.Stop stop : plan.stops()) {
+            text.append(number++).append(". ").append(stop.date()).append("  ").append(stop.attraction().getName());
+            if (stop.kmFromPrevious() > 0) {
+                text.append(String.format("  (+%.0f km)", stop.kmFromPrevious()));
+            }
+            text.append('\n');
         }
+        text.append(String.format("\nTotal travel: %.0f km", plan.totalKm()));
+        return text.toString();
     }
 
     @FXML
@@ -331,16 +565,99 @@ public class AttractionsController implements Initializable {
 
     private void calculateTotalAmount() {
         if (selectedAttraction != null && peopleSpinner != null && totalAmountLabel != null) {
+            long request = ++priceRequest;
             int people = peopleSpinner.getValue();
-            double base = selectedAttraction.getEntryFee() * people;
-            double discount = FestivalManager.calculateFestivalDiscount(base);
-            double finalAmount = base - discount;
+            LocalDate visitDate = visitDatePicker != null ? visitDatePicker.getValue() : null;
+            // Priced off the FX thread: a quote may have to load the bookings or festivals first
+            AsyncDataManager.onFxThread(AsyncDataManager.quote(selectedAttraction, visitDate, people), quote -> {
+                if (request != priceRequest) {
+                    return;
+                }
+                totalAmountLabel.setText("Total: NPR " + String.format("%.2f", quote.total()) + quote.demandNote());
+                if (festivalDiscountLabel != null) {
+                    festivalDiscountLabel.setVisible(quote.festivalDiscount() > 0);
+                }
+            }, error -> {
+                if (request == priceRequest) {
+                    totalAmountLabel.setText("Total: unavailable");
+                    System.out.println("Warning: could not price booking: " + error.getMessage());
+                }
+            });
+            showFareCalendar(people, visitDate != null ? visitDate : LocalDate.now());
+        }
+    }
+
+    /**
+     * Colours every day of {@code shown}'s month by its price for {@code people}, from one cached
+     * fare calendar, so moving the date or the spinner reads no files. Clicking a day picks it.
+     * The calendar is priced off the FX thread, since it reads the booking counters.
+     */
+    private void showFareCalendar(int people, LocalDate shown) {
+        if (fareCalendarGrid == null) {
+            return;
+        }
+        long request = ++fareRequest;
+        AsyncDataManager.onFxThread(AsyncDataManager.fareCalendar(selectedAttraction, LocalDate.now(),
+                FARE_CALENDAR_DAYS, people), fares -> {
+                    if (request == fareRequest) {
+                        renderFareCalendar(fares, shown);
+                    }
+                }, error -> System.out.println("Warning: could not load the fare calendar: " + error.getMessage()));
+    }
 
-            totalAmountLabel.setText("Total: NPR " + String.format("%.2f", finalAmount));
+    private void renderFareCalendar(PricingEngine.FareCalendar fares, LocalDate shown) {
+        fareCalendarGrid.getChildren().clear();
+        LocalDate first = shown.withDayOfMonth(1);
+        int length = shown.lengthOfMonth();
+        double cheapest = Double.MAX_VALUE;
+        double dearest = 0;
+        for (int day = 0; day < length; day++) {
+            int index = fares.indexOf(first.plusDays(day));
+            if (index >= 0 && fares.placesLeft()[index] > 0) {
+                cheapest = Math.min(cheapest, fares.prices()[index]);
+                dearest = Math.max(dearest, fares.prices()[index]);
+            }
+        }
 
-            if (festivalDiscountLabel != null) {
-                festivalDiscountLabel.setVisible(discount > 0);
+        if (fareCalendarTitle != null) {
+            List<LocalDate> best = fares.cheapestDays(1);
+            fareCalendarTitle.setText("Prices in " + first.getMonth() + " " + first.getYear()
+                    + (best.isEmpty() ? "" : " - cheapest day ahead: " + best.get(0)));
+        }
+        String[] weekdays = { "Mo", "Tu", "We", "Th", "Fr", "Sa", "Su" };
+        for (int column = 0; column < 7; column++) {
+            Label weekday = new Label(weekdays[column]);
+            weekday.getStyleClass().add("fare-weekday");
+            fareCalendarGrid.add(weekday, column, 0);
+        }
+        int offset = first.getDayOfWeek().getValue() - 1;
+        for (int day = 0; day < length; day++) {
+            LocalDate date = first.plusDays(day);
+            int index = fares.indexOf(date);
+            Button cell = new Button(String.valueOf(day + 1));
+            cell.getStyleClass().add("fare-day");
+            if (index < 0) {
+                cell.getStyleClass().add("fare-unavailable");
+                cell.setDisable(true);
+            } else if (fares.placesLeft()[index] == 0) {
+                cell.getStyleClass().add("fare-full");
+                cell.setTooltip(new Tooltip(date + ": fully booked"));
+                cell.setDisable(true);
+            } else {
+                double price = fares.prices()[index];
+                double position = dearest > cheapest ? (price - cheapest) / (dearest - cheapest) : 0;
+                cell.getStyleClass().add(position < 1.0 / 3 ? "fare-cheap" : position < 2.0 / 3 ? "fare-mid" : "fare-high");
+                double discount = fares.discounts()[index];
+                cell.setTooltip(new Tooltip(date + ": NPR " + String.format("%.2f", price)
+                        + (discount > 0 ? " (festival discount NPR " + String.format("%.2f", discount) + ")" : "")
+                        + "\n" + fares.placesLeft()[index] + " places left"));
+                cell.setOnAction(e -> visitDatePicker.setValue(date));
+            }
+            if (date.equals(shown)) {
+                cell.getStyleClass().add("fare-selected");
             }
+            int slot = offset + day;
+            fareCalendarGrid.add(cell, slot % 7, slot / 7 + 1);
         }
     }
 
@@ -1,5 +1,6 @@
 package com.nepaltourismmanagementapp.controller;
 
+import com.nepaltourismmanagementapp.exception.ConcurrentUpdateException;
 import com.nepaltourismmanagementapp.model.*;
 import com.nepaltourismmanagementapp.utils.*;
 import javafx.collections.FXCollections;
@@ -20,6 +21,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
 public class BookingsController implements Initializable {
 
@@ -74,6 +76,7 @@ public class BookingsController implements Initializable {
 
     private User currentUser;
     private final ObservableList<Booking> bookingsList = FXCollections.observableArrayList();
+    private long loadRequest; // only the latest load may update the table
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -86,6 +89,57 @@ public class BookingsController implements Initializable {
         this.currentUser = user;
         titleLabel.setText("My Bookings - " + user.getFullName());
         loadUserBookings();
+        ChangeFeed.subscribeOnFxThread(bookingsTable, this::onDataChanged);
+    }
+
+    /** Applies a booking saved anywhere in the application to the list, if it belongs in it. */
+    private void onDataChanged(ChangeFeed.Event event) {
+        if (event instanceof ChangeFeed.Reloaded reloaded && reloaded.table().equals("bookings")) {
+            loadUserBookings();
+        } else if (event instanceof ChangeFeed.BookingEvent change) {
+            Booking booking = change.booking();
+            boolean shown = isMine(booking) && !(change instanceof ChangeFeed.BookingRemoved)
+                    && matchesSearchCriteria(booking) && matchesStatusFilter(booking);
+            if (!ChangeFeed.apply(bookingsList, Booking::getId, booking.getId(), shown ? booking : null)) {
+                return;
+            }
+            if (bookingCountLabel != null) {
+                bookingCountLabel.setText("Showing " + bookingsList.size() + " bookings");
+            }
+            if (isFiltered()) {
+                updateBookingSummary(bookingsList, null);
+            } else {
+                long request = loadRequest;
+                AsyncDataManager.onFxThread(AsyncDataManager.queryBookingTotals(this::totalsFor), totals -> {
+                    if (request == loadRequest) {
+                        updateBookingSummary(bookingsList, totals);
+                    }
+                }, e -> updateBookingSummary(bookingsList, null));
+            }
+        }
+    }
+
+    private boolean isMine(Booking booking) {
+        if (currentUser instanceof Tourist) {
+            return currentUser.getUserId().equals(booking.getTouristUsername());
+        } else if (currentUser instanceof Guide) {
+            return currentUser.getUserId().equals(booking.getGuideUsername());
+        }
+        return true;
+    }
+
+    private BookingAggregates.Summary totalsFor(BookingAggregates aggregates) {
+        if (currentUser instanceof Tourist) {
+            return aggregates.forTourist(currentUser.getUserId());
+        } else if (currentUser instanceof Guide) {
+            return aggregates.forGuide(currentUser.getUserId());
+        }
+        return aggregates.overall();
+    }
+
+    private boolean isFiltered() {
+        return (searchField != null && !searchField.getText().trim().isEmpty())
+                || (statusFilter != null && !"All".equals(statusFilter.getValue()));
     }
 
     private void setupBookingsTable() {
@@ -128,54 +182,89 @@ public class BookingsController implements Initializable {
     }
 
     private void loadUserBookings() {
-        try {
-            List<Booking> userBookings;
-            if (currentUser instanceof Tourist) {
-                userBookings = BookingManager.getBookingsByTourist(currentUser.getUserId());
-            } else if (currentUser instanceof Guide) {
-                userBookings = BookingManager.getBookingsByGuide(currentUser.getUserId());
-            } else {
-                userBookings = BookingManager.loadAllBookings();
-            }
-            bookingsList.setAll(userBookings);
-            updateBookingSummary(userBookings);
+        loadUserBookings(null);
+    }
 
-            if (bookingCountLabel != null) {
-                bookingCountLabel.setText("Showing " + userBookings.size() + " bookings");
-            }
-        } catch (IOException e) {
-            showAlert("Error", "Failed to load bookings: " + e.getMessage());
+    /**
+     * Loads the current user's bookings and totals in the background and shows them when they
+     * arrive; {@code onLoaded} (if any) runs after that.
+     */
+    private void loadUserBookings(Runnable onLoaded) {
+        long request = ++loadRequest;
+        showLoading();
+        String userId = currentUser.getUserId();
+        CompletableFuture<List<Booking>> userBookings;
+        if (currentUser instanceof Tourist) {
+            userBookings = AsyncDataManager.getBookingsByTourist(userId);
+        } else if (currentUser instanceof Guide) {
+            userBookings = AsyncDataManager.getBookingsByGuide(userId);
+        } else {
+            userBookings = AsyncDataManager.loadAllBookings();
         }
+        CompletableFuture<BookingAggregates.Summary> totals = AsyncDataManager.queryBookingTotals(this::totalsFor);
+
+        AsyncDataManager.onFxThread(CompletableFuture.allOf(userBookings, totals), ignored -> {
+            if (request != loadRequest) {
+                return; // a newer load or filter has been started since
+            }
+            showBookings(userBookings.join(), totals.join());
+            if (onLoaded != null) {
+                onLoaded.run();
+            }
+        }, e -> showLoadError("Failed to load bookings: " + e.getMessage()));
     }
 
     private void filterBookings() {
         if (currentUser == null)
             return;
 
-        try {
-            List<Booking> allBookings;
-            if (currentUser instanceof Tourist) {
-                allBookings = BookingManager.getBookingsByTourist(currentUser.getUserId());
-            } else if (currentUser instanceof Guide) {
-                allBookings = BookingManager.getBookingsByGuide(currentUser.getUserId());
-            } else {
-                allBookings = BookingManager.loadAllBookings();
-            }
+        long request = ++loadRequest;
+        showLoading();
+        CompletableFuture<List<Booking>> allBookings;
+        if (currentUser instanceof Tourist) {
+            allBookings = AsyncDataManager.getBookingsByTourist(currentUser.getUserId());
+        } else if (currentUser instanceof Guide) {
+            allBookings = AsyncDataManager.getBookingsByGuide(currentUser.getUserId());
+        } else {
+            allBookings = AsyncDataManager.loadAllBookings();
+        }
 
-            List<Booking> filteredBookings = allBookings.stream()
+        AsyncDataManager.onFxThread(allBookings, bookings -> {
+            if (request != loadRequest) {
+                return;
+            }
+            // Filter with whatever the search field and status filter say by now
+            List<Booking> filteredBookings = bookings.stream()
                     .filter(this::matchesSearchCriteria)
                     .filter(this::matchesStatusFilter)
                     .toList();
+            showBookings(filteredBookings, null);
+        }, e -> showLoadError("Failed to filter bookings: " + e.getMessage()));
+    }
 
-            bookingsList.setAll(filteredBookings);
-            updateBookingSummary(filteredBookings);
+    private void showLoading() {
+        bookingsTable.setPlaceholder(new Label("Loading bookings..."));
+        if (bookingCountLabel != null) {
+            bookingCountLabel.setText("Loading bookings...");
+        }
+    }
 
-            if (bookingCountLabel != null) {
-                bookingCountLabel.setText("Showing " + filteredBookings.size() + " bookings");
-            }
-        } catch (IOException e) {
-            showAlert("Error", "Failed to filter bookings: " + e.getMessage());
+    private void showBookings(List<Booking> bookings, BookingAggregates.Summary totals) {
+        bookingsTable.setPlaceholder(null);
+        bookingsList.setAll(bookings);
+        updateBookingSummary(bookings, totals);
+
+        if (bookingCountLabel != null) {
+            bookingCountLabel.setText("Showing " + bookings.size() + " bookings");
+        }
+    }
+
+    private void showLoadError(String message) {
+        bookingsTable.setPlaceholder(null);
+        if (bookingCountLabel != null) {
+            bookingCountLabel.setText("");
         }
+        showAlert("Error", message);
     }
 
     private boolean matchesSearchCriteria(Booking booking) {
@@ -196,31 +285,43 @@ public class BookingsController implements Initializable {
         return booking.getStatus().toString().equals(statusFilter.getValue());
     }
 
-    private void updateBookingSummary(List<Booking> bookings) {
+    /**
+     * Fills the summary labels. {@code totals} are the running totals for exactly {@code bookings}
+     * when the list is unfiltered, or null to count the (filtered) list here.
+     */
+    private void updateBookingSummary(List<Booking> bookings, BookingAggregates.Summary totals) {
+        LocalDate today = LocalDate.now();
+        int upcoming = 0;
+        int completed = 0;
+        double totalSpent = 0;
+        for (Booking b : bookings) {
+            Booking.BookingStatus status = b.getStatus();
+            if ((status == Booking.BookingStatus.CONFIRMED || status == Booking.BookingStatus.PENDING)
+                    && b.getTrekDate().isAfter(today)) {
+                upcoming++;
+            }
+            if (totals == null) {
+                if (status == Booking.BookingStatus.COMPLETED) {
+                    completed++;
+                }
+                totalSpent += b.getTotalPrice();
+            }
+        }
+        if (totals != null) {
+            completed = totals.count(Booking.BookingStatus.COMPLETED);
+            totalSpent = totals.revenue();
+        }
+
         if (totalBookingsLabel != null) {
             totalBookingsLabel.setText(String.valueOf(bookings.size()));
         }
-
         if (upcomingBookingsLabel != null) {
-            long upcoming = bookings.stream()
-                    .filter(b -> "CONFIRMED".equals(b.getStatus().toString())
-                            || "PENDING".equals(b.getStatus().toString()))
-                    .filter(b -> b.getTrekDate().isAfter(LocalDate.now()))
-                    .count();
             upcomingBookingsLabel.setText(String.valueOf(upcoming));
         }
-
         if (completedBookingsLabel != null) {
-            long completed = bookings.stream()
-                    .filter(b -> "COMPLETED".equals(b.getStatus().toString()))
-                    .count();
             completedBookingsLabel.setText(String.valueOf(completed));
         }
-
         if (totalSpentLabel != null) {
-            double totalSpent = bookings.stream()
-                    .mapToDouble(Booking::getTotalPrice)
-                    .sum();
             totalSpentLabel.setText("NPR " + String.format("%.0f", totalSpent));
         }
     }
@@ -263,8 +364,7 @@ public class BookingsController implements Initializable {
 
     @FXML
     private void handleRefresh() {
-        loadUserBookings();
-        showAlert("Success", "Bookings refreshed successfully!");
+        loadUserBookings(() -> showAlert("Success", "Bookings refreshed successfully!"));
     }
 
     @FXML
@@ -330,42 +430,36 @@ public class BookingsController implements Initializable {
     }
 
     private void showBookingDetails(Booking booking) {
-        try {
-            // Get attraction details
-            List<Attraction> attractions = DataManager.loadAllAttractions();
-            Attraction attraction = attractions.stream()
-                    .filter(a -> a.getAttractionId().equals(booking.getAttractionId()))
-                    .findFirst()
-                    .orElse(null);
-
-            String attractionName = attraction != null ? attraction.getName() : "Unknown Attraction";
-
-            // Create detailed information
-            StringBuilder details = new StringBuilder();
-            details.append("Booking ID: ").append(booking.getId()).append("\n");
-            details.append("Attraction: ").append(attractionName).append("\n");
-            details.append("Visit Date: ").append(booking.getTrekDate()).append("\n");
-            details.append("Status: ").append(booking.getStatus()).append("\n");
-            details.append("Number of People: ").append(booking.getNumberOfPeople()).append("\n");
-            details.append("Total Price: NPR ").append(String.format("%.2f", booking.getTotalPrice())).append("\n");
-
-            if (booking.getNotes() != null && !booking.getNotes().isEmpty()) {
-                details.append("\nSpecial Requests:\n").append(booking.getNotes());
-            }
+        // Get attraction details
+        AsyncDataManager.onFxThread(AsyncDataManager.queryAttractions(catalog -> catalog.enrich(booking)),
+                entry -> showBookingDetails(booking, entry.attractionName()),
+                e -> showAlert("Error", "Failed to load booking details: " + e.getMessage()));
+    }
 
-            // Show the details in an alert
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("Booking Details");
-            alert.setHeaderText("Details for Booking #" + booking.getId());
-            alert.setContentText(details.toString());
-            alert.showAndWait();
-        } catch (Exception e) {
-            showAlert("Error", "Failed to load booking details: " + e.getMessage());
+    private void showBookingDetails(Booking booking, String attractionName) {
+        // Create detailed information
+        StringBuilder details = new StringBuilder();
+        details.append("Booking ID: ").append(booking.getId()).append("\n");
+        details.append("Attraction: ").append(attractionName).append("\n");
+        details.append("Visit Date: ").append(booking.getTrekDate()).append("\n");
+        details.append("Status: ").append(booking.getStatus()).append("\n");
+        details.append("Number of People: ").append(booking.getNumberOfPeople()).append("\n");
+        details.append("Total Price: NPR ").append(String.format("%.2f", booking.getTotalPrice())).append("\n");
+
+        if (booking.getNotes() != null && !booking.getNotes().isEmpty()) {
+            details.append("\nSpecial Requests:\n").append(booking.getNotes());
         }
+
+        // Show the details in an alert
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Booking Details");
+        alert.setHeaderText("Details for Booking #" + booking.getId());
+        alert.setContentText(details.toString());
+        alert.showAndWait();
     }
 
     private void handleCancelBooking(Booking booking) {
-        if ("COMPLETED".equals(booking.getStatus().toString())) {
+        if (booking.getStatus() == Booking.BookingStatus.COMPLETED) {
             showAlert("Cannot Cancel", "This booking has already been completed.");
             return;
         }
@@ -377,27 +471,18 @@ public class BookingsController implements Initializable {
 
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                // Update booking status
-                booking.setStatus(Booking.BookingStatus.CANCELLED);
-
-                // Save the updated booking
-                List<Booking> allBookings = BookingManager.loadAllBookings();
-                for (int i = 0; i < allBookings.size(); i++) {
-                    if (allBookings.get(i).getId().equals(booking.getId())) {
-                        allBookings.set(i, booking);
-                        break;
-                    }
-                }
-                BookingManager.saveAllBookings(allBookings);
-
-                // Refresh the view
-                loadUserBookings();
-
-                showAlert("Success", "Booking cancelled successfully.");
-            } catch (Exception e) {
-                showAlert("Error", "Failed to cancel booking: " + e.getMessage());
-            }
+            // Save the updated booking, then refresh the view
+            AsyncDataManager.onFxThread(AsyncDataManager.cancelBooking(booking.getId(), booking.getVersion()),
+                    // The change feed updates the list
+                    ignored -> showAlert("Success", "Booking cancelled successfully."),
+                    e -> {
+                        if (e instanceof ConcurrentUpdateException) {
+                            loadUserBookings(() -> showAlert("Booking Changed",
+                                    e.getMessage() + "\nThe list has been refreshed."));
+                        } else {
+                            showAlert("Error", "Failed to cancel booking: " + e.getMessage());
+                        }
+                    });
         }
     }
 
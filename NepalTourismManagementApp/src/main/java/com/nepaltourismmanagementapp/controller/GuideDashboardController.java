@@ -1,7 +1,12 @@
 package com.nepaltourismmanagementapp.controller;
 
+import com.nepaltourismmanagementapp.exception.ConcurrentUpdateException;
 import com.nepaltourismmanagementapp.model.*;
+import com.nepaltourismmanagementapp.utils.AsyncDataManager;
+import com.nepaltourismmanagementapp.utils.BookingAggregates;
+import com.nepaltourismmanagementapp.utils.BookingColumns;
 import com.nepaltourismmanagementapp.utils.BookingManager;
+import com.nepaltourismmanagementapp.utils.ChangeFeed;
 import com.nepaltourismmanagementapp.utils.DataManager;
 import com.nepaltourismmanagementapp.utils.LanguageManager;
 import javafx.collections.FXCollections;
@@ -21,6 +26,7 @@ import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public class GuideDashboardController implements Initializable {
 
@@ -68,6 +74,8 @@ public class GuideDashboardController implements Initializable {
     private Spinner<Integer> experienceSpinner;
     @FXML
     private Label profileRatingLabel; // To display rating in profile tab
+    @FXML
+    private CheckBox availableCheckBox;
 
     @FXML
     private Button editProfileButton;
@@ -77,6 +85,7 @@ public class GuideDashboardController implements Initializable {
     private Button cancelEditButton;
 
     private Guide currentUser;
+    private int profileVersion; // Version of currentUser when editing started
     private final ObservableList<Booking> bookingsList = FXCollections.observableArrayList();
     private final LanguageManager languageManager = LanguageManager.getInstance();
 
@@ -100,6 +109,7 @@ public class GuideDashboardController implements Initializable {
         updateWelcomeMessage();
         loadGuideData();
         updateProfileInfo(); // Populate profile fields
+        ChangeFeed.subscribeOnFxThread(bookingsTable, this::onDataChanged);
     }
 
     private void updateWelcomeMessage() {
@@ -118,19 +128,56 @@ public class GuideDashboardController implements Initializable {
     }
 
     private void loadGuideData() {
-        try {
-            List<Booking> guideBookings = BookingManager.getBookingsByGuide(currentUser.getUserId());
-            bookingsList.setAll(guideBookings);
-            updateStatistics(guideBookings);
-        } catch (IOException e) {
+        // Show loading state while the bookings are read in the background
+        bookingsTable.setPlaceholder(new Label("Loading bookings..."));
+        totalBookingsLabel.setText("Total Bookings: ...");
+        totalEarningsLabel.setText("Total Earnings: ...");
+
+        String userId = currentUser.getUserId();
+        CompletableFuture<List<Booking>> guideBookings = AsyncDataManager.getBookingsByGuide(userId);
+        CompletableFuture<BookingAggregates.Summary> totals = AsyncDataManager.queryBookingTotals(
+                aggregates -> aggregates.forGuide(userId));
+
+        AsyncDataManager.onFxThread(CompletableFuture.allOf(guideBookings, totals), ignored -> {
+            bookingsTable.setPlaceholder(null);
+            bookingsList.setAll(guideBookings.join());
+            updateStatistics(guideBookings.join(), totals.join());
+        }, e -> {
+            bookingsTable.setPlaceholder(null);
             showAlert("Error", "Failed to load guide data: " + e.getMessage());
+        });
+    }
+
+    /** Applies a change saved anywhere in the application, e.g. a tourist booking this guide. */
+    private void onDataChanged(ChangeFeed.Event event) {
+        String userId = currentUser.getUserId();
+        if (event instanceof ChangeFeed.Reloaded reloaded && reloaded.table().equals("bookings")) {
+            loadGuideData();
+        } else if (event instanceof ChangeFeed.BookingEvent change) {
+            Booking booking = change.booking();
+            boolean mine = userId.equals(booking.getGuideUsername()) && !(change instanceof ChangeFeed.BookingRemoved);
+            if (ChangeFeed.apply(bookingsList, Booking::getId, booking.getId(), mine ? booking : null)) {
+                refreshStatistics();
+            }
+        } else if (event instanceof ChangeFeed.UserUpdated updated && updated.user() instanceof Guide guide
+                && guide.getUserId().equals(userId) && guide != currentUser && !saveChangesButton.isVisible()) {
+            // Saved from another window; not while this one is being edited
+            currentUser = guide;
+            updateWelcomeMessage();
+            updateProfileInfo();
         }
     }
 
-    private void updateStatistics(List<Booking> bookings) {
+    private void refreshStatistics() {
+        String userId = currentUser.getUserId();
+        AsyncDataManager.onFxThread(AsyncDataManager.queryBookingTotals(aggregates -> aggregates.forGuide(userId)),
+                totals -> updateStatistics(bookingsList, totals),
+                e -> System.out.println("Warning: could not refresh statistics: " + e.getMessage()));
+    }
+
+    private void updateStatistics(List<Booking> bookings, BookingAggregates.Summary totals) {
         totalBookingsLabel.setText("Total Bookings: " + bookings.size());
-        double earnings = bookings.stream().mapToDouble(Booking::getTotalPrice).sum();
-        totalEarningsLabel.setText("Total Earnings: NPR " + String.format("%.2f", earnings));
+        totalEarningsLabel.setText("Total Earnings: NPR " + String.format("%.2f", totals.revenue()));
         ratingLabel.setText("Rating: " + String.format("%.1f", currentUser.getRating()));
         long upcoming = bookings.stream().filter(b -> b.getTrekDate().isAfter(LocalDate.now())).count();
         upcomingBookingsLabel.setText("Upcoming Bookings: " + upcoming);
@@ -154,6 +201,7 @@ public class GuideDashboardController implements Initializable {
         }
 
         profileRatingLabel.setText(String.format("%.1f", currentUser.getRating()));
+        availableCheckBox.setSelected(currentUser.isAvailable());
 
         setProfileFieldsEditable(false); // Ensure fields are not editable initially
         saveChangesButton.setVisible(false);
@@ -169,11 +217,13 @@ public class GuideDashboardController implements Initializable {
         languagesField.setEditable(editable);
         specializationsField.setEditable(editable);
         experienceSpinner.setEditable(editable);
+        availableCheckBox.setDisable(!editable);
         // Rating label is not editable
     }
 
     @FXML
     private void handleEditProfile() {
+        profileVersion = currentUser.getVersion();
         setProfileFieldsEditable(true);
         editProfileButton.setVisible(false);
         saveChangesButton.setVisible(true);
@@ -183,20 +233,33 @@ public class GuideDashboardController implements Initializable {
     @FXML
     private void handleSaveChanges() {
         try {
-            // Update currentUser object with new values from fields
-            currentUser.setFullName(fullNameField.getText().trim());
-            currentUser.setEmail(emailField.getText().trim());
-            currentUser.setPhone(phoneField.getText().trim()); // Update phone
+            // Edit a copy, so the cached guide only changes once the update is saved
+            Guide edited = currentUser.copy();
+            edited.setFullName(fullNameField.getText().trim());
+            edited.setEmail(emailField.getText().trim());
+            edited.setPhone(phoneField.getText().trim()); // Update phone
             // licenseNumber is final, cannot be changed after creation
-            currentUser.setLanguages(Arrays.asList(languagesField.getText().split(";")));
-            currentUser.setSpecializations(Arrays.asList(specializationsField.getText().split(";")));
-            currentUser.setExperienceYears(experienceSpinner.getValue());
+            edited.setLanguages(Arrays.asList(languagesField.getText().split(";")));
+            edited.setSpecializations(Arrays.asList(specializationsField.getText().split(";")));
+            edited.setExperienceYears(experienceSpinner.getValue());
+            edited.setAvailable(availableCheckBox.isSelected());
 
-            // Save the updated user data
-            DataManager.updateUser(currentUser); // This method needs to be implemented in DataManager
+            // Save the updated user data, unless it was changed elsewhere since editing started
+            DataManager.updateUser(edited, profileVersion);
+            currentUser = edited;
 
             showAlert("Success", "Profile updated successfully!");
             updateProfileInfo(); // Refresh displayed info and reset buttons
+        } catch (ConcurrentUpdateException e) {
+            showAlert("Profile Changed", "Your profile was changed in another window. The latest version has been loaded.");
+            try {
+                if (DataManager.findUserById(currentUser.getUserId()) instanceof Guide latest) {
+                    currentUser = latest;
+                }
+            } catch (IOException ex) {
+                System.out.println("Warning: could not reload profile: " + ex.getMessage());
+            }
+            updateProfileInfo();
         } catch (IOException e) {
             showAlert("Error", "Failed to save profile changes: " + e.getMessage());
         } catch (Exception e) {
@@ -281,120 +344,107 @@ public class GuideDashboardController implements Initializable {
     }
 
     private void showGuideStatisticsDialog() {
-        try {
-            // Load guide bookings for statistics
-            List<Booking> guideBookings = BookingManager.getBookingsByGuide(currentUser.getUserId());
-            List<Attraction> allAttractions = DataManager.loadAllAttractions();
-
-            // Calculate statistics
-            int totalBookings = guideBookings.size();
-            int completedBookings = (int) guideBookings.stream()
-                    .filter(b -> "COMPLETED".equals(b.getStatus().toString()))
-                    .count();
-            int upcomingBookings = (int) guideBookings.stream()
-                    .filter(b -> "CONFIRMED".equals(b.getStatus().toString())
-                            || "PENDING".equals(b.getStatus().toString()))
-                    .count();
-
-            double totalEarnings = guideBookings.stream()
-                    .mapToDouble(Booking::getTotalPrice)
-                    .sum();
-
-            double averageEarningsPerTrip = totalBookings > 0 ? totalEarnings / totalBookings : 0;
-
-            // Find most guided category
-            java.util.Map<String, Long> categoryCount = guideBookings.stream()
-                    .map(booking -> allAttractions.stream()
-                            .filter(attr -> attr.getAttractionId().equals(booking.getAttractionId()))
-                            .findFirst()
-                            .map(Attraction::getCategory)
-                            .orElse("Unknown"))
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            category -> category,
-                            java.util.stream.Collectors.counting()));
-
-            String specialtyCategory = categoryCount.entrySet().stream()
-                    .max(java.util.Map.Entry.comparingByValue())
-                    .map(java.util.Map.Entry::getKey)
-                    .orElse("None");
-
-            // Calculate unique tourists served
-            long uniqueTourists = guideBookings.stream()
-                    .map(Booking::getTouristUsername)
-                    .distinct()
-                    .count();
-
-            // Create statistics dialog
-            Dialog<Void> dialog = new Dialog<>();
-            dialog.setTitle("Guide Performance Statistics");
-            dialog.setHeaderText("Your Professional Journey Overview");
-
-            GridPane grid = new GridPane();
-            grid.setHgap(15);
-            grid.setVgap(15);
-            grid.setPadding(new javafx.geometry.Insets(20, 150, 10, 10));
-
-            // Add statistics
-            int row = 0;
-            grid.add(new Label("📊 Booking Statistics"), 0, row++, 2, 1);
-            grid.add(new Label("Total Tours Guided:"), 0, row);
-            grid.add(new Label(String.valueOf(totalBookings)), 1, row++);
-
-            grid.add(new Label("Completed Tours:"), 0, row);
-            grid.add(new Label(String.valueOf(completedBookings)), 1, row++);
-
-            grid.add(new Label("Upcoming Tours:"), 0, row);
-            grid.add(new Label(String.valueOf(upcomingBookings)), 1, row++);
-
-            grid.add(new Label("Unique Tourists Served:"), 0, row);
-            grid.add(new Label(String.valueOf(uniqueTourists)), 1, row++);
-
-            grid.add(new Label(""), 0, row++); // Spacer
-
-            grid.add(new Label("💰 Earnings Statistics"), 0, row++, 2, 1);
-            grid.add(new Label("Total Earnings:"), 0, row);
-            grid.add(new Label("NPR " + String.format("%.2f", totalEarnings)), 1, row++);
-
-            grid.add(new Label("Average per Tour:"), 0, row);
-            grid.add(new Label("NPR " + String.format("%.2f", averageEarningsPerTrip)), 1, row++);
-
-            grid.add(new Label(""), 0, row++); // Spacer
-
-            grid.add(new Label("🎯 Professional Profile"), 0, row++, 2, 1);
-            grid.add(new Label("Specialty Category:"), 0, row);
-            grid.add(new Label(specialtyCategory), 1, row++);
-
-            grid.add(new Label("Experience Level:"), 0, row);
-            grid.add(new Label(currentUser.getExperienceYears() + " years"), 1, row++);
-
-            grid.add(new Label("Current Rating:"), 0, row);
-            grid.add(new Label(String.format("%.1f/5.0", currentUser.getRating())), 1, row++);
-
-            grid.add(new Label("Languages:"), 0, row);
-            grid.add(new Label(String.join(", ", currentUser.getLanguages())), 1, row++);
-
-            // Style the labels
-            grid.getChildren().forEach(node -> {
-                if (node instanceof Label) {
-                    Label label = (Label) node;
-                    if (label.getText().startsWith("📊") || label.getText().startsWith("💰")
-                            || label.getText().startsWith("🎯")) {
-                        label.setStyle("-fx-font-weight: bold; -fx-font-size: 16px; -fx-text-fill: #6c5ce7;");
-                    } else if (GridPane.getColumnIndex(node) == 1) {
-                        label.setStyle("-fx-font-weight: bold; -fx-text-fill: #2d3436;");
-                    } else {
-                        label.setStyle("-fx-text-fill: #636e72;");
-                    }
-                }
-            });
+        // Running totals for the counts; one pass over the booking columns for the breakdowns
+        String userId = currentUser.getUserId();
+        CompletableFuture<BookingAggregates.Summary> totals = AsyncDataManager.queryBookingTotals(
+                aggregates -> aggregates.forGuide(userId));
+        CompletableFuture<BookingColumns.Stats> stats = AsyncDataManager.queryBookingStats(
+                columns -> columns.statsForGuide(userId, LocalDate.now()));
+        CompletableFuture<java.util.Map<String, Long>> categoryCount = stats.thenCompose(
+                s -> AsyncDataManager.queryAttractions(catalog -> catalog.countByCategory(s.countByAttraction())));
+
+        AsyncDataManager.onFxThread(CompletableFuture.allOf(totals, stats, categoryCount),
+                ignored -> showGuideStatisticsDialog(totals.join(), stats.join(), categoryCount.join()),
+                e -> showAlert("Error", "Failed to load statistics: " + e.getMessage()));
+    }
 
-            dialog.getDialogPane().setContent(grid);
-            dialog.getDialogPane().getButtonTypes().add(ButtonType.OK);
-            dialog.showAndWait();
+    private void showGuideStatisticsDialog(BookingAggregates.Summary totals, BookingColumns.Stats stats,
+            java.util.Map<String, Long> categoryCount) {
+        int totalBookings = totals.count();
+        int completedBookings = totals.count(Booking.BookingStatus.COMPLETED);
+        int upcomingBookings = totals.count(Booking.BookingStatus.CONFIRMED)
+                + totals.count(Booking.BookingStatus.PENDING);
 
-        } catch (IOException e) {
-            showAlert("Error", "Failed to load statistics: " + e.getMessage());
-        }
+        double totalEarnings = totals.revenue();
+
+        double averageEarningsPerTrip = totals.averageRevenue();
+
+        // Find most guided category
+        String specialtyCategory = categoryCount.entrySet().stream()
+                .max(java.util.Map.Entry.comparingByValue())
+                .map(java.util.Map.Entry::getKey)
+                .orElse("None");
+
+        // Calculate unique tourists served
+        long uniqueTourists = stats.distinctTourists();
+
+        // Create statistics dialog
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("Guide Performance Statistics");
+        dialog.setHeaderText("Your Professional Journey Overview");
+
+        GridPane grid = new GridPane();
+        grid.setHgap(15);
+        grid.setVgap(15);
+        grid.setPadding(new javafx.geometry.Insets(20, 150, 10, 10));
+
+        // Add statistics
+        int row = 0;
+        grid.add(new Label("📊 Booking Statistics"), 0, row++, 2, 1);
+        grid.add(new Label("Total Tours Guided:"), 0, row);
+        grid.add(new Label(String.valueOf(totalBookings)), 1, row++);
+
+        grid.add(new Label("Completed Tours:"), 0, row);
+        grid.add(new Label(String.valueOf(completedBookings)), 1, row++);
+
+        grid.add(new Label("Upcoming Tours:"), 0, row);
+        grid.add(new Label(String.valueOf(upcomingBookings)), 1, row++);
+
+        grid.add(new Label("Unique Tourists Served:"), 0, row);
+        grid.add(new Label(String.valueOf(uniqueTourists)), 1, row++);
+
+        grid.add(new Label(""), 0, row++); // Spacer
+
+        grid.add(new Label("💰 Earnings Statistics"), 0, row++, 2, 1);
+        grid.add(new Label("Total Earnings:"), 0, row);
+        grid.add(new Label("NPR " + String.format("%.2f", totalEarnings)), 1, row++);
+
+        grid.add(new Label("Average per Tour:"), 0, row);
+        grid.add(new Label("NPR " + String.format("%.2f", averageEarningsPerTrip)), 1, row++);
+
+        grid.add(new Label(""), 0, row++); // Spacer
+
+        grid.add(new Label("🎯 Professional Profile"), 0, row++, 2, 1);
+        grid.add(new Label("Specialty Category:"), 0, row);
+        grid.add(new Label(specialtyCategory), 1, row++);
+
+        grid.add(new Label("Experience Level:"), 0, row);
+        grid.add(new Label(currentUser.getExperienceYears() + " years"), 1, row++);
+
+        grid.add(new Label("Current Rating:"), 0, row);
+        grid.add(new Label(String.format("%.1f/5.0", currentUser.getRating())), 1, row++);
+
+        grid.add(new Label("Languages:"), 0, row);
+        grid.add(new Label(String.join(", ", currentUser.getLanguages())), 1, row++);
+
+        // Style the labels
+        grid.getChildren().forEach(node -> {
+            if (node instanceof Label) {
+                Label label = (Label) node;
+                if (label.getText().startsWith("📊") || label.getText().startsWith("💰")
+                        || label.getText().startsWith("🎯")) {
+                    label.setStyle("-fx-font-weight: bold; -fx-font-size: 16px; -fx-text-fill: #6c5ce7;");
+                } else if (GridPane.getColumnIndex(node) == 1) {
+                    label.setStyle("-fx-font-weight: bold; -fx-text-fill: #2d3436;");
+                } else {
+                    label.setStyle("-fx-text-fill: #636e72;");
+                }
+            }
+        });
+
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.OK);
+        dialog.showAndWait();
     }
 
     @FXML
@@ -410,13 +460,18 @@ public class GuideDashboardController implements Initializable {
 
             Optional<String> result = dialog.showAndWait();
             result.ifPresent(newStatus -> {
-                try {
-                    BookingManager.updateBookingStatus(selectedBooking.getId(), newStatus);
-                    loadGuideData(); // Refresh table
-                    showAlert("Success", "Booking status updated to " + newStatus + "!");
-                } catch (IOException e) {
-                    showAlert("Error", "Failed to update status: " + e.getMessage());
-                }
+                AsyncDataManager.onFxThread(AsyncDataManager.updateBookingStatus(selectedBooking.getId(),
+                        selectedBooking.getVersion(), newStatus), ignored -> {
+                            // The change feed puts the new status in the table
+                            showAlert("Success", "Booking status updated to " + newStatus + "!");
+                        }, e -> {
+                            if (e instanceof ConcurrentUpdateException) {
+                                loadGuideData();
+                                showAlert("Booking Changed", e.getMessage() + "\nThe list has been refreshed.");
+                            } else {
+                                showAlert("Error", "Failed to update status: " + e.getMessage());
+                            }
+                        });
             });
         } else {
             showAlert("Info", "Please select a booking to update its status.");
@@ -427,15 +482,12 @@ public class GuideDashboardController implements Initializable {
     public void handleViewTouristInfo() {
         Booking selectedBooking = bookingsTable.getSelectionModel().getSelectedItem();
         if (selectedBooking != null) {
-            try {
-                // Find the tourist by username
-                User touristUser = DataManager.loadAllUsers().stream()
-                        .filter(u -> u.getUsername().equals(selectedBooking.getTouristUsername())
-                                && u instanceof Tourist)
-                        .findFirst()
-                        .orElse(null);
-
-                if (touristUser instanceof Tourist tourist) {
+            // Bookings store the tourist's user id in the username field
+            CompletableFuture<User> touristUser = AsyncDataManager.supply(
+                    () -> DataManager.findUserById(selectedBooking.getTouristUsername()));
+
+            AsyncDataManager.onFxThread(touristUser, user -> {
+                if (user instanceof Tourist tourist) {
                     showAlert("Tourist Information",
                             "Name: " + tourist.getFullName() + "\n" +
                                     "Email: " + tourist.getEmail() + "\n" +
@@ -445,9 +497,7 @@ public class GuideDashboardController implements Initializable {
                 } else {
                     showAlert("Error", "Tourist information not found.");
                 }
-            } catch (IOException e) {
-                showAlert("Error", "Failed to load tourist information: " + e.getMessage());
-            }
+            }, e -> showAlert("Error", "Failed to load tourist information: " + e.getMessage()));
         } else {
             showAlert("Info", "Please select a booking to view tourist information.");
         }
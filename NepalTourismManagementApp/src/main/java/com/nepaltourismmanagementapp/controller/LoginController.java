@@ -1,6 +1,8 @@
 package com.nepaltourismmanagementapp.controller;
 
 import com.nepaltourismmanagementapp.model.*;
+import com.nepaltourismmanagementapp.utils.AsyncDataManager;
+import com.nepaltourismmanagementapp.utils.AuthManager;
 import com.nepaltourismmanagementapp.utils.DataManager;
 import com.nepaltourismmanagementapp.utils.LanguageManager;
 import javafx.fxml.FXML;
@@ -14,8 +16,6 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
-import java.util.List;
-
 import java.util.ResourceBundle;
 
 public class LoginController implements Initializable {
@@ -76,9 +76,6 @@ public class LoginController implements Initializable {
         String password = passwordField.getText();
         String userType = getUserTypeFromRadio();
 
-        // Debug output
-        System.out.println("Login attempt - Username: " + username + ", UserType: " + userType);
-
         if (username.isEmpty() || password.isEmpty()) {
             showAlert("Error", "Please fill in all fields.");
             return;
@@ -89,23 +86,30 @@ public class LoginController implements Initializable {
             return;
         }
 
-        try {
-            User user = authenticateUser(username, password, userType);
-            if (user != null) {
-                System.out.println("Login successful for user: " + user.getUsername() + " as " + user.getRole());
-                openDashboard(user);
-            } else {
-                showAlert("Login Failed",
-                        """
-                                Invalid username, password, or user type.
-                                
-                                Please check:
-                                • Username and password are correct
-                                • Selected user type matches your account
-                                • Account exists in the system""");
-            }
-        } catch (IOException e) {
-            showAlert("Error", "Failed to load user data: " + e.getMessage());
+        // Password hashing is deliberately slow, so verify off the FX thread
+        loginButton.setDisable(true);
+        AsyncDataManager.onFxThread(AsyncDataManager.supply(() -> AuthManager.authenticate(username, password, userType)),
+                user -> {
+                    loginButton.setDisable(false);
+                    onAuthenticated(user);
+                }, e -> {
+                    loginButton.setDisable(false);
+                    showAlert("Error", "Failed to load user data: " + e.getMessage());
+                });
+    }
+
+    private void onAuthenticated(User user) {
+        if (user != null) {
+            openDashboard(user);
+        } else {
+            showAlert("Login Failed",
+                    """
+                            Invalid username, password, or user type.
+                            
+                            Please check:
+                            • Username and password are correct
+                            • Selected user type matches your account
+                            • Account exists in the system""");
         }
     }
 
@@ -124,41 +128,6 @@ public class LoginController implements Initializable {
         return "TOURIST"; // Default fallback
     }
 
-    private User authenticateUser(String username, String password, String userType) throws IOException {
-        List<User> users = DataManager.loadAllUsers();
-
-        // Debug: Print loaded users for troubleshooting
-        System.out.println("Loaded " + users.size() + " users");
-        for (User user : users) {
-            System.out.println(
-                    "User: " + user.getUsername() + ", Role: " + user.getRole() + ", Type: " + user.getUserType());
-        }
-
-        return users.stream()
-                .filter(user -> {
-                    boolean usernameMatch = user.getUsername().equals(username);
-                    boolean passwordMatch = user.getPassword().equals(password);
-                    // Use getRole() instead of getUserType() for authentication
-                    boolean roleMatch = user.getRole().equalsIgnoreCase(userType);
-
-                    // Debug output for failed matches
-                    if (usernameMatch) {
-                        System.out.println("Username match for: " + username);
-                        if (passwordMatch) {
-                            System.out.println("Password match for: " + username);
-                            System.out.println("Role check - User role: " + user.getRole() + ", Expected: " + userType
-                                    + ", Match: " + roleMatch);
-                        } else {
-                            System.out.println("Password mismatch for: " + username);
-                        }
-                    }
-
-                    return usernameMatch && passwordMatch && roleMatch;
-                })
-                .findFirst()
-                .orElse(null);
-    }
-
     private void openDashboard(User user) {
         try {
             String fxmlFile = getDashboardFxmlPath(user.getRole());
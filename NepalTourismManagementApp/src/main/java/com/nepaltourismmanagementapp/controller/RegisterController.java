@@ -239,11 +239,7 @@ public class RegisterController implements Initializable {
 
         // Check if username already exists
         try {
-            List<User> existingUsers = DataManager.loadAllUsers();
-            boolean usernameExists = existingUsers.stream()
-                    .anyMatch(user -> user.getUsername().equals(usernameField.getText().trim()));
-
-            if (usernameExists) {
+            if (DataManager.isUsernameTaken(usernameField.getText().trim())) {
                 throw new RegistrationException("Username already exists. Please choose a different one.");
             }
         } catch (IOException e) {
@@ -1,5 +1,7 @@
 package com.nepaltourismmanagementapp.controller;
 
+import com.nepaltourismmanagementapp.exception.CapacityExceededException;
+import com.nepaltourismmanagementapp.exception.ConcurrentUpdateException;
 import com.nepaltourismmanagementapp.model.*;
 import com.nepaltourismmanagementapp.utils.*;
 import javafx.collections.FXCollections;
@@ -21,17 +23,22 @@ import javafx.stage.Stage;
 import java.io.IOException;
 import java.net.URL;
 import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class TouristDashboardController implements Initializable {
 
     // Dashboard UI Components
     @FXML
-    private Label welcomeLabel, totalAttractionsLabel, myBookingsLabel, totalSpentLabel, festivalDiscountLabel;
+    private Label welcomeLabel, totalAttractionsLabel, myBookingsLabel, totalSpentLabel, festivalDiscountLabel,
+            nearbyAttractionsTitle, latestAttractionsTitle;
     @FXML
-    private HBox latestAttractionsContainer;
+    private HBox latestAttractionsContainer, nearbyAttractionsContainer;
     @FXML
     private TableView<Booking> recentBookingsTable;
     @FXML
@@ -41,7 +48,7 @@ public class TouristDashboardController implements Initializable {
     @FXML
     private TableColumn<Booking, Double> amountCol;
     @FXML
-    private VBox festivalDiscountCard;
+    private VBox festivalDiscountCard, nearbyAttractionsCard;
 
     // Data
     private Tourist currentUser;
@@ -57,6 +64,29 @@ public class TouristDashboardController implements Initializable {
         this.currentUser = user;
         welcomeLabel.setText("Welcome, " + user.getFullName() + "!");
         loadUserData();
+        ChangeFeed.subscribeOnFxThread(recentBookingsTable, this::onDataChanged);
+    }
+
+    /** Applies a change saved anywhere in the application to the bookings table and totals. */
+    private void onDataChanged(ChangeFeed.Event event) {
+        String userId = currentUser.getUserId();
+        if (event instanceof ChangeFeed.Reloaded reloaded && reloaded.table().equals("bookings")) {
+            loadUserData();
+        } else if (event instanceof ChangeFeed.BookingEvent change) {
+            Booking booking = change.booking();
+            boolean mine = userId.equals(booking.getTouristUsername()) && !(change instanceof ChangeFeed.BookingRemoved);
+            if (ChangeFeed.apply(bookingsList, Booking::getId, booking.getId(), mine ? booking : null)) {
+                myBookingsLabel.setText(String.valueOf(bookingsList.size()));
+                loadLatestAttractions(); // their picks follow what they book
+                AsyncDataManager.onFxThread(AsyncDataManager.queryBookingTotals(aggregates -> aggregates.forTourist(userId)),
+                        totals -> totalSpentLabel.setText("NPR " + String.format("%.0f", totals.revenue())),
+                        e -> System.out.println("Warning: could not refresh totals: " + e.getMessage()));
+            }
+        } else if (event instanceof ChangeFeed.UserUpdated updated && updated.user() instanceof Tourist tourist
+                && tourist.getUserId().equals(userId) && tourist != currentUser) {
+            currentUser = tourist;
+            welcomeLabel.setText("Welcome, " + tourist.getFullName() + "!");
+        }
     }
 
     private void setupBookingsTable() {
@@ -70,44 +100,94 @@ public class TouristDashboardController implements Initializable {
     }
 
     private void loadUserData() {
-        try {
-            // Load user bookings
-            List<Booking> userBookings = BookingManager.getBookingsByTourist(currentUser.getUserId());
-            bookingsList.setAll(userBookings);
+        // Show loading state while the files are read in the background
+        recentBookingsTable.setPlaceholder(new Label("Loading bookings..."));
+        myBookingsLabel.setText("...");
+        totalSpentLabel.setText("...");
+        totalAttractionsLabel.setText("...");
+
+        String userId = currentUser.getUserId();
+        CompletableFuture<List<Booking>> userBookings = AsyncDataManager.getBookingsByTourist(userId);
+        CompletableFuture<BookingAggregates.Summary> totals = AsyncDataManager.queryBookingTotals(
+                aggregates -> aggregates.forTourist(userId));
+        CompletableFuture<List<Attraction>> attractions = AsyncDataManager.loadAllAttractions();
+
+        AsyncDataManager.onFxThread(CompletableFuture.allOf(userBookings, totals, attractions), ignored -> {
+            recentBookingsTable.setPlaceholder(null);
+            bookingsList.setAll(userBookings.join());
 
             // Update statistics
-            myBookingsLabel.setText(String.valueOf(userBookings.size()));
-
-            double totalSpent = userBookings.stream()
-                    .mapToDouble(Booking::getTotalPrice)
-                    .sum();
-            totalSpentLabel.setText("NPR " + String.format("%.0f", totalSpent));
+            myBookingsLabel.setText(String.valueOf(userBookings.join().size()));
+            totalSpentLabel.setText("NPR " + String.format("%.0f", totals.join().revenue()));
 
             // Load attractions count
-            List<Attraction> attractions = DataManager.loadAllAttractions();
-            totalAttractionsLabel.setText(String.valueOf(attractions.size()));
+            totalAttractionsLabel.setText(String.valueOf(attractions.join().size()));
 
             // Load latest attractions preview
-            loadLatestAttractions(attractions);
-
-        } catch (IOException e) {
+            loadLatestAttractions();
+            loadNearbyAttractions(userBookings.join(), attractions.join());
+        }, e -> {
+            recentBookingsTable.setPlaceholder(null);
             showAlert("Error", "Failed to load user data: " + e.getMessage());
-        }
+        });
     }
 
-    private void loadLatestAttractions(List<Attraction> allAttractions) {
-        latestAttractionsContainer.getChildren().clear();
+    /**
+     * Fills the top card with picks from what tourists with the same bookings also booked, or with
+     * the newest attractions while nobody has booked anything yet.
+     */
+    private void loadLatestAttractions() {
+        CompletableFuture<List<Attraction>> picks = AsyncDataManager.recommendAttractions(currentUser.getUserId(), 5);
+        CompletableFuture<AttractionFacets.Result> newest = picks.thenCompose(recommended -> recommended.isEmpty()
+                ? AsyncDataManager.filterAttractions(Map.of(AttractionFacets.Facet.ACTIVE, Set.of(AttractionFacets.OPEN)),
+                        AttractionFacets.Order.NEWEST_FIRST, 5)
+                : CompletableFuture.completedFuture(null));
+        AsyncDataManager.onFxThread(newest, latest -> {
+            boolean recommended = latest == null;
+            latestAttractionsTitle.setText(recommended ? "Recommended for You" : "Latest Attractions");
+            latestAttractionsContainer.getChildren().clear();
+            for (Attraction attraction : recommended ? picks.join() : latest.attractions()) {
+                VBox card = createAttractionPreviewCard(attraction);
+                latestAttractionsContainer.getChildren().add(card);
+            }
+        }, e -> System.out.println("Warning: could not load attraction picks: " + e.getMessage()));
+    }
 
-        // Get up to 5 latest attractions
-        List<Attraction> latestAttractions = allAttractions.stream()
-                .filter(Attraction::isActive)
-                .limit(5)
+    /**
+     * Shows the attractions closest to the one of the tourist's next trip (or, with none coming up,
+     * their latest one), and hides the card when there is no trip to go by.
+     */
+    private void loadNearbyAttractions(List<Booking> userBookings, List<Attraction> allAttractions) {
+        LocalDate today = LocalDate.now();
+        List<Booking> trips = userBookings.stream()
+                .filter(b -> b.getTrekDate() != null && b.getStatus() != Booking.BookingStatus.CANCELLED)
                 .toList();
-
-        for (Attraction attraction : latestAttractions) {
-            VBox card = createAttractionPreviewCard(attraction);
-            latestAttractionsContainer.getChildren().add(card);
+        Booking trip = trips.stream()
+                .filter(b -> !b.getTrekDate().isBefore(today))
+                .min(Comparator.comparing(Booking::getTrekDate))
+                .orElseGet(() -> trips.stream().max(Comparator.comparing(Booking::getTrekDate)).orElse(null));
+        Attraction destination = trip == null ? null : allAttractions.stream()
+                .filter(a -> a.getAttractionId().equals(trip.getAttractionId()))
+                .findFirst()
+                .orElse(null);
+        if (destination == null) {
+            showNearbyCard(false);
+            return;
         }
+
+        AsyncDataManager.onFxThread(AsyncDataManager.queryNearby(index -> index.nearest(destination, 5)), nearby -> {
+            nearbyAttractionsContainer.getChildren().clear();
+            for (AttractionGeoIndex.Nearby place : nearby) {
+                nearbyAttractionsContainer.getChildren().add(createAttractionPreviewCard(place.attraction()));
+            }
+            nearbyAttractionsTitle.setText("Near " + destination.getName());
+            showNearbyCard(!nearby.isEmpty());
+        }, e -> System.out.println("Warning: could not find nearby attractions: " + e.getMessage()));
+    }
+
+    private void showNearbyCard(boolean show) {
+        nearbyAttractionsCard.setVisible(show);
+        nearbyAttractionsCard.setManaged(show);
     }
 
     private VBox createAttractionPreviewCard(Attraction attraction) {
@@ -208,6 +288,7 @@ public class TouristDashboardController implements Initializable {
     }
 
     private void showProfileEditDialog() {
+        int version = currentUser.getVersion(); // Saving fails if the profile changes elsewhere meanwhile
         Dialog<Tourist> dialog = new Dialog<>();
         dialog.setTitle("Edit Profile");
         dialog.setHeaderText("Update your profile information");
@@ -243,16 +324,28 @@ public class TouristDashboardController implements Initializable {
         dialog.setResultConverter(dialogButton -> {
             if (dialogButton == saveButtonType) {
                 try {
-                    // Update user object
-                    currentUser.setFullName(fullNameField.getText().trim());
-                    currentUser.setEmail(emailField.getText().trim());
-                    currentUser.setPhone(phoneField.getText().trim());
-                    currentUser.setNationality(nationalityField.getText().trim());
-                    currentUser.setAge(ageSpinner.getValue());
+                    // Edit a copy, so the cached tourist only changes once the update is saved
+                    Tourist edited = currentUser.copy();
+                    edited.setFullName(fullNameField.getText().trim());
+                    edited.setEmail(emailField.getText().trim());
+                    edited.setPhone(phoneField.getText().trim());
+                    edited.setNationality(nationalityField.getText().trim());
+                    edited.setAge(ageSpinner.getValue());
 
                     // Save to file
-                    DataManager.updateUser(currentUser);
+                    DataManager.updateUser(edited, version);
+                    currentUser = edited;
                     return currentUser;
+                } catch (ConcurrentUpdateException e) {
+                    showAlert("Profile Changed", "Your profile was changed in another window. Please open it again.");
+                    try {
+                        if (DataManager.findUserById(currentUser.getUserId()) instanceof Tourist latest) {
+                            currentUser = latest;
+                        }
+                    } catch (IOException ex) {
+                        System.out.println("Warning: could not reload profile: " + ex.getMessage());
+                    }
+                    return null;
                 } catch (Exception e) {
                     showAlert("Error", "Failed to save profile: " + e.getMessage());
                     return null;
@@ -284,241 +377,230 @@ public class TouristDashboardController implements Initializable {
     }
 
     private void showQuickBookingDialog() {
-        try {
-            List<Attraction> attractions = DataManager.loadAllAttractions();
-            List<Attraction> activeAttractions = attractions.stream()
-                    .filter(Attraction::isActive)
-                    .toList();
+        AsyncDataManager.onFxThread(AsyncDataManager.loadAllAttractions(), this::showQuickBookingDialog,
+                e -> showAlert("Error", "Failed to load attractions: " + e.getMessage()));
+    }
 
-            if (activeAttractions.isEmpty()) {
-                showAlert("No Attractions", "No attractions available for booking at the moment.");
-                return;
+    private void showQuickBookingDialog(List<Attraction> attractions) {
+        List<Attraction> activeAttractions = attractions.stream()
+                .filter(Attraction::isActive)
+                .toList();
+
+        if (activeAttractions.isEmpty()) {
+            showAlert("No Attractions", "No attractions available for booking at the moment.");
+            return;
+        }
+
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Quick Booking");
+        dialog.setHeaderText("Book your next adventure quickly!");
+
+        GridPane grid = new GridPane();
+        grid.setHgap(15);
+        grid.setVgap(15);
+        grid.setPadding(new javafx.geometry.Insets(20, 150, 10, 10));
+
+        // Attraction selection
+        ComboBox<Attraction> attractionCombo = new ComboBox<>();
+        attractionCombo.getItems().addAll(activeAttractions);
+        attractionCombo.setConverter(new javafx.util.StringConverter<Attraction>() {
+            @Override
+            public String toString(Attraction attraction) {
+                return attraction != null
+                        ? attraction.getName() + " - NPR " + String.format("%.0f", attraction.getEntryFee())
+                        : "";
             }
 
-            Dialog<ButtonType> dialog = new Dialog<>();
-            dialog.setTitle("Quick Booking");
-            dialog.setHeaderText("Book your next adventure quickly!");
-
-            GridPane grid = new GridPane();
-            grid.setHgap(15);
-            grid.setVgap(15);
-            grid.setPadding(new javafx.geometry.Insets(20, 150, 10, 10));
-
-            // Attraction selection
-            ComboBox<Attraction> attractionCombo = new ComboBox<>();
-            attractionCombo.getItems().addAll(activeAttractions);
-            attractionCombo.setConverter(new javafx.util.StringConverter<Attraction>() {
-                @Override
-                public String toString(Attraction attraction) {
-                    return attraction != null
-                            ? attraction.getName() + " - NPR " + String.format("%.0f", attraction.getEntryFee())
-                            : "";
-                }
+            @Override
+            public Attraction fromString(String string) {
+                return null;
+            }
+        });
+        attractionCombo.setValue(activeAttractions.get(0));
+
+        // Date selection
+        DatePicker datePicker = new DatePicker(LocalDate.now().plusDays(1));
+
+        // People count
+        Spinner<Integer> peopleSpinner = new Spinner<>(1, 50, 1);
+
+        // Price calculation
+        Label priceLabel = new Label();
+        priceLabel.setStyle("-fx-text-fill: #00b894; -fx-font-weight: bold;");
+        long[] priceRequest = { 0 }; // the latest change; older quotes arriving late are dropped
+        Runnable updatePrice = () -> {
+            Attraction selected = attractionCombo.getValue();
+            if (selected != null) {
+                long request = ++priceRequest[0];
+                AsyncDataManager.onFxThread(
+                        AsyncDataManager.quote(selected, datePicker.getValue(), peopleSpinner.getValue()), quote -> {
+                            if (request == priceRequest[0]) {
+                                priceLabel.setText("Total: NPR " + String.format("%.2f", quote.total())
+                                        + quote.demandNote());
+                            }
+                        }, error -> {
+                            if (request == priceRequest[0]) {
+                                priceLabel.setText("Total: unavailable");
+                                System.out.println("Warning: could not price booking: " + error.getMessage());
+                            }
+                        });
+            }
+        };
+
+        attractionCombo.setOnAction(e -> updatePrice.run());
+        peopleSpinner.valueProperty().addListener((obs, oldVal, newVal) -> updatePrice.run());
+        datePicker.valueProperty().addListener((obs, oldVal, newVal) -> updatePrice.run());
+        updatePrice.run();
+
+        grid.add(new Label("Select Attraction:"), 0, 0);
+        grid.add(attractionCombo, 1, 0);
+        grid.add(new Label("Visit Date:"), 0, 1);
+        grid.add(datePicker, 1, 1);
+        grid.add(new Label("Number of People:"), 0, 2);
+        grid.add(peopleSpinner, 1, 2);
+        grid.add(new Label("Price:"), 0, 3);
+        grid.add(priceLabel, 1, 3);
 
-                @Override
-                public Attraction fromString(String string) {
-                    return null;
-                }
-            });
-            attractionCombo.setValue(activeAttractions.get(0));
-
-            // Date selection
-            DatePicker datePicker = new DatePicker(LocalDate.now().plusDays(1));
-
-            // People count
-            Spinner<Integer> peopleSpinner = new Spinner<>(1, 50, 1);
-
-            // Price calculation
-            Label priceLabel = new Label();
-            Runnable updatePrice = () -> {
-                Attraction selected = attractionCombo.getValue();
-                if (selected != null) {
-                    double totalPrice = selected.getEntryFee() * peopleSpinner.getValue();
-                    double discount = FestivalManager.calculateFestivalDiscount(totalPrice);
-                    double finalPrice = totalPrice - discount;
-                    priceLabel.setText("Total: NPR " + String.format("%.2f", finalPrice));
-                    priceLabel.setStyle("-fx-text-fill: #00b894; -fx-font-weight: bold;");
+        dialog.getDialogPane().setContent(grid);
+
+        ButtonType bookButtonType = new ButtonType("Book Now", ButtonBar.ButtonData.OK_DONE);
+        ButtonType viewDetailsButtonType = new ButtonType("View Details", ButtonBar.ButtonData.OTHER);
+        dialog.getDialogPane().getButtonTypes().addAll(bookButtonType, viewDetailsButtonType, ButtonType.CANCEL);
+
+        Optional<ButtonType> result = dialog.showAndWait();
+        if (result.isPresent()) {
+            if (result.get() == bookButtonType) {
+                // Proceed with booking
+                Attraction selectedAttraction = attractionCombo.getValue();
+                LocalDate selectedDate = datePicker.getValue();
+
+                if (selectedDate == null || selectedDate.isBefore(LocalDate.now())) {
+                    showAlert("Invalid Date", "Please select a valid future date.");
+                    return;
                 }
-            };
-
-            attractionCombo.setOnAction(e -> updatePrice.run());
-            peopleSpinner.valueProperty().addListener((obs, oldVal, newVal) -> updatePrice.run());
-            updatePrice.run();
-
-            grid.add(new Label("Select Attraction:"), 0, 0);
-            grid.add(attractionCombo, 1, 0);
-            grid.add(new Label("Visit Date:"), 0, 1);
-            grid.add(datePicker, 1, 1);
-            grid.add(new Label("Number of People:"), 0, 2);
-            grid.add(peopleSpinner, 1, 2);
-            grid.add(new Label("Price:"), 0, 3);
-            grid.add(priceLabel, 1, 3);
-
-            dialog.getDialogPane().setContent(grid);
-
-            ButtonType bookButtonType = new ButtonType("Book Now", ButtonBar.ButtonData.OK_DONE);
-            ButtonType viewDetailsButtonType = new ButtonType("View Details", ButtonBar.ButtonData.OTHER);
-            dialog.getDialogPane().getButtonTypes().addAll(bookButtonType, viewDetailsButtonType, ButtonType.CANCEL);
-
-            Optional<ButtonType> result = dialog.showAndWait();
-            if (result.isPresent()) {
-                if (result.get() == bookButtonType) {
-                    // Proceed with booking
-                    Attraction selectedAttraction = attractionCombo.getValue();
-                    LocalDate selectedDate = datePicker.getValue();
-
-                    if (selectedDate == null || selectedDate.isBefore(LocalDate.now())) {
-                        showAlert("Invalid Date", "Please select a valid future date.");
-                        return;
-                    }
 
-                    try {
-                        // Find a guide
-                        List<User> allUsers = DataManager.loadAllUsers();
-                        Guide selectedGuide = allUsers.stream()
-                                .filter(u -> u instanceof Guide)
-                                .map(u -> (Guide) u)
-                                .findFirst()
-                                .orElse(null);
-
-                        if (selectedGuide == null) {
-                            showAlert("No Guides", "No guides available for booking.");
-                            return;
-                        }
+                String touristId = currentUser.getUserId();
+                int numberOfPeople = peopleSpinner.getValue();
+                String language = LanguageManager.getInstance().isNepali() ? "Nepali" : "English";
+                CompletableFuture<Booking> created = AsyncDataManager.supply(() -> BookingManager.bookWithAvailableGuide(
+                        touristId, selectedAttraction, selectedDate, numberOfPeople,
+                        "Quick booking from dashboard", language));
 
-                        Booking booking = BookingManager.createBooking(
-                                currentUser.getUserId(),
-                                selectedGuide.getUserId(),
-                                selectedAttraction.getAttractionId(),
-                                selectedDate,
-                                peopleSpinner.getValue(),
-                                selectedAttraction.getEntryFee(),
-                                "Quick booking from dashboard");
-
-                        showAlert("Booking Confirmed",
-                                "Your quick booking has been confirmed!\n" +
-                                        "Booking ID: " + booking.getId() + "\n" +
-                                        "Attraction: " + selectedAttraction.getName() + "\n" +
-                                        "Date: " + selectedDate + "\n" +
-                                        "Total: NPR " + String.format("%.2f", booking.getTotalPrice()));
-
-                        // Refresh dashboard data
-                        loadUserData();
-
-                    } catch (IOException e) {
+                AsyncDataManager.onFxThread(created, booking -> {
+                    if (booking == null) {
+                        showAlert("No Guides", "No guide is free on " + selectedDate + ". Please choose another date.");
+                        return;
+                    }
+                    showAlert("Booking Confirmed",
+                            "Your quick booking has been confirmed!\n" +
+                                    "Booking ID: " + booking.getId() + "\n" +
+                                    "Attraction: " + selectedAttraction.getName() + "\n" +
+                                    "Date: " + selectedDate + "\n" +
+                                    "Total: NPR " + String.format("%.2f", booking.getTotalPrice()));
+                    // The change feed adds the booking to the dashboard
+                }, e -> {
+                    if (e instanceof CapacityExceededException) {
+                        showAlert("Fully Booked", e.getMessage());
+                    } else {
                         showAlert("Error", "Failed to create booking: " + e.getMessage());
                     }
-                } else if (result.get() == viewDetailsButtonType) {
-                    // Navigate to attractions page
-                    handleViewAttractions();
-                }
+                });
+            } else if (result.get() == viewDetailsButtonType) {
+                // Navigate to attractions page
+                handleViewAttractions();
             }
-
-        } catch (IOException e) {
-            showAlert("Error", "Failed to load attractions: " + e.getMessage());
         }
     }
 
     private void showStatisticsDialog() {
-        try {
-            // Load user bookings for statistics
-            List<Booking> userBookings = BookingManager.getBookingsByTourist(currentUser.getUserId());
-            List<Attraction> allAttractions = DataManager.loadAllAttractions();
-
-            // Calculate statistics
-            int totalBookings = userBookings.size();
-            int completedBookings = (int) userBookings.stream()
-                    .filter(b -> "COMPLETED".equals(b.getStatus().toString()))
-                    .count();
-            int pendingBookings = (int) userBookings.stream()
-                    .filter(b -> "PENDING".equals(b.getStatus().toString())
-                            || "CONFIRMED".equals(b.getStatus().toString()))
-                    .count();
-
-            double totalSpent = userBookings.stream()
-                    .mapToDouble(Booking::getTotalPrice)
-                    .sum();
-
-            double averageSpending = totalBookings > 0 ? totalSpent / totalBookings : 0;
-
-            // Find most visited category
-            java.util.Map<String, Long> categoryCount = userBookings.stream()
-                    .map(booking -> allAttractions.stream()
-                            .filter(attr -> attr.getAttractionId().equals(booking.getAttractionId()))
-                            .findFirst()
-                            .map(Attraction::getCategory)
-                            .orElse("Unknown"))
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            category -> category,
-                            java.util.stream.Collectors.counting()));
-
-            String favoriteCategory = categoryCount.entrySet().stream()
-                    .max(java.util.Map.Entry.comparingByValue())
-                    .map(java.util.Map.Entry::getKey)
-                    .orElse("None");
-
-            // Create statistics dialog
-            Dialog<Void> dialog = new Dialog<>();
-            dialog.setTitle("My Travel Statistics");
-            dialog.setHeaderText("Your Tourism Journey Overview");
-
-            GridPane grid = new GridPane();
-            grid.setHgap(15);
-            grid.setVgap(15);
-            grid.setPadding(new javafx.geometry.Insets(20, 150, 10, 10));
-
-            // Add statistics
-            int row = 0;
-            grid.add(new Label("📊 Booking Statistics"), 0, row++, 2, 1);
-
-            grid.add(new Label(String.valueOf(totalBookings)), 1, row++);
-
-            grid.add(new Label(String.valueOf(completedBookings)), 1, row++);
-
-            grid.add(new Label("Upcoming/Pending:"), 0, row);
-            grid.add(new Label(String.valueOf(pendingBookings)), 1, row++);
-
-            grid.add(new Label(""), 0, row++); // Spacer
-
-            grid.add(new Label("💰 Spending Statistics"), 0, row++, 2, 1);
-            grid.add(new Label("Total Spent:"), 0, row);
-            grid.add(new Label("NPR " + String.format("%.2f", totalSpent)), 1, row++);
-
-            grid.add(new Label("Average per Trip:"), 0, row);
-            grid.add(new Label("NPR " + String.format("%.2f", averageSpending)), 1, row++);
-
-            grid.add(new Label(""), 0, row++); // Spacer
-
-            grid.add(new Label("🎯 Preferences"), 0, row++, 2, 1);
-            grid.add(new Label("Favorite Category:"), 0, row);
-            grid.add(new Label(favoriteCategory), 1, row++);
-
-            grid.add(new Label("Member Since:"), 0, row);
-            grid.add(new Label("2024"), 1, row++); // Could be enhanced with actual registration date
-
-            // Style the labels
-            grid.getChildren().forEach(node -> {
-                if (node instanceof Label) {
-
-                    Label label = (Label) node;
-                    if (label.getText().startsWith("📊") || label.getText().startsWith("💰")
-                            || label.getText().startsWith("🎯")) {
-                        label.setStyle("-fx-font-weight: bold; -fx-font-size: 16px; -fx-text-fill: #6c5ce7;");
-                    } else if (GridPane.getColumnIndex(node) == 1) {
-                        label.setStyle("-fx-font-weight: bold; -fx-text-fill: #2d3436;");
-                    } else {
-                        label.setStyle("-fx-text-fill: #636e72;");
-                    }
-                }
-            });
+        // Running totals for the counts; one pass over the booking columns for the breakdown
+        String userId = currentUser.getUserId();
+        CompletableFuture<BookingAggregates.Summary> totals = AsyncDataManager.queryBookingTotals(
+                aggregates -> aggregates.forTourist(userId));
+        CompletableFuture<BookingColumns.Stats> stats = AsyncDataManager.queryBookingStats(
+                columns -> columns.statsForTourist(userId, LocalDate.now()));
+        CompletableFuture<java.util.Map<String, Long>> categoryCount = stats.thenCompose(
+                s -> AsyncDataManager.queryAttractions(catalog -> catalog.countByCategory(s.countByAttraction())));
+
+        AsyncDataManager.onFxThread(CompletableFuture.allOf(totals, stats, categoryCount),
+                ignored -> showStatisticsDialog(totals.join(), categoryCount.join()),
+                e -> showAlert("Error", "Failed to load statistics: " + e.getMessage()));
+    }
 
-            dialog.getDialogPane().setContent(grid);
-            dialog.getDialogPane().getButtonTypes().add(ButtonType.OK);
-            dialog.showAndWait();
+    private void showStatisticsDialog(BookingAggregates.Summary totals, java.util.Map<String, Long> categoryCount) {
+        int totalBookings = totals.count();
+        int completedBookings = totals.count(Booking.BookingStatus.COMPLETED);
+        int pendingBookings = totals.count(Booking.BookingStatus.PENDING)
+                + totals.count(Booking.BookingStatus.CONFIRMED);
 
-        } catch (IOException e) {
-            showAlert("Error", "Failed to load statistics: " + e.getMessage());
-        }
+        double totalSpent = totals.revenue();
+
+        double averageSpending = totals.averageRevenue();
+
+        // Find most visited category
+        String favoriteCategory = categoryCount.entrySet().stream()
+                .max(java.util.Map.Entry.comparingByValue())
+                .map(java.util.Map.Entry::getKey)
+                .orElse("None");
+
+        // Create statistics dialog
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("My Travel Statistics");
+        dialog.setHeaderText("Your Tourism Journey Overview");
+
+        GridPane grid = new GridPane();
+        grid.setHgap(15);
+        grid.setVgap(15);
+        grid.setPadding(new javafx.geometry.Insets(20, 150, 10, 10));
+
+        // Add statistics
+        int row = 0;
+        grid.add(new Label("📊 Booking Statistics"), 0, row++, 2, 1);
+
+        grid.add(new Label(String.valueOf(totalBookings)), 1, row++);
+
+        grid.add(new Label(String.valueOf(completedBookings)), 1, row++);
+
+        grid.add(new Label("Upcoming/Pending:"), 0, row);
+        grid.add(new Label(String.valueOf(pendingBookings)), 1, row++);
+
+        grid.add(new Label(""), 0, row++); // Spacer
+
+        grid.add(new Label("💰 Spending Statistics"), 0, row++, 2, 1);
+        grid.add(new Label("Total Spent:"), 0, row);
+        grid.add(new Label("NPR " + String.format("%.2f", totalSpent)), 1, row++);
+
+        grid.add(new Label("Average per Trip:"), 0, row);
+        grid.add(new Label("NPR " + String.format("%.2f", averageSpending)), 1, row++);
+
+        grid.add(new Label(""), 0, row++); // Spacer
+
+        grid.add(new Label("🎯 Preferences"), 0, row++, 2, 1);
+        grid.add(new Label("Favorite Category:"), 0, row);
+        grid.add(new Label(favoriteCategory), 1, row++);
+
+        grid.add(new Label("Member Since:"), 0, row);
+        grid.add(new Label("2024"), 1, row++); // Could be enhanced with actual registration date
+
+        // Style the labels
+        grid.getChildren().forEach(node -> {
+            if (node instanceof Label) {
+
+                Label label = (Label) node;
+                if (label.getText().startsWith("📊") || label.getText().startsWith("💰")
+                        || label.getText().startsWith("🎯")) {
+                    label.setStyle("-fx-font-weight: bold; -fx-font-size: 16px; -fx-text-fill: #6c5ce7;");
+                } else if (GridPane.getColumnIndex(node) == 1) {
+                    label.setStyle("-fx-font-weight: bold; -fx-text-fill: #2d3436;");
+                } else {
+                    label.setStyle("-fx-text-fill: #636e72;");
+                }
+            }
+        });
+
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.OK);
+        dialog.showAndWait();
     }
 
     private void showEmergencyDialog() {
@@ -723,42 +805,36 @@ public class TouristDashboardController implements Initializable {
     }
 
     private void showBookingDetails(Booking booking) {
-        try {
-            // Get attraction details
-            List<Attraction> attractions = DataManager.loadAllAttractions();
-            Attraction attraction = attractions.stream()
-                    .filter(a -> a.getAttractionId().equals(booking.getAttractionId()))
-                    .findFirst()
-                    .orElse(null);
-
-            String attractionName = attraction != null ? attraction.getName() : "Unknown Attraction";
-
-            // Create detailed information
-            StringBuilder details = new StringBuilder();
-            details.append("Booking ID: ").append(booking.getId()).append("\n");
-            details.append("Attraction: ").append(attractionName).append("\n");
-            details.append("Visit Date: ").append(booking.getTrekDate()).append("\n");
-            details.append("Status: ").append(booking.getStatus()).append("\n");
-            details.append("Number of People: ").append(booking.getNumberOfPeople()).append("\n");
-            details.append("Total Price: NPR ").append(String.format("%.2f", booking.getTotalPrice())).append("\n");
-
-            if (booking.getNotes() != null && !booking.getNotes().isEmpty()) {
-                details.append("\nSpecial Requests:\n").append(booking.getNotes());
-            }
+        // Get attraction details
+        AsyncDataManager.onFxThread(AsyncDataManager.queryAttractions(catalog -> catalog.enrich(booking)),
+                entry -> showBookingDetails(booking, entry.attractionName()),
+                e -> showAlert("Error", "Failed to load booking details: " + e.getMessage()));
+    }
 
-            // Show the details in an alert
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setTitle("Booking Details");
-            alert.setHeaderText("Details for Booking #" + booking.getId());
-            alert.setContentText(details.toString());
-            alert.showAndWait();
-        } catch (Exception e) {
-            showAlert("Error", "Failed to load booking details: " + e.getMessage());
+    private void showBookingDetails(Booking booking, String attractionName) {
+        // Create detailed information
+        StringBuilder details = new StringBuilder();
+        details.append("Booking ID: ").append(booking.getId()).append("\n");
+        details.append("Attraction: ").append(attractionName).append("\n");
+        details.append("Visit Date: ").append(booking.getTrekDate()).append("\n");
+        details.append("Status: ").append(booking.getStatus()).append("\n");
+        details.append("Number of People: ").append(booking.getNumberOfPeople()).append("\n");
+        details.append("Total Price: NPR ").append(String.format("%.2f", booking.getTotalPrice())).append("\n");
+
+        if (booking.getNotes() != null && !booking.getNotes().isEmpty()) {
+            details.append("\nSpecial Requests:\n").append(booking.getNotes());
         }
+
+        // Show the details in an alert
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("Booking Details");
+        alert.setHeaderText("Details for Booking #" + booking.getId());
+        alert.setContentText(details.toString());
+        alert.showAndWait();
     }
 
     private void handleCancelBooking(Booking booking) {
-        if ("COMPLETED".equals(booking.getStatus())) {
+        if (booking.getStatus() == Booking.BookingStatus.COMPLETED) {
             showAlert("Cannot Cancel", "This booking has already been completed.");
             return;
         }
@@ -770,27 +846,18 @@ public class TouristDashboardController implements Initializable {
 
         Optional<ButtonType> result = confirmAlert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
-            try {
-                // Update booking status
-                booking.setStatus(Booking.BookingStatus.CANCELLED);
-
-                // Save the updated booking
-                List<Booking> allBookings = BookingManager.loadAllBookings();
-                for (int i = 0; i < allBookings.size(); i++) {
-                    if (allBookings.get(i).getId().equals(booking.getId())) {
-                        allBookings.set(i, booking);
-                        break;
-                    }
-                }
-                BookingManager.saveAllBookings(allBookings);
-
-                // Refresh the view
-                loadUserData();
-
+            // Save the updated booking, then refresh the view
+            AsyncDataManager.onFxThread(AsyncDataManager.cancelBooking(booking.getId(), booking.getVersion()), ignored -> {
+                // The change feed updates the table
                 showAlert("Success", "Booking cancelled successfully.");
-            } catch (Exception e) {
-                showAlert("Error", "Failed to cancel booking: " + e.getMessage());
-            }
+            }, e -> {
+                if (e instanceof ConcurrentUpdateException) {
+                    loadUserData();
+                    showAlert("Booking Changed", e.getMessage() + "\nYour bookings have been refreshed.");
+                } else {
+                    showAlert("Error", "Failed to cancel booking: " + e.getMessage());
+                }
+            });
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.nepaltourismmanagementapp.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a booking would take an attraction or guide over its daily capacity. An
+ * IOException so it travels the same way as a failed save.
+ */
+public class CapacityExceededException extends IOException {
+
+    public CapacityExceededException(String message) {
+        super(message);
+    }
+}
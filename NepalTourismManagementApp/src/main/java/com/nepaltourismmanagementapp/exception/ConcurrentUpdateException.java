@@ -0,0 +1,14 @@
+package com.nepaltourismmanagementapp.exception;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a record was changed or removed by someone else after it was read, so saving over it
+ * would lose their change. Reload the record and try again.
+ */
+public class ConcurrentUpdateException extends IOException {
+
+    public ConcurrentUpdateException(String message) {
+        super(message);
+    }
+}
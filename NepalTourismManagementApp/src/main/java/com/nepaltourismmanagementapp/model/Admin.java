@@ -16,8 +16,10 @@ public class Admin extends User {
     public String getRole() { return "ADMIN"; }
 
     @Override
-    public String toString() {
-        // User.toString() now includes phone, so this will correctly append adminLevel
-        return super.toString() + "," + adminLevel;
+    public Admin copy() {
+        Admin copy = new Admin(userId, username, password, email, fullName, adminLevel);
+        copy.setPhone(phone);
+        copy.setVersion(version);
+        return copy;
     }
 }
@@ -1,5 +1,7 @@
 package com.nepaltourismmanagementapp.model;
 
+import com.nepaltourismmanagementapp.utils.AttractionCodec;
+
 public class Attraction {
     private String attractionId;
     private String name;
@@ -137,12 +139,9 @@ public class Attraction {
     public boolean isActive() { return isActive; }
     public void setActive(boolean active) { isActive = active; }
 
+    /** The attractions.txt line for this attraction, see {@link AttractionCodec}. */
     @Override
     public String toString() {
-        return attractionId + "," + name + "," + nameNepali + "," + location + "," +
-                description + "," + descriptionNepali + "," + category + "," + entryFee + "," +
-                imageUrl + "," + rating + "," + isActive + "," +
-                (district != null ? district : "") + "," + (province != null ? province : "") + "," +
-                latitude + "," + longitude;
+        return AttractionCodec.encode(this);
     }
 }
@@ -1,7 +1,8 @@
 package com.nepaltourismmanagementapp.model;
 
+import com.nepaltourismmanagementapp.utils.BookingCodec;
+
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 
 public class Booking {
     private String id;
@@ -16,6 +17,7 @@ public class Booking {
     private String notes;
     private boolean emergencyReported;
     private int numberOfPeople; // Added field for number of people
+    private int version; // Bumped by every saved update, see DataManager.updateBooking
 
     public enum BookingStatus {
         PENDING, CONFIRMED, COMPLETED, CANCELLED, EMERGENCY
@@ -41,6 +43,32 @@ public class Booking {
         this.totalPrice = totalPrice;
     }
 
+    // All fields, as stored; used when loading saved bookings
+    public Booking(String id, String touristUsername, String guideUsername, String attractionId,
+            LocalDate bookingDate, LocalDate trekDate, BookingStatus status, double totalPrice, double discount,
+            String notes, boolean emergencyReported, int numberOfPeople) {
+        this.id = id;
+        this.touristUsername = touristUsername;
+        this.guideUsername = guideUsername;
+        this.attractionId = attractionId;
+        this.bookingDate = bookingDate;
+        this.trekDate = trekDate;
+        this.status = status;
+        this.totalPrice = totalPrice;
+        this.discount = discount;
+        this.notes = notes;
+        this.emergencyReported = emergencyReported;
+        this.numberOfPeople = numberOfPeople;
+    }
+
+    // Copy to change and save with DataManager.updateBooking, leaving the cached booking as it was
+    public Booking(Booking other) {
+        this(other.id, other.touristUsername, other.guideUsername, other.attractionId, other.bookingDate,
+                other.trekDate, other.status, other.totalPrice, other.discount, other.notes,
+                other.emergencyReported, other.numberOfPeople);
+        this.version = other.version;
+    }
+
     // Getters and Setters
     public String getId() {
         return id;
@@ -130,6 +158,14 @@ public class Booking {
         this.emergencyReported = emergencyReported;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public int getNumberOfPeople() {
         return numberOfPeople;
     }
@@ -142,44 +178,13 @@ public class Booking {
         return totalPrice - discount;
     }
 
+    /** The bookings.txt line for this booking, see {@link BookingCodec}. */
     @Override
     public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        return id + "," + touristUsername + "," + guideUsername + "," + attractionId + "," +
-                bookingDate.format(formatter) + "," + trekDate.format(formatter) + "," +
-                status.name() + "," + totalPrice + "," + discount + "," + // Use status.name() for string representation
-                (notes != null ? notes.replace(",", ";") : "") + "," + emergencyReported + "," + numberOfPeople;
+        return BookingCodec.encode(this);
     }
 
     public static Booking fromString(String data) {
-        String[] parts = data.split(",", -1); // Use -1 to keep trailing empty strings
-        if (parts.length >= 10) { // Minimum parts for a booking string
-            Booking booking = new Booking();
-            booking.setId(parts[0]);
-            booking.setTouristUsername(parts[1]);
-            booking.setGuideUsername(parts[2]);
-            booking.setAttractionId(parts[3]);
-            booking.setBookingDate(LocalDate.parse(parts[4]));
-            booking.setTrekDate(LocalDate.parse(parts[5]));
-            booking.setStatus(BookingStatus.valueOf(parts[6])); // Parse enum from string
-            booking.setTotalPrice(Double.parseDouble(parts[7]));
-            booking.setDiscount(Double.parseDouble(parts[8]));
-            if (parts.length > 9 && !parts[9].isEmpty()) { // Check if notes part exists and is not empty
-                booking.setNotes(parts[9].replace(";", ","));
-            }
-            if (parts.length > 10) { // Check if emergencyReported part exists
-                booking.setEmergencyReported(Boolean.parseBoolean(parts[10]));
-            }
-            if (parts.length > 11) { // Check if numberOfPeople part exists
-                try {
-                    booking.setNumberOfPeople(Integer.parseInt(parts[11]));
-                } catch (NumberFormatException e) {
-                    // Default to 1 if parsing fails
-                    booking.setNumberOfPeople(1);
-                }
-            }
-            return booking;
-        }
-        return null;
+        return BookingCodec.decode(data);
     }
 }
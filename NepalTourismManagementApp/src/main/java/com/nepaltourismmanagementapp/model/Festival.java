@@ -0,0 +1,42 @@
+package com.nepaltourismmanagementapp.model;
+
+import java.time.LocalDate;
+
+/** One year's dates of a festival and the discount given on treks during it. */
+public class Festival {
+    private String name;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private double discountRate;
+
+    public Festival(String name, LocalDate startDate, LocalDate endDate, double discountRate) {
+        this.name = name;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.discountRate = discountRate;
+    }
+
+    // Getters and Setters
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+
+    /** Last day of the festival, inclusive. */
+    public LocalDate getEndDate() { return endDate; }
+    public void setEndDate(LocalDate endDate) { this.endDate = endDate; }
+
+    /** Share of the price taken off, e.g. 0.20 for 20%. */
+    public double getDiscountRate() { return discountRate; }
+    public void setDiscountRate(double discountRate) { this.discountRate = discountRate; }
+
+    public String getId() {
+        return name + "@" + startDate;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + startDate + " to " + endDate + ")";
+    }
+}
@@ -1,8 +1,10 @@
 // FileName: /com/tourismapp/model/Guide.java
 package com.nepaltourismmanagementapp.model;
 
+import com.nepaltourismmanagementapp.utils.UserCodec;
+
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class Guide extends User {
@@ -28,9 +30,10 @@ public class Guide extends User {
 
     // Getters and Setters (no changes here)
     public String getLicenseNumber() { return licenseNumber; }
-    public List<String> getLanguages() { return new ArrayList<>(languages); }
+    // Read-only views; the setters replace the lists, so callers never see them change under them
+    public List<String> getLanguages() { return Collections.unmodifiableList(languages); }
     public void setLanguages(List<String> languages) { this.languages = languages != null ? new ArrayList<>(languages) : new ArrayList<>(); }
-    public List<String> getSpecializations() { return new ArrayList<>(specializations); }
+    public List<String> getSpecializations() { return Collections.unmodifiableList(specializations); }
     public void setSpecializations(List<String> specializations) { this.specializations = specializations != null ? new ArrayList<>(specializations) : new ArrayList<>(); }
     public double getRating() { return rating; }
     public void setRating(double rating) { this.rating = rating; }
@@ -43,46 +46,17 @@ public class Guide extends User {
     public String getRole() { return userType; }
 
     @Override
-    public String toString() {
-        // User.toString() now produces 7 parts: userId,username,password,email,fullName,phone,userType
-        // Guide adds 5 more parts: licenseNumber,languages,specializations,rating,experienceYears
-        // Total parts in Guide.toString() will be 7 + 5 = 12
-        return super.toString() + "," +
-                licenseNumber + "," +
-                String.join(";", languages) + "," +
-                String.join(";", specializations) + "," +
-                rating + "," +
-                experienceYears;
+    public Guide copy() {
+        Guide copy = new Guide(userId, username, password, email, fullName, phone, licenseNumber,
+                languages, specializations, rating, experienceYears);
+        copy.setAvailable(isAvailable);
+        copy.setUserType(userType);
+        copy.setVersion(version);
+        return copy;
     }
 
     public static Guide fromString(String data) {
-        String[] parts = data.split(",", -1);
-
-        // User.toString() now produces 7 parts.
-        // Guide.toString() adds 5 more parts after the User parts.
-        // So, a complete Guide string should have at least 12 parts.
-        // The userType ("GUIDE") is expected at index 6 (the 7th part from User.toString()).
-        if (parts.length < 12 || !parts[6].equals("GUIDE")) {
-            return null; // Not enough parts or not a GUIDE type
-        }
-
-        // Extract User-specific fields (first 7 parts from User.toString())
-        String userId = parts[0];
-        String username = parts[1];
-        String password = parts[2];
-        String email = parts[3];
-        String fullName = parts[4];
-        String phone = parts[5]; // 'phone' is now at index 5
-        // parts[6] is the userType, which we've already checked to be "GUIDE"
-
-        // Extract Guide-specific fields (starting from index 7)
-        String license = parts[7]; // licenseNumber is the 8th part overall (index 7)
-        List<String> langs = parts.length > 8 && !parts[8].isEmpty() ? Arrays.asList(parts[8].split(";")) : new ArrayList<>();
-        List<String> specs = parts.length > 9 && !parts[9].isEmpty() ? Arrays.asList(parts[9].split(";")) : new ArrayList<>();
-        double rating = parts.length > 10 ? Double.parseDouble(parts[10]) : 0.0;
-        int expYears = parts.length > 11 ? Integer.parseInt(parts[11]) : 0;
-
-        // Construct and return a new Guide object using the extracted data.
-        return new Guide(userId, username, password, email, fullName, phone, license, langs, specs, rating, expYears);
+        // Not a GUIDE line (or not enough parts) gives null, as before
+        return UserCodec.decode(data) instanceof Guide guide ? guide : null;
     }
 }
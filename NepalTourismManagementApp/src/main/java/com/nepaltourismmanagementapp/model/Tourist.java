@@ -27,8 +27,9 @@ public class Tourist extends User {
     public String getRole() { return "TOURIST"; }
 
     @Override
-    public String toString() {
-        // UPDATED: phoneNumber is now part of super.toString()
-        return super.toString() + "," + nationality + "," + age;
+    public Tourist copy() {
+        Tourist copy = new Tourist(userId, username, password, email, fullName, nationality, phone, age);
+        copy.setVersion(version);
+        return copy;
     }
 }
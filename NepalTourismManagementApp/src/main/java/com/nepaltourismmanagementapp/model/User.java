@@ -1,6 +1,8 @@
 // FileName: /com/tourismapp/model/User.java
 package com.nepaltourismmanagementapp.model;
 
+import com.nepaltourismmanagementapp.utils.UserCodec;
+
 public abstract class User {
     protected String userId;
     protected String username;
@@ -9,6 +11,7 @@ public abstract class User {
     protected String fullName;
     protected String phone; // ADDED: phone field
     protected String userType;
+    protected int version; // Bumped by every saved update, see DataManager.updateUser
 
     public User() {} // Default constructor added for flexibility
 
@@ -45,12 +48,21 @@ public abstract class User {
     public String getUserType() { return userType; }
     public void setUserType(String userType) { this.userType = userType; }
 
+    public int getVersion() { return version; }
+    public void setVersion(int version) { this.version = version; }
+
     public abstract String getRole();
 
+    /**
+     * A detached copy to edit and hand to {@code DataManager.updateUser}, so the cached user only
+     * changes once the update is saved.
+     */
+    public abstract User copy();
+
+    /** The users.txt line for this user, including the subtype's fields; see {@link UserCodec}. */
     @Override
     public String toString() {
-        // UPDATED: toString to include 'phone'
-        return userId + "," + username + "," + password + "," + email + "," + fullName + "," + phone + "," + userType;
+        return UserCodec.encode(this);
     }
 
     // Optional: fromString method for User (if you need to parse generic User strings)
@@ -0,0 +1,157 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Attraction;
+import com.nepaltourismmanagementapp.model.Booking;
+import com.nepaltourismmanagementapp.model.Guide;
+import com.nepaltourismmanagementapp.model.User;
+import javafx.application.Platform;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Non-blocking access to {@link DataManager} and {@link BookingManager} for the controllers.
+ *
+ * Every call runs on its own virtual thread and returns at once; pass the future to
+ * {@link #onFxThread} to get the result (or the failure) back on the JavaFX Application Thread.
+ * Failures complete the future with the original {@link IOException}.
+ */
+public class AsyncDataManager {
+
+    @FunctionalInterface
+    public interface IoSupplier<T> {
+        T get() throws IOException;
+    }
+
+    private static final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public static <T> CompletableFuture<T> supply(IoSupplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                future.complete(task.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    public static CompletableFuture<Void> run(DataCache.IoAction task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Hands the outcome of {@code future} to {@code onSuccess} or {@code onError} on the JavaFX
+     * Application Thread.
+     */
+    public static <T> void onFxThread(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        future.whenComplete((result, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                onError.accept(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        }));
+    }
+
+    public static CompletableFuture<List<User>> loadAllUsers() {
+        return supply(DataManager::loadAllUsers);
+    }
+
+    public static CompletableFuture<List<Guide>> findGuides(Collection<String> languages,
+            Collection<String> specializations) {
+        return supply(() -> DataManager.findGuides(languages, specializations));
+    }
+
+    public static CompletableFuture<List<Attraction>> loadAllAttractions() {
+        return supply(DataManager::loadAllAttractions);
+    }
+
+    public static CompletableFuture<List<Booking>> loadAllBookings() {
+        return supply(DataManager::loadAllBookings);
+    }
+
+    public static CompletableFuture<List<Booking>> getBookingsByTourist(String touristId) {
+        return supply(() -> BookingManager.getBookingsByTourist(touristId));
+    }
+
+    public static CompletableFuture<List<Booking>> getBookingsByGuide(String guideId) {
+        return supply(() -> BookingManager.getBookingsByGuide(guideId));
+    }
+
+    public static <R> CompletableFuture<R> queryBookings(Function<BookingIndex, R> query) {
+        return supply(() -> DataManager.queryBookings(query));
+    }
+
+    public static <R> CompletableFuture<R> queryBookingTotals(Function<BookingAggregates, R> query) {
+        return supply(() -> DataManager.queryBookingTotals(query));
+    }
+
+    public static <R> CompletableFuture<R> queryBookingStats(Function<BookingColumns, R> query) {
+        return supply(() -> DataManager.queryBookingStats(query));
+    }
+
+    public static <R> CompletableFuture<R> queryAttractions(Function<AttractionCatalog, R> query) {
+        return supply(() -> DataManager.queryAttractions(query));
+    }
+
+    public static CompletableFuture<List<Attraction>> searchAttractions(String query, int limit) {
+        return supply(() -> DataManager.searchAttractions(query, limit));
+    }
+
+    public static CompletableFuture<AttractionFacets.Result> filterAttractions(
+            Map<AttractionFacets.Facet, Set<String>> selection, AttractionFacets.Order order, int limit) {
+        return supply(() -> DataManager.filterAttractions(selection, order, limit));
+    }
+
+    public static CompletableFuture<AttractionFacets.Result> filterAttractions(String search,
+            Map<AttractionFacets.Facet, Set<String>> selection, AttractionFacets.Order order, int limit) {
+        return supply(() -> DataManager.filterAttractions(search, selection, order, limit));
+    }
+
+    public static CompletableFuture<List<Attraction>> recommendAttractions(String touristId, int limit) {
+        return supply(() -> DataManager.recommendAttractions(touristId, limit));
+    }
+
+    public static <R> CompletableFuture<R> queryNearby(Function<AttractionGeoIndex, R> query) {
+        return supply(() -> DataManager.queryNearby(query));
+    }
+
+    public static CompletableFuture<PricingEngine.Quote> quote(Attraction attraction, LocalDate date, int people) {
+        return supply(() -> PricingEngine.quote(attraction, date, people));
+    }
+
+    public static CompletableFuture<PricingEngine.FareCalendar> fareCalendar(Attraction attraction, LocalDate from,
+            int days, int people) {
+        return supply(() -> PricingEngine.fareCalendar(attraction, from, days, people));
+    }
+
+    public static CompletableFuture<Booking> createBooking(String touristId, String guideId, String attractionId,
+            LocalDate visitDate, int numberOfPeople, double baseAmount, String specialRequests) {
+        return supply(() -> BookingManager.createBooking(touristId, guideId, attractionId, visitDate,
+                numberOfPeople, baseAmount, specialRequests));
+    }
+
+    public static CompletableFuture<Booking> updateBookingStatus(String bookingId, int expectedVersion, String newStatus) {
+        return supply(() -> BookingManager.updateBookingStatus(bookingId, expectedVersion, newStatus));
+    }
+
+    public static CompletableFuture<Booking> cancelBooking(String bookingId, int expectedVersion) {
+        return supply(() -> BookingManager.cancelBooking(bookingId, expectedVersion));
+    }
+}
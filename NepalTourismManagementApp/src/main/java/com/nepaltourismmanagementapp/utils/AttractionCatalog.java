@@ -0,0 +1,116 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Attraction;
+import com.nepaltourismmanagementapp.model.Booking;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Id index over the cached attractions, for joining bookings to the attraction they are for.
+ *
+ * Kept up to date by the attraction table like {@link BookingIndex}, so a lookup is one hash probe
+ * and joining n bookings costs n probes instead of a scan of the attractions per booking.
+ */
+public class AttractionCatalog implements DataCache.Listener<Attraction> {
+
+    /** A booking together with its attraction, which is null if the attraction no longer exists. */
+    public record BookedAttraction(Booking booking, Attraction attraction) {
+
+        public String attractionName() {
+            return attraction != null ? attraction.getName() : "Unknown Attraction";
+        }
+
+        public String category() {
+            return attraction != null ? attraction.getCategory() : "Unknown";
+        }
+    }
+
+    // Buckets in table order; the first row with an id is the one the table returns for it
+    private final Map<String, List<Attraction>> byId = new HashMap<>();
+    private final Map<Attraction, String> indexedIds = new IdentityHashMap<>();
+
+    @Override
+    public synchronized void reset(List<Attraction> rows) {
+        byId.clear();
+        indexedIds.clear();
+        for (Attraction attraction : rows) {
+            index(attraction);
+        }
+    }
+
+    @Override
+    public synchronized void added(Attraction attraction) {
+        index(attraction);
+    }
+
+    @Override
+    public synchronized void replaced(Attraction previous, Attraction attraction) {
+        unindex(previous);
+        index(attraction);
+    }
+
+    @Override
+    public synchronized void removed(Attraction attraction) {
+        unindex(attraction);
+    }
+
+    public synchronized Attraction findById(String attractionId) {
+        return first(attractionId);
+    }
+
+    public synchronized BookedAttraction enrich(Booking booking) {
+        return new BookedAttraction(booking, first(booking.getAttractionId()));
+    }
+
+    /** Pairs every booking with its attraction, in the order given. */
+    public synchronized List<BookedAttraction> enrich(List<Booking> bookings) {
+        List<BookedAttraction> result = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            result.add(new BookedAttraction(booking, first(booking.getAttractionId())));
+        }
+        return result;
+    }
+
+    /**
+     * Rolls per-attraction counts (such as {@link BookingColumns.Stats#countByAttraction()}) up to
+     * their categories; attractions that no longer exist count as "Unknown".
+     */
+    public synchronized Map<String, Long> countByCategory(Map<String, Integer> countByAttraction) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : countByAttraction.entrySet()) {
+            Attraction attraction = first(entry.getKey());
+            result.merge(attraction != null ? attraction.getCategory() : "Unknown", (long) entry.getValue(), Long::sum);
+        }
+        return result;
+    }
+
+    private Attraction first(String attractionId) {
+        List<Attraction> bucket = byId.get(attractionId);
+        return bucket != null ? bucket.get(0) : null;
+    }
+
+    private void index(Attraction attraction) {
+        String id = attraction.getAttractionId();
+        indexedIds.put(attraction, id);
+        byId.computeIfAbsent(id, k -> new ArrayList<>(1)).add(attraction);
+    }
+
+    private void unindex(Attraction attraction) {
+        if (!indexedIds.containsKey(attraction)) {
+            return;
+        }
+        String id = indexedIds.remove(attraction);
+        List<Attraction> bucket = byId.get(id);
+        if (bucket != null) {
+            bucket.removeIf(row -> row == attraction);
+            if (bucket.isEmpty()) {
+                byId.remove(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Attraction;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the attractions.txt line format:
+ * id,name,nameNepali,location,description,descriptionNepali,category,entryFee,imageUrl,rating,isActive
+ * optionally followed by district,province,latitude,longitude.
+ */
+public final class AttractionCodec {
+    public static final String SNAPSHOT_KIND = "attractions/1";
+
+    private static final int BASE_FIELDS = 11;
+    private static final int FULL_FIELDS = 15;
+    private static final int LOCATION = 3;
+
+    private AttractionCodec() {
+    }
+
+    public static String encode(Attraction attraction) {
+        return new RecordFields.Writer(256)
+                .field(attraction.getAttractionId())
+                .field(attraction.getName())
+                .field(attraction.getNameNepali())
+                .field(attraction.getLocation())
+                .field(attraction.getDescription())
+                .field(attraction.getDescriptionNepali())
+                .field(attraction.getCategory())
+                .field(attraction.getEntryFee())
+                .field(attraction.getImageUrl())
+                .field(attraction.getRating())
+                .field(attraction.isActive())
+                .field(attraction.getDistrict() != null ? attraction.getDistrict() : "")
+                .field(attraction.getProvince() != null ? attraction.getProvince() : "")
+                .field(attraction.getLatitude())
+                .field(attraction.getLongitude())
+                .toString();
+    }
+
+    /** Returns null for lines that are too short or cannot be repaired. */
+    public static Attraction decode(CharSequence line) {
+        RecordFields.Reader reader = new RecordFields.Reader(line);
+        int fields = reader.remaining();
+        if (fields < BASE_FIELDS) {
+            return null;
+        }
+        try {
+            return read(reader, fields);
+        } catch (RuntimeException e) {
+            String repaired = repairLocation(line);
+            if (repaired != null) {
+                return decode(repaired);
+            }
+            System.out.println("Warning: skipping malformed attraction line: " + line);
+            return null;
+        }
+    }
+
+    /** Snapshot row format; change {@link #SNAPSHOT_KIND} along with it. */
+    public static void writeBinary(Attraction attraction, Snapshot.Output out) throws IOException {
+        out.writeString(attraction.getAttractionId());
+        out.writeString(attraction.getName());
+        out.writeString(attraction.getNameNepali());
+        out.writeString(attraction.getLocation());
+        out.writeString(attraction.getDescription());
+        out.writeString(attraction.getDescriptionNepali());
+        out.writeString(attraction.getCategory());
+        out.writeDouble(attraction.getEntryFee());
+        out.writeString(attraction.getImageUrl());
+        out.writeDouble(attraction.getRating());
+        out.writeBoolean(attraction.isActive());
+        out.writeString(attraction.getDistrict());
+        out.writeString(attraction.getProvince());
+        out.writeDouble(attraction.getLatitude());
+        out.writeDouble(attraction.getLongitude());
+    }
+
+    public static Attraction readBinary(Snapshot.Input in) {
+        Attraction attraction = new Attraction(in.readString(), in.readString(), in.readString(), in.readString(),
+                in.readString(), in.readString(), in.readString(), in.readDouble(), in.readString(),
+                in.readDouble(), in.readBoolean());
+        // Applied through the setters like the text decoder does, so location comes out the same
+        String district = in.readString();
+        String province = in.readString();
+        if (district != null)
+            attraction.setDistrict(district);
+        if (province != null)
+            attraction.setProvince(province);
+        attraction.setLatitude(in.readDouble());
+        attraction.setLongitude(in.readDouble());
+        return attraction;
+    }
+
+    private static Attraction read(RecordFields.Reader reader, int fields) {
+        Attraction attraction = new Attraction(
+                reader.nextString(), // attractionId
+                reader.nextString(), // name
+                reader.nextString(), // nameNepali
+                reader.nextString(), // location
+                reader.nextString(), // description
+                reader.nextString(), // descriptionNepali
+                reader.nextString(), // category
+                reader.nextDouble(), // entryFee
+                reader.nextString(), // imageUrl
+                reader.nextDouble(), // rating
+                reader.nextBoolean() // isActive
+        );
+        if (fields >= FULL_FIELDS) {
+            String district = reader.nextString();
+            String province = reader.nextString();
+            if (!district.isEmpty())
+                attraction.setDistrict(district);
+            if (!province.isEmpty())
+                attraction.setProvince(province);
+            try {
+                attraction.setLatitude(reader.nextDouble());
+            } catch (NumberFormatException e) {
+                System.out.println("Warning: Invalid latitude format for " + attraction.getName());
+            }
+            try {
+                attraction.setLongitude(reader.nextDouble());
+            } catch (NumberFormatException e) {
+                System.out.println("Warning: Invalid longitude format for " + attraction.getName());
+            }
+        }
+        return attraction;
+    }
+
+    /**
+     * Files written before escaping was introduced store locations like "Khumbu, Solukhumbu" with
+     * a bare comma, which shifts every later field. Finds the split that puts numbers back in the
+     * entryFee and rating columns and re-encodes the line with the location joined up again.
+     */
+    private static String repairLocation(CharSequence line) {
+        RecordFields.Reader reader = new RecordFields.Reader(line);
+        List<String> parts = new ArrayList<>();
+        while (reader.hasNext()) {
+            parts.add(reader.nextString());
+        }
+        for (int extra = 1; parts.size() - extra >= BASE_FIELDS; extra++) {
+            if (!isNumber(parts.get(7 + extra)) || !isNumber(parts.get(9 + extra))) {
+                continue;
+            }
+            RecordFields.Writer writer = new RecordFields.Writer(line.length() + 8);
+            for (int i = 0; i < LOCATION; i++) {
+                writer.field(parts.get(i));
+            }
+            writer.field(String.join(",", parts.subList(LOCATION, LOCATION + extra + 1)));
+            for (int i = LOCATION + extra + 1; i < parts.size(); i++) {
+                writer.field(parts.get(i));
+            }
+            return writer.toString();
+        }
+        return null;
+    }
+
+    private static boolean isNumber(String value) {
+        try {
+            Double.parseDouble(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
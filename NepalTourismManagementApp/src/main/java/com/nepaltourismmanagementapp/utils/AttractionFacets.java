@@ -0,0 +1,327 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Attraction;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Bitset indexes over the attractions for the filter sidebar.
+ *
+ * Every attraction has a slot number, and each value of each {@link Facet} (the category
+ * "Religious", the fee band "Free", ...) has a bitset of the slots that have it. A query ORs the
+ * chosen values within a facet and ANDs the facets together, so a click costs a few word-wise
+ * operations over the bitsets instead of a pass over the attractions. The counts shown next to each
+ * value come from the same bitsets: how many attractions would match if that value were ticked too,
+ * given the choices in the other facets. A search narrows results and counts alike by starting from
+ * the bitset of its matches instead of from every slot.
+ *
+ * Slots come from a {@link SlotTable} in the attraction table's order, so the newest attractions
+ * have the highest ones. The best rated are found by walking the slots sorted by rating until
+ * enough of them match; that order is sorted again only after the attractions have changed.
+ */
+public class AttractionFacets implements DataCache.Listener<Attraction> {
+
+    public enum Facet {
+        CATEGORY("Category"),
+        PROVINCE("Province"),
+        DISTRICT("District"),
+        FEE_BAND("Entry Fee"),
+        RATING_BAND("Rating"),
+        ACTIVE("Status");
+
+        private final String label;
+
+        Facet(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /** The value {@code attraction} has for this facet, or null if it has none. */
+        public String valueOf(Attraction attraction) {
+            return switch (this) {
+                case CATEGORY -> blankToNull(attraction.getCategory());
+                case PROVINCE -> blankToNull(attraction.getProvince());
+                case DISTRICT -> blankToNull(attraction.getDistrict());
+                case FEE_BAND -> feeBand(attraction.getEntryFee());
+                case RATING_BAND -> ratingBand(attraction.getRating());
+                case ACTIVE -> attraction.isActive() ? OPEN : CLOSED;
+            };
+        }
+    }
+
+    public static final String OPEN = "Open";
+    public static final String CLOSED = "Closed";
+    // Band names in the order the sidebar lists them
+    private static final List<String> FEE_BANDS = List.of("Free", "Under NPR 500", "NPR 500 - 1,999",
+            "NPR 2,000 - 4,999", "NPR 5,000 and more");
+    private static final List<String> RATING_BANDS = List.of("4.5 and up", "4.0 - 4.4", "3.0 - 3.9", "Under 3.0");
+
+    public enum Order {
+        NEWEST_FIRST, BEST_RATED
+    }
+
+    /**
+     * The matching attractions (at most the limit asked for), how many matched in all, and for
+     * every facet the count of each of its values.
+     */
+    public record Result(List<Attraction> attractions, int total, Map<Facet, Map<String, Integer>> counts) {
+    }
+
+    private static final Comparator<Attraction> BEST_FIRST = Comparator
+            .comparingDouble(Attraction::getRating).reversed()
+            .thenComparing(Attraction::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Map<Facet, Map<String, BitSet>> bitsByFacet = new EnumMap<>(Facet.class);
+    // Filed with each attraction: its value per facet, so they can be unset after an in-place edit
+    private final SlotTable<Attraction, String[]> slots = new SlotTable<>();
+    private final BitSet scratch = new BitSet();
+    private int[] bestFirst; // null once a change has made it stale
+
+    public AttractionFacets() {
+        for (Facet facet : Facet.values()) {
+            bitsByFacet.put(facet, new TreeMap<>());
+        }
+    }
+
+    @Override
+    public synchronized void reset(List<Attraction> rows) {
+        for (Map<String, BitSet> values : bitsByFacet.values()) {
+            values.clear();
+        }
+        slots.clear();
+        bestFirst = null;
+        for (Attraction attraction : rows) {
+            added(attraction);
+        }
+    }
+
+    @Override
+    public synchronized void added(Attraction attraction) {
+        String[] values = valuesOf(attraction);
+        file(slots.add(attraction, values), values);
+    }
+
+    @Override
+    public synchronized void replaced(Attraction previous, Attraction attraction) {
+        Integer slot = slots.slotOf(previous);
+        if (slot == null) {
+            added(attraction);
+            return;
+        }
+        unfile(slot);
+        String[] values = valuesOf(attraction);
+        slots.set(slot, attraction, values);
+        file(slot, values);
+    }
+
+    @Override
+    public synchronized void removed(Attraction attraction) {
+        Integer slot = slots.slotOf(attraction);
+        if (slot == null) {
+            return;
+        }
+        unfile(slot);
+        slots.remove(slot);
+        if (slots.isWorn()) {
+            reset(slots.liveRows());
+        }
+    }
+
+    /**
+     * Attractions having, for every facet in {@code selection}, one of the values chosen for it;
+     * facets left out or with nothing chosen do not filter. Returns at most {@code limit} of them in
+     * {@code order}, together with the value counts for the sidebar.
+     */
+    public Result query(Map<Facet, Set<String>> selection, Order order, int limit) {
+        return query(null, selection, order, limit);
+    }
+
+    /**
+     * Like {@link #query(Map, Order, int)}, among {@code within} only (e.g. the matches of a
+     * search), or among all attractions if it is null. The counts are limited to them as well.
+     */
+    public synchronized Result query(Collection<Attraction> within, Map<Facet, Set<String>> selection, Order order,
+            int limit) {
+        BitSet base = slots.live();
+        if (within != null) {
+            base = new BitSet(slots.size());
+            for (Attraction attraction : within) {
+                Integer slot = slots.slotOf(attraction);
+                if (slot != null) {
+                    base.set(slot);
+                }
+            }
+        }
+        Facet[] facets = Facet.values();
+        // The OR of the chosen values per facet; null where the facet does not filter
+        BitSet[] chosen = new BitSet[facets.length];
+        for (Facet facet : facets) {
+            Set<String> values = selection.get(facet);
+            if (values == null || values.isEmpty()) {
+                continue;
+            }
+            BitSet union = new BitSet(slots.size());
+            for (String value : values) {
+                BitSet bits = bitsByFacet.get(facet).get(value);
+                if (bits != null) {
+                    union.or(bits);
+                }
+            }
+            chosen[facet.ordinal()] = union;
+        }
+
+        // Counts for a facet ignore its own choices: allBut[f] is the AND of every other facet's
+        // choices, built from running ANDs from the left and from the right
+        BitSet[] fromLeft = new BitSet[facets.length + 1];
+        BitSet[] fromRight = new BitSet[facets.length + 1];
+        fromLeft[0] = base;
+        fromRight[facets.length] = base;
+        for (int i = 0; i < facets.length; i++) {
+            fromLeft[i + 1] = and(fromLeft[i], chosen[i]);
+            int j = facets.length - 1 - i;
+            fromRight[j] = and(fromRight[j + 1], chosen[j]);
+        }
+        BitSet matches = fromLeft[facets.length];
+
+        Map<Facet, Map<String, Integer>> counts = new EnumMap<>(Facet.class);
+        for (Facet facet : facets) {
+            int i = facet.ordinal();
+            // Both sides are subsets of base, so a side that is still base needs no AND
+            BitSet allBut = fromRight[i + 1] == base ? fromLeft[i] : and(fromLeft[i], fromRight[i + 1]);
+            Map<String, Integer> valueCounts = new LinkedHashMap<>();
+            for (Map.Entry<String, BitSet> value : sortedValues(facet)) {
+                scratch.clear();
+                scratch.or(allBut);
+                scratch.and(value.getValue());
+                valueCounts.put(value.getKey(), scratch.cardinality());
+            }
+            counts.put(facet, valueCounts);
+        }
+        return new Result(pick(matches, order, limit), matches.cardinality(), counts);
+    }
+
+    private List<Attraction> pick(BitSet matches, Order order, int limit) {
+        List<Attraction> result = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        if (order == Order.NEWEST_FIRST) {
+            for (int slot = matches.previousSetBit(slots.size() - 1); slot >= 0 && result.size() < limit;
+                    slot = matches.previousSetBit(slot - 1)) {
+                result.add(slots.get(slot));
+            }
+            return result;
+        }
+        // Walk the slots best rated first until enough of them match
+        for (int slot : bestFirst()) {
+            if (result.size() == limit) {
+                break;
+            }
+            if (matches.get(slot)) {
+                result.add(slots.get(slot));
+            }
+        }
+        return result;
+    }
+
+    /** The live slots best rated first, sorted again only after a change. */
+    private int[] bestFirst() {
+        if (bestFirst == null) {
+            bestFirst = slots.live().stream().boxed()
+                    .sorted(Comparator.comparing(slots::get, BEST_FIRST))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+        return bestFirst;
+    }
+
+    /** The values of {@code facet}, bands in their natural order and the rest alphabetically. */
+    private List<Map.Entry<String, BitSet>> sortedValues(Facet facet) {
+        List<Map.Entry<String, BitSet>> values = new ArrayList<>(bitsByFacet.get(facet).entrySet());
+        List<String> bands = facet == Facet.FEE_BAND ? FEE_BANDS : facet == Facet.RATING_BAND ? RATING_BANDS : null;
+        if (bands != null) {
+            values.sort(Comparator.comparingInt(value -> bands.indexOf(value.getKey())));
+        }
+        return values;
+    }
+
+    private static BitSet and(BitSet bits, BitSet filter) {
+        if (filter == null) {
+            return bits;
+        }
+        BitSet result = (BitSet) bits.clone();
+        result.and(filter);
+        return result;
+    }
+
+    private static String[] valuesOf(Attraction attraction) {
+        Facet[] facets = Facet.values();
+        String[] values = new String[facets.length];
+        for (Facet facet : facets) {
+            values[facet.ordinal()] = facet.valueOf(attraction);
+        }
+        return values;
+    }
+
+    private void file(int slot, String[] values) {
+        for (Facet facet : Facet.values()) {
+            String value = values[facet.ordinal()];
+            if (value != null) {
+                bitsByFacet.get(facet).computeIfAbsent(value, v -> new BitSet()).set(slot);
+            }
+        }
+        bestFirst = null;
+    }
+
+    private void unfile(int slot) {
+        String[] values = slots.filed(slot);
+        for (Facet facet : Facet.values()) {
+            String value = values[facet.ordinal()];
+            BitSet bits = value != null ? bitsByFacet.get(facet).get(value) : null;
+            if (bits != null) {
+                bits.clear(slot);
+                if (bits.isEmpty()) {
+                    bitsByFacet.get(facet).remove(value);
+                }
+            }
+        }
+        bestFirst = null;
+    }
+
+    static String feeBand(double fee) {
+        if (fee <= 0) {
+            return FEE_BANDS.get(0);
+        } else if (fee < 500) {
+            return FEE_BANDS.get(1);
+        } else if (fee < 2000) {
+            return FEE_BANDS.get(2);
+        } else if (fee < 5000) {
+            return FEE_BANDS.get(3);
+        }
+        return FEE_BANDS.get(4);
+    }
+
+    static String ratingBand(double rating) {
+        if (rating >= 4.5) {
+            return RATING_BANDS.get(0);
+        } else if (rating >= 4.0) {
+            return RATING_BANDS.get(1);
+        } else if (rating >= 3.0) {
+            return RATING_BANDS.get(2);
+        }
+        return RATING_BANDS.get(3);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
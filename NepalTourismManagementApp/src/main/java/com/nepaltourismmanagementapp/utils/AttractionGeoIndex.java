@@ -0,0 +1,242 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Attraction;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Grid of active attractions by coordinates, for "nearby" lists.
+ *
+ * Attractions are bucketed into cells of {@value #CELL_DEGREES} degrees of latitude and longitude
+ * (about 11 km across in Nepal). A radius query only looks at the cells the circle overlaps, and a
+ * k-nearest query searches rings of cells outwards from the point until no unsearched cell can be
+ * closer than the k-th attraction found, so either touches a handful of cells however many
+ * attractions there are. Distances are great-circle (haversine) kilometres. Attractions without
+ * coordinates (0, 0) are left out, and an edited attraction is taken out of its old cell and put in
+ * the cell of its new coordinates.
+ */
+public class AttractionGeoIndex implements DataCache.Listener<Attraction> {
+
+    private static final double CELL_DEGREES = 0.1;
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final int LONGITUDE_CELLS = (int) Math.round(360 / CELL_DEGREES);
+
+    /** An attraction and its distance from the point asked about. */
+    public record Nearby(Attraction attraction, double distanceKm) {
+    }
+
+    private static final Comparator<Nearby> CLOSEST_FIRST = Comparator.comparingDouble(Nearby::distanceKm);
+
+    /** Where an attraction was filed, so it can be found again after an in-place edit. */
+    private record Cell(int row, int column) {
+        static Cell of(double latitude, double longitude) {
+            int row = (int) Math.floor((latitude + 90) / CELL_DEGREES);
+            int column = Math.floorMod((int) Math.floor((longitude + 180) / CELL_DEGREES), LONGITUDE_CELLS);
+            return new Cell(row, column);
+        }
+    }
+
+    private final Map<Cell, List<Attraction>> cells = new HashMap<>();
+    private final Map<Attraction, Cell> filed = new IdentityHashMap<>();
+    // Rows that hold any attraction; no search looks outside them
+    private int minRow = Integer.MAX_VALUE;
+    private int maxRow = Integer.MIN_VALUE;
+
+    @Override
+    public synchronized void reset(List<Attraction> rows) {
+        cells.clear();
+        filed.clear();
+        minRow = Integer.MAX_VALUE;
+        maxRow = Integer.MIN_VALUE;
+        for (Attraction attraction : rows) {
+            add(attraction);
+        }
+    }
+
+    @Override
+    public synchronized void added(Attraction attraction) {
+        add(attraction);
+    }
+
+    @Override
+    public synchronized void replaced(Attraction previous, Attraction attraction) {
+        remove(previous);
+        add(attraction);
+    }
+
+    @Override
+    public synchronized void removed(Attraction attraction) {
+        remove(attraction);
+    }
+
+    /** Great-circle distance in kilometres between two points given in degrees. */
+    public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double dLat = Math.toRadians(latitude2 - latitude1);
+        double dLon = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    public static boolean hasCoordinates(Attraction attraction) {
+        return attraction.getLatitude() != 0 || attraction.getLongitude() != 0;
+    }
+
+    /** The {@code k} active attractions closest to the point, closest first. */
+    public synchronized List<Nearby> nearest(double latitude, double longitude, int k) {
+        return nearest(latitude, longitude, k, null);
+    }
+
+    /** The {@code k} active attractions closest to {@code attraction}, not counting itself. */
+    public synchronized List<Nearby> nearest(Attraction attraction, int k) {
+        if (!hasCoordinates(attraction)) {
+            return List.of();
+        }
+        return nearest(attraction.getLatitude(), attraction.getLongitude(), k, attraction.getAttractionId());
+    }
+
+    /** Active attractions within {@code radiusKm} of the point, closest first. */
+    public synchronized List<Nearby> within(double latitude, double longitude, double radiusKm) {
+        List<Nearby> result = new ArrayList<>();
+        int rowSpan = (int) Math.ceil(radiusKm / (KM_PER_DEGREE * CELL_DEGREES));
+        Cell center = Cell.of(latitude, longitude);
+        for (int row = Math.max(center.row() - rowSpan, minRow); row <= Math.min(center.row() + rowSpan, maxRow); row++) {
+            int columnSpan = columnSpan(row, radiusKm);
+            for (int offset = -columnSpan; offset <= columnSpan; offset++) {
+                List<Attraction> bucket = cells.get(new Cell(row, Math.floorMod(center.column() + offset, LONGITUDE_CELLS)));
+                if (bucket == null) {
+                    continue;
+                }
+                for (Attraction attraction : bucket) {
+                    double distance = distanceKm(latitude, longitude, attraction.getLatitude(), attraction.getLongitude());
+                    if (distance <= radiusKm) {
+                        result.add(new Nearby(attraction, distance));
+                    }
+                }
+            }
+        }
+        result.sort(CLOSEST_FIRST);
+        return result;
+    }
+
+    private List<Nearby> nearest(double latitude, double longitude, int k, String excludedId) {
+        if (k <= 0 || filed.isEmpty()) {
+            return List.of();
+        }
+        // Max-heap of the best k so far, farthest on top
+        PriorityQueue<Nearby> best = new PriorityQueue<>(k, CLOSEST_FIRST.reversed());
+        Cell center = Cell.of(latitude, longitude);
+        int[] seen = { 0 };
+        for (int ring = 0; seen[0] < filed.size(); ring++) {
+            if (best.size() == k && best.peek().distanceKm() <= closestPossibleKm(latitude, ring)) {
+                break;
+            }
+            visitRing(center, ring, bucket -> {
+                for (Attraction attraction : bucket) {
+                    seen[0]++;
+                    if (attraction.getAttractionId().equals(excludedId)) {
+                        continue;
+                    }
+                    double distance = distanceKm(latitude, longitude, attraction.getLatitude(), attraction.getLongitude());
+                    if (best.size() < k) {
+                        best.add(new Nearby(attraction, distance));
+                    } else if (distance < best.peek().distanceKm()) {
+                        best.poll();
+                        best.add(new Nearby(attraction, distance));
+                    }
+                }
+            });
+        }
+        List<Nearby> result = new ArrayList<>(best);
+        result.sort(CLOSEST_FIRST);
+        return result;
+    }
+
+    /**
+     * Calls {@code visitor} for every non-empty cell exactly {@code ring} cells from {@code center},
+     * each cell once even where the ring wraps all the way around in longitude.
+     */
+    private void visitRing(Cell center, int ring, Consumer<List<Attraction>> visitor) {
+        int half = LONGITUDE_CELLS / 2;
+        int top = center.row() - ring;
+        int bottom = center.row() + ring;
+        for (int row = Math.max(top, minRow); row <= Math.min(bottom, maxRow); row++) {
+            if (row == top || row == bottom) {
+                // A new row: every column the ring spans, at most once round the globe
+                for (int offset = -Math.min(ring, half); offset <= Math.min(ring, half - 1); offset++) {
+                    visit(row, center.column() + offset, visitor);
+                }
+            } else if (ring <= half) {
+                // A row seen before: only the two new side columns, until they meet round the back
+                visit(row, center.column() - ring, visitor);
+                if (ring != half) {
+                    visit(row, center.column() + ring, visitor);
+                }
+            }
+        }
+    }
+
+    private void visit(int row, int column, Consumer<List<Attraction>> visitor) {
+        List<Attraction> bucket = cells.get(new Cell(row, Math.floorMod(column, LONGITUDE_CELLS)));
+        if (bucket != null) {
+            visitor.accept(bucket);
+        }
+    }
+
+    /**
+     * A lower bound on the distance from a point to any cell {@code ring} or more cells away: at
+     * least {@code ring - 1} whole cells lie in between, and a cell is narrowest at the latitude
+     * nearest a pole it can reach.
+     */
+    private static double closestPossibleKm(double latitude, int ring) {
+        double cellsBetween = Math.max(ring - 1, 0) * CELL_DEGREES;
+        double widestLatitude = Math.min(Math.abs(latitude) + ring * CELL_DEGREES, 90);
+        return cellsBetween * KM_PER_DEGREE * Math.cos(Math.toRadians(widestLatitude));
+    }
+
+    /** How many columns either side of the centre a circle of {@code radiusKm} can reach in {@code row}. */
+    private static int columnSpan(int row, double radiusKm) {
+        // The row's edge nearest a pole is where a degree of longitude is shortest
+        double south = row * CELL_DEGREES - 90;
+        double nearestPole = Math.max(Math.abs(south), Math.abs(south + CELL_DEGREES));
+        double kmPerColumn = KM_PER_DEGREE * CELL_DEGREES * Math.cos(Math.toRadians(Math.min(nearestPole, 90)));
+        if (kmPerColumn <= 0) {
+            return LONGITUDE_CELLS / 2;
+        }
+        return (int) Math.min(Math.ceil(radiusKm / kmPerColumn), LONGITUDE_CELLS / 2);
+    }
+
+    private void add(Attraction attraction) {
+        if (!attraction.isActive() || !hasCoordinates(attraction)) {
+            return;
+        }
+        Cell cell = Cell.of(attraction.getLatitude(), attraction.getLongitude());
+        filed.put(attraction, cell);
+        cells.computeIfAbsent(cell, c -> new ArrayList<>()).add(attraction);
+        minRow = Math.min(minRow, cell.row());
+        maxRow = Math.max(maxRow, cell.row());
+    }
+
+    private void remove(Attraction attraction) {
+        Cell cell = filed.remove(attraction);
+        if (cell == null) {
+            return;
+        }
+        List<Attraction> bucket = cells.get(cell);
+        if (bucket != null) {
+            bucket.removeIf(row -> row == attraction);
+            if (bucket.isEmpty()) {
+                cells.remove(cell);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Booking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * "Tourists who booked this also booked" picks for the tourist dashboard.
+ *
+ * For every pair of attractions it keeps how many tourists have booked both, and for every
+ * attraction how many tourists have booked it. A tourist's picks are the attractions most often
+ * booked together with the ones they have booked, each count divided by the square root of the
+ * pick's own popularity so that the attractions everyone books do not crowd out the rest. Only the
+ * pairs of the tourist's own attractions are read and the best are kept in a heap of the size
+ * asked for, so a recommendation never goes through the booking history. The most popular
+ * attractions fill up the list when there are not enough such picks, as for a new tourist.
+ *
+ * Kept up to date by the booking table like {@link BookingAggregates}: a new booking adds its
+ * attraction to the tourist's set (if it was not there yet) and the pairs it makes with the rest;
+ * cancelling or removing the tourist's last booking of an attraction takes them away again.
+ */
+public class AttractionRecommender implements DataCache.Listener<Booking> {
+
+    /** The booking's tourist and attraction, as counted, so an in-place edit can be undone. */
+    private record Visit(String touristId, String attractionId) {
+        static Visit of(Booking booking) {
+            if (booking.getStatus() == Booking.BookingStatus.CANCELLED || booking.getTouristUsername() == null
+                    || booking.getAttractionId() == null) {
+                return null;
+            }
+            return new Visit(booking.getTouristUsername(), booking.getAttractionId());
+        }
+    }
+
+    private record Scored(String attractionId, double score, int popularity) {
+    }
+
+    // Highest score first, then the more popular, then by id so the order never depends on hashing
+    private static final Comparator<Scored> BEST_FIRST = Comparator.comparingDouble(Scored::score).reversed()
+            .thenComparing(Comparator.comparingInt(Scored::popularity).reversed())
+            .thenComparing(Scored::attractionId);
+
+    /** Pair counts from one attraction to others, by attraction number, in an open-addressed table. */
+    private static final class Counts {
+        int[] keys = new int[8]; // attraction number + 1; 0 marks a free entry
+        int[] values = new int[8];
+        int size;
+
+        void add(int attraction, int delta) {
+            if (size * 2 >= keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = (attraction * 0x9E3779B9 >>> 16) & mask;
+            while (keys[i] != 0 && keys[i] != attraction + 1) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == 0) {
+                keys[i] = attraction + 1;
+                size++;
+            }
+            // A count that drops to 0 keeps its entry; it is skipped and goes at the next reset
+            values[i] += delta;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0 && oldValues[i] != 0) {
+                    add(oldKeys[i] - 1, oldValues[i]);
+                }
+            }
+        }
+    }
+
+    // Attraction ids are numbered on first sight so the counts can be kept in arrays
+    private final Map<String, Integer> numberOf = new HashMap<>();
+    private final List<String> idOf = new ArrayList<>();
+    // Per attraction number, how many tourists booked it and how many booked it with each other one
+    private int[] tourists = new int[16];
+    private final List<Counts> together = new ArrayList<>();
+    // Per tourist, the number of open bookings for each attraction number they have booked
+    private final Map<String, Map<Integer, Integer>> bookedByTourist = new HashMap<>();
+    private final Map<Booking, Visit> counted = new IdentityHashMap<>();
+    // Scores of the attractions being recommended, by number; all zero between calls
+    private double[] scores = new double[16];
+
+    @Override
+    public synchronized void reset(List<Booking> rows) {
+        numberOf.clear();
+        idOf.clear();
+        tourists = new int[16];
+        together.clear();
+        bookedByTourist.clear();
+        counted.clear();
+        for (Booking booking : rows) {
+            count(booking);
+        }
+    }
+
+    @Override
+    public synchronized void added(Booking booking) {
+        count(booking);
+    }
+
+    @Override
+    public synchronized void replaced(Booking previous, Booking booking) {
+        uncount(previous);
+        count(booking);
+    }
+
+    @Override
+    public synchronized void removed(Booking booking) {
+        uncount(booking);
+    }
+
+    /**
+     * Up to {@code limit} attraction ids for {@code touristId}, best first, leaving out the ones
+     * they have booked already and any {@code eligible} rejects.
+     */
+    public synchronized List<String> recommend(String touristId, int limit, Predicate<String> eligible) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        Map<Integer, Integer> booked = bookedByTourist.getOrDefault(touristId, Map.of());
+        if (scores.length < idOf.size()) {
+            scores = new double[Math.max(idOf.size(), scores.length * 2)];
+        }
+        // Their own attractions are marked so the loops below skip them without a map lookup
+        for (int attraction : booked.keySet()) {
+            scores[attraction] = Double.NEGATIVE_INFINITY;
+        }
+        int[] touched = new int[16];
+        int touchedCount = 0;
+        for (int attraction : booked.keySet()) {
+            Counts pairs = together.get(attraction);
+            for (int i = 0; i < pairs.keys.length; i++) {
+                int other = pairs.keys[i] - 1;
+                if (other < 0 || pairs.values[i] == 0 || scores[other] < 0) {
+                    continue;
+                }
+                if (scores[other] == 0) {
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = other;
+                }
+                scores[other] += pairs.values[i];
+            }
+        }
+
+        // Worst of the best `limit` on top, so each candidate costs at most one log(limit) swap
+        PriorityQueue<Scored> best = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+        for (int i = 0; i < touchedCount; i++) {
+            int other = touched[i];
+            int popularity = tourists[other];
+            offer(best, new Scored(idOf.get(other), scores[other] / Math.sqrt(Math.max(popularity, 1)), popularity),
+                    limit, eligible);
+        }
+        List<String> picks = ranked(best);
+        if (picks.size() < limit) {
+            // Not enough booked together with theirs (or none booked yet): fill up with the most popular
+            PriorityQueue<Scored> popular = new PriorityQueue<>(limit + 1, BEST_FIRST.reversed());
+            for (int attraction = 0; attraction < idOf.size(); attraction++) {
+                if (tourists[attraction] > 0 && scores[attraction] == 0) {
+                    offer(popular, new Scored(idOf.get(attraction), tourists[attraction], tourists[attraction]),
+                            limit - picks.size(), eligible);
+                }
+            }
+            picks = new ArrayList<>(picks);
+            picks.addAll(ranked(popular));
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            scores[touched[i]] = 0;
+        }
+        for (int attraction : booked.keySet()) {
+            scores[attraction] = 0;
+        }
+        return picks;
+    }
+
+    private static List<String> ranked(PriorityQueue<Scored> best) {
+        List<Scored> ranked = new ArrayList<>(best);
+        ranked.sort(BEST_FIRST);
+        return ranked.stream().map(Scored::attractionId).toList();
+    }
+
+    private static void offer(PriorityQueue<Scored> best, Scored candidate, int limit, Predicate<String> eligible) {
+        if (best.size() == limit && BEST_FIRST.compare(candidate, best.peek()) >= 0) {
+            return;
+        }
+        // Checked only for candidates good enough to make the list
+        if (!eligible.test(candidate.attractionId())) {
+            return;
+        }
+        best.add(candidate);
+        if (best.size() > limit) {
+            best.poll();
+        }
+    }
+
+    private int number(String attractionId) {
+        Integer number = numberOf.get(attractionId);
+        if (number != null) {
+            return number;
+        }
+        number = idOf.size();
+        numberOf.put(attractionId, number);
+        idOf.add(attractionId);
+        together.add(new Counts());
+        if (number == tourists.length) {
+            tourists = Arrays.copyOf(tourists, number * 2);
+        }
+        return number;
+    }
+
+    private void count(Booking booking) {
+        Visit visit = Visit.of(booking);
+        if (visit == null) {
+            return;
+        }
+        counted.put(booking, visit);
+        int attraction = number(visit.attractionId());
+        Map<Integer, Integer> booked = bookedByTourist.computeIfAbsent(visit.touristId(), k -> new HashMap<>());
+        if (booked.merge(attraction, 1, Integer::sum) > 1) {
+            return; // booked before, the pairs are already counted
+        }
+        tourists[attraction]++;
+        for (int other : booked.keySet()) {
+            if (other != attraction) {
+                together.get(attraction).add(other, 1);
+                together.get(other).add(attraction, 1);
+            }
+        }
+    }
+
+    private void uncount(Booking booking) {
+        Visit visit = counted.remove(booking);
+        if (visit == null) {
+            return;
+        }
+        int attraction = numberOf.get(visit.attractionId());
+        Map<Integer, Integer> booked = bookedByTourist.get(visit.touristId());
+        if (booked.merge(attraction, -1, Integer::sum) > 0) {
+            return; // still booked through another booking
+        }
+        booked.remove(attraction);
+        if (booked.isEmpty()) {
+            bookedByTourist.remove(visit.touristId());
+        }
+        tourists[attraction]--;
+        for (int other : booked.keySet()) {
+            together.get(attraction).add(other, -1);
+            together.get(other).add(attraction, -1);
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Attraction;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index for searching attractions by the words in their English and Nepali names and
+ * descriptions, category, district and province.
+ *
+ * Every word maps to the list of attractions containing it, and the words are also kept sorted (in
+ * an array built with the index, plus a small tree of words first seen since), so each query word
+ * is matched as a prefix with one range lookup ("pash" finds Pashupatinath, "सगर"
+ * finds सगरमाथा); the matches of one- and two-letter prefixes, which span many words, are cached
+ * once asked for. An attraction must match every query word. Attractions are numbered best rated
+ * first when the index is built, so ranking stops at the first {@code limit} matches.
+ *
+ * The lists only ever grow, so an edited attraction, whose words may have changed, is not kept in
+ * its {@link SlotTable} slot: it is added again after the ranked slots and the old slot becomes a
+ * hole. The index is rebuilt once half of the slots are holes or an eighth are unranked.
+ */
+public class AttractionSearchIndex implements DataCache.Listener<Attraction> {
+
+    // Prefixes this short match so many words that their combined matches are kept
+    private static final int SHORT_PREFIX = 2;
+
+    private static final Comparator<Attraction> BEST_FIRST = Comparator
+            .comparingDouble(Attraction::getRating).reversed()
+            .thenComparing(Attraction::getName, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    /** The attractions containing one word, as slots in increasing order. */
+    private static final class Postings {
+        int[] slots = new int[2];
+        int size;
+
+        void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    private final Map<String, Postings> postingsByWord = new HashMap<>();
+    private String[] sortedWords = new String[0];
+    private Postings[] sortedPostings = new Postings[0];
+    private final NavigableMap<String, Postings> newWords = new TreeMap<>();
+    private boolean building;
+    private final Map<String, BitSet> shortPrefixMatches = new HashMap<>();
+    private final SlotTable<Attraction, Void> slots = new SlotTable<>();
+    private int ranked; // slots below this are in BEST_FIRST order
+
+    @Override
+    public synchronized void reset(List<Attraction> rows) {
+        postingsByWord.clear();
+        newWords.clear();
+        shortPrefixMatches.clear();
+        slots.clear();
+        List<Attraction> best = new ArrayList<>(rows);
+        best.sort(BEST_FIRST);
+        building = true;
+        for (Attraction attraction : best) {
+            index(attraction);
+        }
+        building = false;
+        ranked = slots.size();
+        // One sort of the distinct words is far cheaper than a tree insert per word
+        sortedWords = postingsByWord.keySet().toArray(new String[0]);
+        Arrays.sort(sortedWords);
+        sortedPostings = new Postings[sortedWords.length];
+        for (int i = 0; i < sortedWords.length; i++) {
+            sortedPostings[i] = postingsByWord.get(sortedWords[i]);
+        }
+    }
+
+    @Override
+    public synchronized void added(Attraction attraction) {
+        index(attraction);
+        rebuildIfWorn();
+    }
+
+    @Override
+    public synchronized void replaced(Attraction previous, Attraction attraction) {
+        // previous may be the same instance, edited in place; its old words stay under the dead slot
+        unindex(previous);
+        index(attraction);
+        rebuildIfWorn();
+    }
+
+    @Override
+    public synchronized void removed(Attraction attraction) {
+        unindex(attraction);
+        rebuildIfWorn();
+    }
+
+    /**
+     * Up to {@code limit} active attractions matching every word of {@code query} (each as a
+     * prefix), best rated first. An empty query returns the best rated active attractions.
+     */
+    public synchronized List<Attraction> search(String query, int limit) {
+        BitSet matches = matchesForQuery(query);
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+
+        List<Attraction> result = new ArrayList<>();
+        // Ranked slots come best first, so the first `limit` active ones are the best of them
+        for (int slot = matches.nextSetBit(0); slot >= 0 && slot < ranked && result.size() < limit;
+                slot = matches.nextSetBit(slot + 1)) {
+            addIfShown(result, slot);
+        }
+        int rankedHits = result.size();
+        for (int slot = matches.nextSetBit(ranked); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            addIfShown(result, slot);
+        }
+        if (result.size() > rankedHits) {
+            result.sort(BEST_FIRST);
+        }
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Every attraction matching every word of {@code query}, closed ones included and in no
+     * particular order, for narrowing down a {@link AttractionFacets} query.
+     */
+    public synchronized List<Attraction> matching(String query) {
+        BitSet matches = matchesForQuery(query);
+        List<Attraction> result = new ArrayList<>(matches.cardinality());
+        for (int slot = matches.nextSetBit(0); slot >= 0; slot = matches.nextSetBit(slot + 1)) {
+            if (slots.live().get(slot)) {
+                result.add(slots.get(slot));
+            }
+        }
+        return result;
+    }
+
+    /** Slots matching every word of {@code query}, dead ones included; every live slot for no words. */
+    private BitSet matchesForQuery(String query) {
+        BitSet matches = null;
+        for (String term : tokenize(query)) {
+            BitSet termMatches = matchesFor(term);
+            if (matches == null) {
+                matches = (BitSet) termMatches.clone();
+            } else {
+                matches.and(termMatches);
+            }
+            if (matches.isEmpty()) {
+                break;
+            }
+        }
+        return matches != null ? matches : slots.live();
+    }
+
+    private void addIfShown(List<Attraction> result, int slot) {
+        Attraction attraction = slots.get(slot);
+        if (attraction != null && attraction.isActive()) {
+            result.add(attraction);
+        }
+    }
+
+    private static void setAll(BitSet matches, Postings postings) {
+        for (int i = 0; i < postings.size; i++) {
+            matches.set(postings.slots[i]);
+        }
+    }
+
+    /** Slots whose words start with {@code prefix}, dead ones included. */
+    private BitSet matchesFor(String prefix) {
+        BitSet cached = shortPrefixMatches.get(prefix);
+        if (cached != null) {
+            return cached;
+        }
+        BitSet matches = new BitSet(slots.size());
+        int first = Arrays.binarySearch(sortedWords, prefix);
+        for (int i = first >= 0 ? first : -first - 1; i < sortedWords.length && sortedWords[i].startsWith(prefix);
+                i++) {
+            setAll(matches, sortedPostings[i]);
+        }
+        for (Postings postings : newWords.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            setAll(matches, postings);
+        }
+        if (prefix.length() <= SHORT_PREFIX) {
+            // index() keeps it up to date from now on
+            shortPrefixMatches.put(prefix, matches);
+        }
+        return matches;
+    }
+
+    /**
+     * Splits text into lower-case words. Devanagari vowel signs, virama and other combining marks
+     * stay part of their word, joiners are dropped, and Devanagari digits read as 0-9.
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        tokenize(text, terms);
+        return terms;
+    }
+
+    private static void tokenize(String text, List<String> terms) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC);
+        StringBuilder term = new StringBuilder();
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            if (c < 0x80) {
+                // Most text is ASCII, which needs no Unicode tables
+                if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                    term.append(c);
+                } else if (c >= 'A' && c <= 'Z') {
+                    term.append((char) (c + ('a' - 'A')));
+                } else if (!term.isEmpty()) {
+                    terms.add(term.toString());
+                    term.setLength(0);
+                }
+                continue;
+            }
+            if (c == '\u200C' || c == '\u200D') {
+                continue; // zero-width (non-)joiner only changes how a conjunct is drawn
+            }
+            if (Character.isDigit(c)) {
+                term.append((char) ('0' + Character.digit(c, 10)));
+            } else if (Character.isLetter(c) || isCombiningMark(c)) {
+                term.append(Character.toLowerCase(c));
+            } else if (!term.isEmpty()) {
+                terms.add(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (!term.isEmpty()) {
+            terms.add(term.toString());
+        }
+    }
+
+    private static boolean isCombiningMark(char c) {
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK;
+    }
+
+    private void index(Attraction attraction) {
+        int slot = slots.add(attraction, null);
+        List<String> terms = new ArrayList<>();
+        for (String field : new String[] { attraction.getName(), attraction.getNameNepali(),
+                attraction.getDescription(), attraction.getDescriptionNepali(), attraction.getCategory(),
+                attraction.getDistrict(), attraction.getProvince() }) {
+            tokenize(field, terms);
+        }
+        for (String term : terms) {
+            Postings postings = postingsByWord.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                postingsByWord.put(term, postings);
+                if (!building) {
+                    newWords.put(term, postings);
+                }
+            }
+            // A word repeated in the same attraction is listed once
+            if (postings.size > 0 && postings.slots[postings.size - 1] == slot) {
+                continue;
+            }
+            postings.add(slot);
+            if (!shortPrefixMatches.isEmpty()) {
+                for (int length = 1; length <= Math.min(SHORT_PREFIX, term.length()); length++) {
+                    BitSet cached = shortPrefixMatches.get(term.substring(0, length));
+                    if (cached != null) {
+                        cached.set(slot);
+                    }
+                }
+            }
+        }
+    }
+
+    private void unindex(Attraction attraction) {
+        Integer slot = slots.slotOf(attraction);
+        if (slot != null) {
+            slots.remove(slot);
+        }
+    }
+
+    /** Rebuilds once half the slots are dead or an eighth are unranked. */
+    private void rebuildIfWorn() {
+        int unranked = slots.size() - ranked;
+        if (slots.isWorn() || (slots.size() > 64 && unranked > slots.size() / 8)) {
+            reset(slots.liveRows());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.exception.ConcurrentUpdateException;
+import com.nepaltourismmanagementapp.model.User;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Login checks: a username lookup in the user index plus a PBKDF2 verification.
+ *
+ * A successful login is remembered for a few minutes ({@code nepaltourism.session.ttl.seconds},
+ * default 600), so logging in again with the same password, e.g. under another role, skips the
+ * expensive hash. Only a keyed digest of the password is kept, with a key that never leaves this
+ * process. Legacy plaintext passwords are replaced with a hash on the first successful login.
+ */
+public class AuthManager {
+
+    private record Session(User user, String storedPassword, byte[] fingerprint, long expiresAt) {
+    }
+
+    private static final long SESSION_TTL_MILLIS = Long.getLong("nepaltourism.session.ttl.seconds", 600) * 1000;
+    private static final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private static final byte[] sessionKey = new byte[32];
+    // Verified against when the username is unknown, so that case takes as long as a wrong password
+    private static final String UNKNOWN_USER_HASH = PasswordHasher.hash("unknown-user");
+
+    static {
+        new SecureRandom().nextBytes(sessionKey);
+    }
+
+    /**
+     * Returns the user with this username, password and role (compared ignoring case), or null if
+     * any of them does not match.
+     */
+    public static User authenticate(String username, String password, String role) throws IOException {
+        User user = DataManager.findUserByUsername(username);
+        if (user == null) {
+            PasswordHasher.verify(password, UNKNOWN_USER_HASH);
+            return null;
+        }
+        User verified = verify(user, password);
+        if (verified == null) {
+            return null;
+        }
+        return verified.getRole().equalsIgnoreCase(role) ? verified : null;
+    }
+
+    /** Forgets any remembered login for {@code username}. */
+    public static void invalidate(String username) {
+        sessions.remove(username);
+    }
+
+    /**
+     * Returns the user if {@code password} is theirs, or null. That is the saved copy when an
+     * outdated password hash was upgraded along the way.
+     */
+    private static User verify(User user, String password) throws IOException {
+        String username = user.getUsername();
+        byte[] fingerprint = fingerprint(password);
+        long now = System.currentTimeMillis();
+        Session session = sessions.get(username);
+        // Valid while the same cached user still has the password it was verified against
+        if (session != null && session.expiresAt() > now && session.user() == user
+                && session.storedPassword().equals(user.getPassword())
+                && MessageDigest.isEqual(session.fingerprint(), fingerprint)) {
+            return user;
+        }
+
+        String stored = user.getPassword();
+        if (!PasswordHasher.verify(password, stored)) {
+            sessions.remove(username);
+            return null;
+        }
+        if (PasswordHasher.needsRehash(stored)) {
+            User upgraded = user.copy();
+            upgraded.setPassword(PasswordHasher.hash(password));
+            try {
+                DataManager.updateUser(upgraded, user.getVersion());
+            } catch (ConcurrentUpdateException e) {
+                // Someone else saved this user meanwhile; the password is upgraded at the next login
+                System.out.println("Warning: " + e.getMessage());
+                return user;
+            }
+            user = upgraded;
+        }
+        sessions.put(username, new Session(user, user.getPassword(), fingerprint, now + SESSION_TTL_MILLIS));
+        return user;
+    }
+
+    private static byte[] fingerprint(String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(sessionKey, "HmacSHA256"));
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
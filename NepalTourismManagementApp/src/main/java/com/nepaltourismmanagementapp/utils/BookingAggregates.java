@@ -0,0 +1,173 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Booking;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Running booking totals: count and revenue per status, overall and per guide, tourist, attraction
+ * and trek date. Every change to the booking table is applied as a delta (a status change moves
+ * one booking between two status buckets), so reading a total never rescans the bookings.
+ */
+public class BookingAggregates implements DataCache.Listener<Booking> {
+
+    private static final int STATUSES = Booking.BookingStatus.values().length;
+
+    /** Totals for one group of bookings at the time it was read. */
+    public record Summary(int count, double revenue, int[] countByStatus, double[] revenueByStatus) {
+
+        public int count(Booking.BookingStatus status) {
+            return countByStatus[status.ordinal()];
+        }
+
+        public double revenue(Booking.BookingStatus status) {
+            return revenueByStatus[status.ordinal()];
+        }
+
+        public double averageRevenue() {
+            return count > 0 ? revenue / count : 0;
+        }
+    }
+
+    /** What a booking added to the counters, so the same amount can be taken off again. */
+    private record Contribution(String tourist, String guide, String attraction, LocalDate trekDate,
+                                int status, double price) {
+        static Contribution of(Booking booking) {
+            return new Contribution(booking.getTouristUsername(), booking.getGuideUsername(),
+                    booking.getAttractionId(), booking.getTrekDate(), booking.getStatus().ordinal(),
+                    booking.getTotalPrice());
+        }
+    }
+
+    private static final class Counter {
+        int count;
+        double revenue;
+        final int[] countByStatus = new int[STATUSES];
+        final double[] revenueByStatus = new double[STATUSES];
+
+        void apply(Contribution c, int sign) {
+            count += sign;
+            revenue += sign * c.price();
+            countByStatus[c.status()] += sign;
+            revenueByStatus[c.status()] += sign * c.price();
+        }
+
+        Summary summary() {
+            return new Summary(count, revenue, countByStatus.clone(), revenueByStatus.clone());
+        }
+    }
+
+    private Counter overall = new Counter();
+    private final Map<String, Counter> byGuide = new HashMap<>();
+    private final Map<String, Counter> byTourist = new HashMap<>();
+    private final Map<String, Counter> byAttraction = new HashMap<>();
+    private final NavigableMap<LocalDate, Counter> byTrekDate = new TreeMap<>();
+    private final Map<Booking, Contribution> contributions = new IdentityHashMap<>();
+
+    @Override
+    public synchronized void reset(List<Booking> rows) {
+        overall = new Counter();
+        byGuide.clear();
+        byTourist.clear();
+        byAttraction.clear();
+        byTrekDate.clear();
+        contributions.clear();
+        for (Booking booking : rows) {
+            add(booking);
+        }
+    }
+
+    @Override
+    public synchronized void added(Booking booking) {
+        add(booking);
+    }
+
+    @Override
+    public synchronized void replaced(Booking previous, Booking booking) {
+        subtract(previous);
+        add(booking);
+    }
+
+    @Override
+    public synchronized void removed(Booking booking) {
+        subtract(booking);
+    }
+
+    public synchronized Summary overall() {
+        return overall.summary();
+    }
+
+    public synchronized Summary forGuide(String guideUsername) {
+        return summaryOf(byGuide.get(guideUsername));
+    }
+
+    public synchronized Summary forTourist(String touristUsername) {
+        return summaryOf(byTourist.get(touristUsername));
+    }
+
+    public synchronized Summary forAttraction(String attractionId) {
+        return summaryOf(byAttraction.get(attractionId));
+    }
+
+    public synchronized Summary forTrekDate(LocalDate date) {
+        return summaryOf(byTrekDate.get(date));
+    }
+
+    /** Totals for trek dates in {@code [from, to]}; costs one step per day that has bookings. */
+    public synchronized Summary forTrekDates(LocalDate from, LocalDate to) {
+        Counter total = new Counter();
+        for (Counter day : byTrekDate.subMap(from, true, to, true).values()) {
+            total.count += day.count;
+            total.revenue += day.revenue;
+            for (int i = 0; i < STATUSES; i++) {
+                total.countByStatus[i] += day.countByStatus[i];
+                total.revenueByStatus[i] += day.revenueByStatus[i];
+            }
+        }
+        return total.summary();
+    }
+
+    private void add(Booking booking) {
+        Contribution contribution = Contribution.of(booking);
+        contributions.put(booking, contribution);
+        apply(contribution, 1);
+    }
+
+    private void subtract(Booking booking) {
+        Contribution contribution = contributions.remove(booking);
+        if (contribution != null) {
+            apply(contribution, -1);
+        }
+    }
+
+    private void apply(Contribution c, int sign) {
+        overall.apply(c, sign);
+        apply(byGuide, c.guide(), c, sign);
+        apply(byTourist, c.tourist(), c, sign);
+        apply(byAttraction, c.attraction(), c, sign);
+        if (c.trekDate() != null) {
+            apply(byTrekDate, c.trekDate(), c, sign);
+        }
+    }
+
+    private static <K> void apply(Map<K, Counter> counters, K key, Contribution c, int sign) {
+        if (key == null) {
+            return;
+        }
+        Counter counter = counters.computeIfAbsent(key, k -> new Counter());
+        counter.apply(c, sign);
+        if (counter.count == 0) {
+            counters.remove(key);
+        }
+    }
+
+    private static Summary summaryOf(Counter counter) {
+        return (counter != null ? counter : new Counter()).summary();
+    }
+}
@@ -0,0 +1,128 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Booking;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Reads and writes the bookings.txt line format:
+ * id,tourist,guide,attractionId,bookingDate,trekDate,status,totalPrice,discount,notes,emergencyReported,numberOfPeople,version
+ * (lines written before bookings had versions are version 0).
+ *
+ * Lines with fewer fields come from the old Booking.toString, which did not escape anything and
+ * stored commas in the notes as ';'. Those are read field by field as written, so a backslash in
+ * them stays a backslash, and the notes get their commas back.
+ */
+public final class BookingCodec {
+    public static final String SNAPSHOT_KIND = "bookings/3";
+    // Every line written by encode has all of them, version included
+    private static final int FIELDS = 13;
+
+    private BookingCodec() {
+    }
+
+    public static String encode(Booking booking) {
+        return new RecordFields.Writer(128)
+                .field(booking.getId())
+                .field(booking.getTouristUsername())
+                .field(booking.getGuideUsername())
+                .field(booking.getAttractionId())
+                .field(booking.getBookingDate())
+                .field(booking.getTrekDate())
+                .field(booking.getStatus().name())
+                .field(booking.getTotalPrice())
+                .field(booking.getDiscount())
+                .field(booking.getNotes() != null ? booking.getNotes() : "")
+                .field(booking.isEmergencyReported())
+                .field(booking.getNumberOfPeople())
+                .field(booking.getVersion())
+                .toString();
+    }
+
+    /** Returns null for lines that are too short or malformed. */
+    public static Booking decode(CharSequence line) {
+        RecordFields.Reader reader = new RecordFields.Reader(line);
+        if (reader.remaining() < FIELDS) {
+            return decodeLegacy(line.toString());
+        }
+        try {
+            String id = reader.nextString();
+            String tourist = reader.nextString();
+            String guide = reader.nextString();
+            String attractionId = reader.nextString();
+            LocalDate bookingDate = reader.nextDate();
+            LocalDate trekDate = reader.nextDate();
+            Booking.BookingStatus status = Booking.BookingStatus.valueOf(reader.nextString());
+            double totalPrice = reader.nextDouble();
+            double discount = reader.nextDouble();
+            String notes = reader.nextString();
+            boolean emergencyReported = reader.nextBoolean();
+            int numberOfPeople = 1; // Default to 1 if unparseable
+            try {
+                numberOfPeople = reader.nextInt();
+            } catch (NumberFormatException e) {
+                numberOfPeople = 1;
+            }
+            Booking booking = new Booking(id, tourist, guide, attractionId, bookingDate, trekDate, status, totalPrice,
+                    discount, notes.isEmpty() ? null : notes, emergencyReported, numberOfPeople);
+            booking.setVersion(reader.nextInt());
+            return booking;
+        } catch (RuntimeException e) {
+            System.out.println("Warning: skipping malformed booking line: " + line);
+            return null;
+        }
+    }
+
+    /** An old Booking.toString line, read the way Booking.fromString did; version 0. */
+    private static Booking decodeLegacy(String line) {
+        String[] parts = line.split(",", -1);
+        if (parts.length < 10) {
+            return null;
+        }
+        try {
+            String notes = parts[9].replace(';', ',');
+            boolean emergencyReported = parts.length > 10 && Boolean.parseBoolean(parts[10]);
+            int numberOfPeople = 1; // Default to 1 if missing or unparseable
+            if (parts.length > 11) {
+                try {
+                    numberOfPeople = Integer.parseInt(parts[11]);
+                } catch (NumberFormatException e) {
+                    numberOfPeople = 1;
+                }
+            }
+            return new Booking(parts[0], parts[1], parts[2], parts[3], LocalDate.parse(parts[4]),
+                    LocalDate.parse(parts[5]), Booking.BookingStatus.valueOf(parts[6]),
+                    Double.parseDouble(parts[7]), Double.parseDouble(parts[8]),
+                    notes.isEmpty() ? null : notes, emergencyReported, numberOfPeople);
+        } catch (RuntimeException e) {
+            System.out.println("Warning: skipping malformed booking line: " + line);
+            return null;
+        }
+    }
+
+    /** Snapshot row format; change {@link #SNAPSHOT_KIND} along with it. */
+    public static void writeBinary(Booking booking, Snapshot.Output out) throws IOException {
+        out.writeString(booking.getId());
+        out.writeString(booking.getTouristUsername());
+        out.writeString(booking.getGuideUsername());
+        out.writeString(booking.getAttractionId());
+        out.writeDate(booking.getBookingDate());
+        out.writeDate(booking.getTrekDate());
+        out.writeEnum(booking.getStatus());
+        out.writeDouble(booking.getTotalPrice());
+        out.writeDouble(booking.getDiscount());
+        out.writeString(booking.getNotes());
+        out.writeBoolean(booking.isEmergencyReported());
+        out.writeInt(booking.getNumberOfPeople());
+        out.writeInt(booking.getVersion());
+    }
+
+    public static Booking readBinary(Snapshot.Input in) {
+        Booking booking = new Booking(in.readString(), in.readString(), in.readString(), in.readString(),
+                in.readDate(), in.readDate(), in.readEnum(Booking.BookingStatus.class),
+                in.readDouble(), in.readDouble(), in.readString(), in.readBoolean(), in.readInt());
+        booking.setVersion(in.readInt());
+        return booking;
+    }
+}
@@ -0,0 +1,296 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Booking;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented copy of the cached bookings for statistics: one primitive array per field, with
+ * tourist, guide and attraction ids dictionary-encoded to ints. The aggregate methods are plain
+ * loops over those arrays, so they neither box values nor touch the Booking objects.
+ *
+ * Kept in step with the booking table like {@link BookingIndex}. Removed bookings leave a dead slot
+ * behind until enough of them pile up to be worth compacting away.
+ */
+public class BookingColumns implements DataCache.Listener<Booking> {
+
+    private static final byte DEAD = -1;
+    private static final Booking.BookingStatus[] STATUSES = Booking.BookingStatus.values();
+
+    /** Counts and totals over a set of bookings. */
+    public record Stats(int count, double revenue, int[] countByStatus, double[] revenueByStatus,
+                        int upcoming, int distinctTourists, Map<String, Integer> countByAttraction) {
+
+        public int count(Booking.BookingStatus status) {
+            return countByStatus[status.ordinal()];
+        }
+
+        public double revenue(Booking.BookingStatus status) {
+            return revenueByStatus[status.ordinal()];
+        }
+
+        public double averageRevenue() {
+            return count > 0 ? revenue / count : 0;
+        }
+    }
+
+    private final Dictionary tourists = new Dictionary();
+    private final Dictionary guides = new Dictionary();
+    private final Dictionary attractions = new Dictionary();
+    private final Map<Booking, Integer> slots = new IdentityHashMap<>();
+
+    private int size; // slots in use, including dead ones
+    private int dead;
+    private int[] touristIds = new int[0];
+    private int[] guideIds = new int[0];
+    private int[] attractionIds = new int[0];
+    private int[] trekDays = new int[0];
+    private double[] prices = new double[0];
+    private byte[] statuses = new byte[0];
+
+    @Override
+    public synchronized void reset(List<Booking> rows) {
+        slots.clear();
+        tourists.clear();
+        guides.clear();
+        attractions.clear();
+        size = 0;
+        dead = 0;
+        ensureCapacity(rows.size());
+        for (Booking booking : rows) {
+            append(booking);
+        }
+    }
+
+    @Override
+    public synchronized void added(Booking booking) {
+        ensureCapacity(size + 1);
+        append(booking);
+    }
+
+    @Override
+    public synchronized void replaced(Booking previous, Booking booking) {
+        Integer slot = slots.remove(previous);
+        if (slot == null) {
+            added(booking);
+            return;
+        }
+        slots.put(booking, slot);
+        write(slot, booking);
+    }
+
+    @Override
+    public synchronized void removed(Booking booking) {
+        Integer slot = slots.remove(booking);
+        if (slot == null) {
+            return;
+        }
+        statuses[slot] = DEAD;
+        dead++;
+        if (dead > 1024 && dead > size / 2) {
+            compact();
+        }
+    }
+
+    /** Number of live bookings. */
+    public synchronized int count() {
+        return size - dead;
+    }
+
+    public synchronized double totalRevenue() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            if (statuses[i] != DEAD) {
+                total += prices[i];
+            }
+        }
+        return total;
+    }
+
+    /** Bookings per status, indexed by {@link Booking.BookingStatus#ordinal()}. */
+    public synchronized int[] countByStatus() {
+        int[] counts = new int[STATUSES.length];
+        for (int i = 0; i < size; i++) {
+            byte status = statuses[i];
+            if (status != DEAD) {
+                counts[status]++;
+            }
+        }
+        return counts;
+    }
+
+    /** Revenue per status, indexed by {@link Booking.BookingStatus#ordinal()}. */
+    public synchronized double[] sumByStatus() {
+        double[] sums = new double[STATUSES.length];
+        for (int i = 0; i < size; i++) {
+            byte status = statuses[i];
+            if (status != DEAD) {
+                sums[status] += prices[i];
+            }
+        }
+        return sums;
+    }
+
+    /** Bookings with a trek date in {@code [from, to]}. */
+    public synchronized int countByTrekDate(LocalDate from, LocalDate to) {
+        int first = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int day = trekDays[i];
+            if (day >= first && day <= last && statuses[i] != DEAD) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Revenue per attraction id, in order of first appearance. */
+    public synchronized Map<String, Double> revenueByAttraction() {
+        double[] sums = new double[attractions.size()];
+        for (int i = 0; i < size; i++) {
+            if (statuses[i] != DEAD) {
+                sums[attractionIds[i]] += prices[i];
+            }
+        }
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int id = 0; id < sums.length; id++) {
+            if (sums[id] != 0) {
+                result.put(attractions.value(id), sums[id]);
+            }
+        }
+        return result;
+    }
+
+    public synchronized Stats statsForAll(LocalDate today) {
+        return stats(null, -1, today);
+    }
+
+    public synchronized Stats statsForTourist(String touristUsername, LocalDate today) {
+        return stats(touristIds, tourists.find(touristUsername), today);
+    }
+
+    public synchronized Stats statsForGuide(String guideUsername, LocalDate today) {
+        return stats(guideIds, guides.find(guideUsername), today);
+    }
+
+    /**
+     * One pass over the bookings whose {@code keyColumn} equals {@code key} (all bookings when the
+     * column is null). A booking is upcoming when its trek date is after {@code today}.
+     */
+    private Stats stats(int[] keyColumn, int key, LocalDate today) {
+        int[] countByStatus = new int[STATUSES.length];
+        double[] revenueByStatus = new double[STATUSES.length];
+        int[] perAttraction = new int[attractions.size()];
+        boolean[] seenTourist = new boolean[tourists.size()];
+        int todayDay = (int) today.toEpochDay();
+        int count = 0;
+        int upcoming = 0;
+        int distinctTourists = 0;
+        double revenue = 0;
+        if (keyColumn == null || key >= 0) {
+            for (int i = 0; i < size; i++) {
+                byte status = statuses[i];
+                if (status == DEAD || (keyColumn != null && keyColumn[i] != key)) {
+                    continue;
+                }
+                count++;
+                revenue += prices[i];
+                countByStatus[status]++;
+                revenueByStatus[status] += prices[i];
+                perAttraction[attractionIds[i]]++;
+                if (trekDays[i] > todayDay) {
+                    upcoming++;
+                }
+                if (!seenTourist[touristIds[i]]) {
+                    seenTourist[touristIds[i]] = true;
+                    distinctTourists++;
+                }
+            }
+        }
+        Map<String, Integer> countByAttraction = new LinkedHashMap<>();
+        for (int id = 0; id < perAttraction.length; id++) {
+            if (perAttraction[id] > 0) {
+                countByAttraction.put(attractions.value(id), perAttraction[id]);
+            }
+        }
+        return new Stats(count, revenue, countByStatus, revenueByStatus, upcoming, distinctTourists,
+                countByAttraction);
+    }
+
+    private void append(Booking booking) {
+        slots.put(booking, size);
+        write(size, booking);
+        size++;
+    }
+
+    private void write(int slot, Booking booking) {
+        touristIds[slot] = tourists.idOf(booking.getTouristUsername());
+        guideIds[slot] = guides.idOf(booking.getGuideUsername());
+        attractionIds[slot] = attractions.idOf(booking.getAttractionId());
+        trekDays[slot] = booking.getTrekDate() != null ? (int) booking.getTrekDate().toEpochDay() : Integer.MIN_VALUE;
+        prices[slot] = booking.getTotalPrice();
+        statuses[slot] = (byte) booking.getStatus().ordinal();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= statuses.length) {
+            return;
+        }
+        int length = Math.max(capacity, statuses.length + (statuses.length >> 1) + 16);
+        touristIds = Arrays.copyOf(touristIds, length);
+        guideIds = Arrays.copyOf(guideIds, length);
+        attractionIds = Arrays.copyOf(attractionIds, length);
+        trekDays = Arrays.copyOf(trekDays, length);
+        prices = Arrays.copyOf(prices, length);
+        statuses = Arrays.copyOf(statuses, length);
+    }
+
+    private void compact() {
+        List<Booking> live = new ArrayList<>(slots.keySet());
+        live.sort((a, b) -> Integer.compare(slots.get(a), slots.get(b)));
+        reset(live);
+    }
+
+    /** Maps strings to dense ints; null gets an id like any other value. */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int idOf(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            return id;
+        }
+
+        void clear() {
+            ids.clear();
+            values.clear();
+        }
+
+        /** The id of {@code value}, or -1 if it has never been seen. */
+        int find(String value) {
+            Integer id = ids.get(value);
+            return id == null ? -1 : id;
+        }
+
+        String value(int id) {
+            return values.get(id);
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+}
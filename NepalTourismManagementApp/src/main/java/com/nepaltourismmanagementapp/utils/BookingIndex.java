@@ -0,0 +1,166 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Booking;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Secondary indexes over the cached bookings: hash indexes on id, tourist, guide and attraction,
+ * and a sorted index on trek date for range queries.
+ *
+ * Kept up to date by the booking table (see {@link DataCache.Listener}), so lookups cost the size
+ * of the result instead of a scan over every booking. Buckets keep insertion (file) order.
+ */
+public class BookingIndex implements DataCache.Listener<Booking> {
+
+    /** The indexed keys of a booking as they were when it was last indexed. */
+    private record Keys(String id, String tourist, String guide, String attraction, LocalDate trekDate) {
+        static Keys of(Booking booking) {
+            return new Keys(booking.getId(), booking.getTouristUsername(), booking.getGuideUsername(),
+                    booking.getAttractionId(), booking.getTrekDate());
+        }
+    }
+
+    private final Map<String, Set<Booking>> byId = new HashMap<>();
+    private final Map<String, Set<Booking>> byTourist = new HashMap<>();
+    private final Map<String, Set<Booking>> byGuide = new HashMap<>();
+    private final Map<String, Set<Booking>> byAttraction = new HashMap<>();
+    private final NavigableMap<LocalDate, Set<Booking>> byTrekDate = new TreeMap<>();
+    private final Map<Booking, Keys> indexedKeys = new IdentityHashMap<>();
+
+    @Override
+    public synchronized void reset(List<Booking> rows) {
+        byId.clear();
+        byTourist.clear();
+        byGuide.clear();
+        byAttraction.clear();
+        byTrekDate.clear();
+        indexedKeys.clear();
+        for (Booking booking : rows) {
+            index(booking);
+        }
+    }
+
+    @Override
+    public synchronized void added(Booking booking) {
+        index(booking);
+    }
+
+    @Override
+    public synchronized void replaced(Booking previous, Booking booking) {
+        // A status change leaves every indexed key alone, so there is usually nothing to do
+        if (previous == booking && Keys.of(booking).equals(indexedKeys.get(booking))) {
+            return;
+        }
+        unindex(previous);
+        index(booking);
+    }
+
+    @Override
+    public synchronized void removed(Booking booking) {
+        unindex(booking);
+    }
+
+    public synchronized Booking findById(String bookingId) {
+        // Old data may hold several bookings under one id; the first one wins, as in the file scan
+        Set<Booking> bucket = byId.get(bookingId);
+        return bucket == null ? null : bucket.iterator().next();
+    }
+
+    public synchronized List<Booking> findByTourist(String touristUsername) {
+        return copy(byTourist.get(touristUsername));
+    }
+
+    public synchronized List<Booking> findByGuide(String guideUsername) {
+        return copy(byGuide.get(guideUsername));
+    }
+
+    public synchronized List<Booking> findByAttraction(String attractionId) {
+        return copy(byAttraction.get(attractionId));
+    }
+
+    /** Bookings with a trek date in {@code [from, to]}; either bound may be null for open-ended. */
+    public synchronized List<Booking> findByTrekDate(LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, Set<Booking>> range = byTrekDate;
+        if (from != null && to != null) {
+            range = byTrekDate.subMap(from, true, to, true);
+        } else if (from != null) {
+            range = byTrekDate.tailMap(from, true);
+        } else if (to != null) {
+            range = byTrekDate.headMap(to, true);
+        }
+        List<Booking> result = new ArrayList<>();
+        for (Set<Booking> bucket : range.values()) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+
+    /** Bookings with a trek date strictly after {@code date}. */
+    public synchronized List<Booking> findAfter(LocalDate date) {
+        List<Booking> result = new ArrayList<>();
+        for (Set<Booking> bucket : byTrekDate.tailMap(date, false).values()) {
+            result.addAll(bucket);
+        }
+        return result;
+    }
+
+    private void index(Booking booking) {
+        Keys keys = Keys.of(booking);
+        indexedKeys.put(booking, keys);
+        add(byId, keys.id(), booking);
+        add(byTourist, keys.tourist(), booking);
+        add(byGuide, keys.guide(), booking);
+        add(byAttraction, keys.attraction(), booking);
+        if (keys.trekDate() != null) {
+            byTrekDate.computeIfAbsent(keys.trekDate(), d -> new LinkedHashSet<>()).add(booking);
+        }
+    }
+
+    private void unindex(Booking booking) {
+        Keys keys = indexedKeys.remove(booking);
+        if (keys == null) {
+            return;
+        }
+        remove(byId, keys.id(), booking);
+        remove(byTourist, keys.tourist(), booking);
+        remove(byGuide, keys.guide(), booking);
+        remove(byAttraction, keys.attraction(), booking);
+        if (keys.trekDate() != null) {
+            Set<Booking> bucket = byTrekDate.get(keys.trekDate());
+            if (bucket != null && bucket.remove(booking) && bucket.isEmpty()) {
+                byTrekDate.remove(keys.trekDate());
+            }
+        }
+    }
+
+    private static void add(Map<String, Set<Booking>> index, String key, Booking booking) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(booking);
+        }
+    }
+
+    private static void remove(Map<String, Set<Booking>> index, String key, Booking booking) {
+        if (key == null) {
+            return;
+        }
+        Set<Booking> bucket = index.get(key);
+        if (bucket != null && bucket.remove(booking) && bucket.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static List<Booking> copy(Collection<Booking> bucket) {
+        return bucket == null ? new ArrayList<>() : new ArrayList<>(bucket);
+    }
+}
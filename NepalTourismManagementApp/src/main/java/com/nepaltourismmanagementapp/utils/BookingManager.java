@@ -1,22 +1,31 @@
 package com.nepaltourismmanagementapp.utils;
 
+import com.nepaltourismmanagementapp.exception.CapacityExceededException;
+import com.nepaltourismmanagementapp.exception.ConcurrentUpdateException;
+import com.nepaltourismmanagementapp.model.Attraction;
 import com.nepaltourismmanagementapp.model.Booking;
-import java.io.FileWriter;
+import com.nepaltourismmanagementapp.model.Guide;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class BookingManager {
+    private static final AtomicLong lastBookingStamp = new AtomicLong();
 
     public static String generateBookingId() {
-        return "BK" + System.currentTimeMillis();
+        // Millisecond based as before, but never hands out the same id twice in one process
+        long stamp = lastBookingStamp.updateAndGet(last -> Math.max(last + 1, System.currentTimeMillis()));
+        return "BK" + stamp;
     }
 
-    public static double calculateTotalAmount(double baseAmount, int numberOfPeople) {
-        double total = baseAmount * numberOfPeople;
-        return FestivalManager.applyFestivalDiscount(total);
+    /** The price quoted by {@link PricingEngine} for the day's demand, less any festival discount. */
+    public static double calculateTotalAmount(String attractionId, double baseAmount, int numberOfPeople,
+            LocalDate visitDate) throws IOException {
+        return PricingEngine.quote(attractionId, baseAmount, visitDate, numberOfPeople).total();
     }
 
     // UPDATED: createBooking method to align with the Booking model's fields and
@@ -24,8 +33,23 @@ public class BookingManager {
     public static Booking createBooking(String touristId, String guideId, String attractionId,
             LocalDate visitDate, int numberOfPeople, double baseAmount,
             String specialRequests) throws IOException {
-        String bookingId = generateBookingId();
-        double totalAmount = calculateTotalAmount(baseAmount, numberOfPeople);
+        Booking booking = newBooking(generateBookingId(), touristId, guideId, attractionId, visitDate,
+                numberOfPeople, baseAmount, specialRequests);
+
+        // Fails here, before anything is written, if the attraction or guide is full that day
+        DataManager.reserveCapacity(booking);
+        try {
+            DataManager.saveBooking(booking);
+        } catch (IOException e) {
+            DataManager.releaseCapacity(booking);
+            throw e;
+        }
+        return booking;
+    }
+
+    private static Booking newBooking(String bookingId, String touristId, String guideId, String attractionId,
+            LocalDate visitDate, int numberOfPeople, double baseAmount, String specialRequests) throws IOException {
+        double totalAmount = calculateTotalAmount(attractionId, baseAmount, numberOfPeople, visitDate);
 
         // The Booking model's constructor is:
         // public Booking(String id, String touristUsername, String guideUsername,
@@ -47,54 +71,130 @@ public class BookingManager {
         booking.setNotes(specialRequests);
         booking.setStatus(Booking.BookingStatus.CONFIRMED); // Default status upon creation
         booking.setNumberOfPeople(numberOfPeople); // Set the number of people
-
-        DataManager.saveBooking(booking);
         return booking;
     }
 
+    /**
+     * Books {@code attraction} with the best guide free on {@code visitDate} (see
+     * {@link GuideScheduler#findBestGuide}), or returns null if every guide is taken that day. The
+     * guide's day is held from the moment they are picked, so concurrent bookings pick someone else
+     * without waiting for this one to be written.
+     */
+    public static Booking bookWithAvailableGuide(String touristId, Attraction attraction, LocalDate visitDate,
+            int numberOfPeople, String specialRequests, String language) throws IOException {
+        GuideSkillIndex.Tiers tiers = DataManager.guidesBySuitability(attraction.getCategory(), language);
+        String bookingId = generateBookingId();
+        Guide guide = DataManager.reserveBestGuide(tiers, visitDate, bookingId);
+        if (guide == null) {
+            return null;
+        }
+        Booking booking = null;
+        try {
+            booking = newBooking(bookingId, touristId, guide.getUserId(), attraction.getAttractionId(), visitDate,
+                    numberOfPeople, attraction.getEntryFee(), specialRequests);
+            DataManager.reserveCapacity(booking);
+            DataManager.saveBooking(booking);
+            return booking;
+        } catch (IOException | RuntimeException e) {
+            // Releasing places that were never reserved does nothing
+            if (booking != null) {
+                DataManager.releaseCapacity(booking);
+            }
+            DataManager.releaseGuide(bookingId);
+            throw e;
+        }
+    }
+
+    /**
+     * Books every stop of an {@link ItineraryPlanner.Plan} in one go, or none of them: if any stop
+     * has no free guide or no places left, the guide days and places already held are given back
+     * and nothing is saved. The tourist keeps the same guide from stop to stop while that guide is
+     * free. All the bookings are saved together, with one write to disk.
+     */
+    public static List<Booking> bookItinerary(String touristId, ItineraryPlanner.Plan plan, int numberOfPeople,
+            String specialRequests, String language) throws IOException {
+        // Stops of the same category share their tiers
+        Map<String, GuideSkillIndex.Tiers> tiersByCategory = new HashMap<>();
+        List<String> heldDays = new ArrayList<>(plan.stops().size());
+        List<Booking> reserved = new ArrayList<>(plan.stops().size());
+        try {
+            Guide guide = null;
+            for (ItineraryPlanner.Stop stop : plan.stops()) {
+                Attraction attraction = stop.attraction();
+                String bookingId = generateBookingId();
+                if (guide == null || !DataManager.reserveGuide(guide, stop.date(), bookingId)) {
+                    GuideSkillIndex.Tiers tiers = tiersByCategory.get(attraction.getCategory());
+                    if (tiers == null) {
+                        tiers = DataManager.guidesBySuitability(attraction.getCategory(), language);
+                        tiersByCategory.put(attraction.getCategory(), tiers);
+                    }
+                    guide = DataManager.reserveBestGuide(tiers, stop.date(), bookingId);
+                }
+                if (guide == null) {
+                    throw new CapacityExceededException("No guide is free on " + stop.date() + " for "
+                            + attraction.getName() + ".");
+                }
+                heldDays.add(bookingId);
+                Booking booking = newBooking(bookingId, touristId, guide.getUserId(), attraction.getAttractionId(),
+                        stop.date(), numberOfPeople, attraction.getEntryFee(), specialRequests);
+                DataManager.reserveCapacity(booking);
+                reserved.add(booking);
+            }
+            DataManager.saveBookings(reserved);
+        } catch (IOException | RuntimeException e) {
+            reserved.forEach(DataManager::releaseCapacity);
+            heldDays.forEach(DataManager::releaseGuide);
+            throw e;
+        }
+        return reserved;
+    }
+
     public static List<Booking> getBookingsByTourist(String touristId) throws IOException {
-        return DataManager.loadAllBookings().stream()
-                .filter(booking -> booking.getTouristUsername().equals(touristId)) // Changed getTouristId to
-                                                                                   // getTouristUsername
-                .collect(Collectors.toList());
+        return DataManager.queryBookings(index -> index.findByTourist(touristId));
     }
 
     public static List<Booking> getBookingsByGuide(String guideId) throws IOException {
-        return DataManager.loadAllBookings().stream()
-                .filter(booking -> booking.getGuideUsername().equals(guideId)) // Changed getGuideId to getGuideUsername
-                .collect(Collectors.toList());
+        return DataManager.queryBookings(index -> index.findByGuide(guideId));
+    }
+
+    public static List<Booking> getBookingsByAttraction(String attractionId) throws IOException {
+        return DataManager.queryBookings(index -> index.findByAttraction(attractionId));
     }
 
     public static List<Booking> getUpcomingBookings() throws IOException {
         LocalDate today = LocalDate.now();
-        return DataManager.loadAllBookings().stream()
-                .filter(booking -> booking.getTrekDate().isAfter(today)) // Changed getVisitDate to getTrekDate
-                .collect(Collectors.toList());
+        return DataManager.queryBookings(index -> index.findAfter(today));
+    }
+
+    /** Bookings with a trek date between {@code from} and {@code to}, both inclusive. */
+    public static List<Booking> getBookingsBetween(LocalDate from, LocalDate to) throws IOException {
+        return DataManager.queryBookings(index -> index.findByTrekDate(from, to));
     }
 
     public static List<Booking> loadAllBookings() throws IOException {
         return DataManager.loadAllBookings();
     }
 
-    public static void updateBookingStatus(String bookingId, String newStatus) throws IOException {
-        List<Booking> bookings = DataManager.loadAllBookings();
-
-        // Update booking status in memory
-        bookings.stream()
-                .filter(booking -> booking.getId().equals(bookingId)) // Changed getBookingId to getId
-                .findFirst()
-                .ifPresent(booking -> booking.setStatus(Booking.BookingStatus.valueOf(newStatus))); // Use enum
+    /**
+     * Changes the status if the booking is still at {@code expectedVersion}, the version shown to
+     * the user, and returns the saved booking; throws ConcurrentUpdateException otherwise.
+     */
+    public static Booking updateBookingStatus(String bookingId, int expectedVersion, String newStatus) throws IOException {
+        Booking booking = DataManager.findBookingById(bookingId);
+        if (booking == null) {
+            throw new ConcurrentUpdateException("Booking " + bookingId + " no longer exists.");
+        }
+        Booking changed = new Booking(booking);
+        changed.setStatus(Booking.BookingStatus.valueOf(newStatus)); // Use enum
+        return DataManager.updateBooking(changed, expectedVersion); // One appended record, no file rewrite
+    }
 
-        // Save all bookings
-        saveAllBookings(bookings);
+    public static Booking cancelBooking(String bookingId, int expectedVersion) throws IOException {
+        return updateBookingStatus(bookingId, expectedVersion, Booking.BookingStatus.CANCELLED.name());
     }
 
     public static void saveAllBookings(List<Booking> bookings) throws IOException {
         // Rewrite the entire file with updated data
-        try (PrintWriter writer = new PrintWriter(new FileWriter("Data/bookings.txt"))) {
-            for (Booking booking : bookings) {
-                writer.println(booking.toString());
-            }
-        }
+        DataManager.saveAllBookings(bookings);
     }
 }
@@ -0,0 +1,107 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Booking;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * The one thread that saves new bookings.
+ *
+ * Callers on any thread queue a booking, or several that belong together, and get a future back.
+ * The writer takes everything queued since its last write (up to {@value #MAX_BATCH} requests),
+ * appends it to the booking log in one write followed by one fsync, and then completes all their
+ * futures. Bookings queued together always go in the same write. So a busy moment costs one
+ * disk flush per batch instead of one per booking, and a completed future means the booking is
+ * on disk.
+ *
+ * If a batch cannot be appended its futures fail and the writer carries on. If it was appended
+ * but the flush failed, its futures fail too, but whether the disk kept any of it is unknown
+ * (the bookings may turn up after a restart), so the writer stops: every later booking is
+ * rejected with the flush error until the application is restarted.
+ */
+public class BookingWriter {
+
+    private static final int MAX_BATCH = 1024;
+
+    private record Command(List<Booking> bookings, CompletableFuture<List<Booking>> saved) {
+    }
+
+    private static final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+    private static volatile IOException flushFailure;
+
+    static {
+        Thread writer = new Thread(BookingWriter::run, "booking-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Queues {@code booking} to be saved; the future completes once it is on disk. */
+    public static CompletableFuture<Booking> submit(Booking booking) {
+        return submitAll(List.of(booking)).thenApply(saved -> booking);
+    }
+
+    /** Queues {@code bookings} to be saved in one write; the future completes once all are on disk. */
+    public static CompletableFuture<List<Booking>> submitAll(List<Booking> bookings) {
+        CompletableFuture<List<Booking>> saved = new CompletableFuture<>();
+        IOException failure = flushFailure;
+        if (failure != null) {
+            saved.completeExceptionally(failure);
+            return saved;
+        }
+        queue.add(new Command(List.copyOf(bookings), saved));
+        return saved;
+    }
+
+    private static void run() {
+        List<Command> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private static void commit(List<Command> batch) {
+        if (flushFailure != null) {
+            // Queued before the failure was recorded
+            fail(batch, flushFailure);
+            return;
+        }
+        List<Booking> bookings = new ArrayList<>(batch.size());
+        for (Command command : batch) {
+            bookings.addAll(command.bookings());
+        }
+        try {
+            DataManager.appendBookings(bookings);
+        } catch (IOException | RuntimeException e) {
+            fail(batch, e);
+            return;
+        }
+        try {
+            DataManager.flushBookings(bookings);
+        } catch (IOException | RuntimeException e) {
+            flushFailure = new IOException("The booking log could not be flushed to disk: " + e.getMessage(), e);
+            fail(batch, flushFailure);
+            return;
+        }
+        for (Command command : batch) {
+            command.saved().complete(command.bookings());
+        }
+    }
+
+    private static void fail(List<Command> commands, Exception e) {
+        for (Command command : commands) {
+            command.saved().completeExceptionally(e);
+        }
+    }
+}
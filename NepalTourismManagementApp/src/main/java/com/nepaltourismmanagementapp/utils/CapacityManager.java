@@ -0,0 +1,256 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.exception.CapacityExceededException;
+import com.nepaltourismmanagementapp.model.Booking;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Daily capacity per attraction ({@code nepaltourism.capacity.attraction}, default 100 people) and
+ * per guide ({@code nepaltourism.capacity.guide}, default 15 people).
+ *
+ * A new booking reserves its people with a compare-and-set on the two counters it uses before it is
+ * saved, so bookings for different attractions and days never wait on each other and concurrent
+ * ones for the same day can never go over the limit. The counters are rebuilt from the booking table
+ * whenever it is loaded and follow its changes like {@link BookingAggregates}; cancelled bookings
+ * give their places back. While the table is dropped the counters are empty, so a reservation first
+ * has the table loaded again rather than counting against them.
+ */
+public class CapacityManager implements DataCache.Listener<Booking> {
+
+    private static final int ATTRACTION_CAPACITY = Integer.getInteger("nepaltourism.capacity.attraction", 100);
+    private static final int GUIDE_CAPACITY = Integer.getInteger("nepaltourism.capacity.guide", 15);
+
+    private record Key(String owner, LocalDate date) {
+    }
+
+    /** The places a booking takes, so the same number can be given back. */
+    private record Slot(Key attraction, Key guide, int people) {
+        static Slot of(Booking booking) {
+            if (booking.getStatus() == Booking.BookingStatus.CANCELLED || booking.getTrekDate() == null) {
+                return null;
+            }
+            LocalDate date = booking.getTrekDate();
+            return new Slot(new Key(booking.getAttractionId(), date), new Key(booking.getGuideUsername(), date),
+                    Math.max(booking.getNumberOfPeople(), 1));
+        }
+    }
+
+    private final Map<Key, AtomicInteger> attractionCounts = new ConcurrentHashMap<>();
+    private final Map<Key, AtomicInteger> guideCounts = new ConcurrentHashMap<>();
+    // Reserved but not saved yet, by booking id; they still count if the table is reloaded in between
+    private final Map<String, Slot> pending = new ConcurrentHashMap<>();
+    // Only touched from the listener callbacks, which the booking table makes one at a time
+    private final Map<Booking, Slot> counted = new IdentityHashMap<>();
+    // Bumped whenever an attraction's counters change, so results derived from them can be cached
+    private final Map<String, AtomicInteger> attractionChanges = new ConcurrentHashMap<>();
+    private volatile int rebuilds;
+    // Reservations share the read lock; only a rebuild of the counters needs them all to stop
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private boolean loaded; // guarded by rebuildLock: the counters hold the whole booking table
+    private final DataCache.IoAction loadBookings;
+
+    /** {@code loadBookings} loads the booking table this listens to, which resets the counters. */
+    public CapacityManager(DataCache.IoAction loadBookings) {
+        this.loadBookings = loadBookings;
+    }
+
+    /**
+     * Takes the booking's places on its trek date, or throws if the attraction or guide does not
+     * have that many left. Must be followed by saving the booking or by {@link #release}.
+     */
+    public void reserve(Booking booking) throws IOException {
+        Slot slot = Slot.of(booking);
+        if (slot == null) {
+            return;
+        }
+        while (!tryReserve(booking.getId(), slot)) {
+            loadBookings.run();
+        }
+    }
+
+    /** False, reserving nothing, if the counters are not loaded. */
+    private boolean tryReserve(String bookingId, Slot slot) throws CapacityExceededException {
+        rebuildLock.readLock().lock();
+        try {
+            if (!loaded) {
+                return false;
+            }
+            if (!tryTake(attractionCounts, slot.attraction(), slot.people(), ATTRACTION_CAPACITY)) {
+                throw new CapacityExceededException("Only " + remaining(attractionCounts, slot.attraction(), ATTRACTION_CAPACITY)
+                        + " places are left for this attraction on " + slot.attraction().date() + ".");
+            }
+            if (!tryTake(guideCounts, slot.guide(), slot.people(), GUIDE_CAPACITY)) {
+                give(attractionCounts, slot.attraction(), slot.people());
+                throw new CapacityExceededException("The guide can only take " + remaining(guideCounts, slot.guide(), GUIDE_CAPACITY)
+                        + " more people on " + slot.guide().date() + ".");
+            }
+            pending.put(bookingId, slot);
+            changed(slot);
+            return true;
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /** Gives back the places of a reservation whose booking was not saved. */
+    public void release(Booking booking) {
+        rebuildLock.readLock().lock();
+        try {
+            Slot slot = pending.remove(booking.getId());
+            if (slot != null) {
+                give(attractionCounts, slot.attraction(), slot.people());
+                give(guideCounts, slot.guide(), slot.people());
+                changed(slot);
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    /** People booked (or reserved) for the attraction on {@code date}. */
+    public int takenForAttraction(String attractionId, LocalDate date) {
+        AtomicInteger counter = attractionCounts.get(new Key(attractionId, date));
+        return counter != null ? counter.get() : 0;
+    }
+
+    public int attractionCapacity() {
+        return ATTRACTION_CAPACITY;
+    }
+
+    /**
+     * A number that changes whenever any day's count for the attraction does; equal values mean
+     * nothing was booked, cancelled or reloaded for it in between.
+     */
+    public long changesForAttraction(String attractionId) {
+        AtomicInteger changes = attractionChanges.get(attractionId);
+        return ((long) rebuilds << 32) | (changes != null ? changes.get() & 0xffffffffL : 0);
+    }
+
+    public int remainingForAttraction(String attractionId, LocalDate date) {
+        return remaining(attractionCounts, new Key(attractionId, date), ATTRACTION_CAPACITY);
+    }
+
+    public int remainingForGuide(String guideId, LocalDate date) {
+        return remaining(guideCounts, new Key(guideId, date), GUIDE_CAPACITY);
+    }
+
+    @Override
+    public void reset(List<Booking> rows) {
+        rebuildLock.writeLock().lock();
+        try {
+            attractionCounts.clear();
+            guideCounts.clear();
+            counted.clear();
+            for (Booking booking : rows) {
+                pending.remove(booking.getId());
+                count(booking, Slot.of(booking));
+            }
+            for (Slot slot : pending.values()) {
+                add(slot);
+            }
+            rebuilds++;
+            loaded = true;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void dropped() {
+        rebuildLock.writeLock().lock();
+        try {
+            attractionCounts.clear();
+            guideCounts.clear();
+            counted.clear();
+            rebuilds++;
+            loaded = false;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void added(Booking booking) {
+        Slot reserved = pending.remove(booking.getId());
+        if (reserved != null) {
+            // Its places were taken when it was reserved
+            counted.put(booking, reserved);
+        } else {
+            count(booking, Slot.of(booking));
+        }
+    }
+
+    @Override
+    public void replaced(Booking previous, Booking booking) {
+        uncount(previous);
+        count(booking, Slot.of(booking));
+    }
+
+    @Override
+    public void removed(Booking booking) {
+        uncount(booking);
+    }
+
+    /** Bookings already in the table count even when over the limit, e.g. one set back from cancelled. */
+    private void count(Booking booking, Slot slot) {
+        if (slot != null) {
+            counted.put(booking, slot);
+            add(slot);
+        }
+    }
+
+    private void uncount(Booking booking) {
+        Slot slot = counted.remove(booking);
+        if (slot != null) {
+            give(attractionCounts, slot.attraction(), slot.people());
+            give(guideCounts, slot.guide(), slot.people());
+            changed(slot);
+        }
+    }
+
+    private void add(Slot slot) {
+        counter(attractionCounts, slot.attraction()).addAndGet(slot.people());
+        counter(guideCounts, slot.guide()).addAndGet(slot.people());
+        changed(slot);
+    }
+
+    private void changed(Slot slot) {
+        attractionChanges.computeIfAbsent(slot.attraction().owner(), k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static boolean tryTake(Map<Key, AtomicInteger> counts, Key key, int people, int capacity) {
+        AtomicInteger counter = counter(counts, key);
+        while (true) {
+            int taken = counter.get();
+            if (taken + people > capacity) {
+                return false;
+            }
+            if (counter.compareAndSet(taken, taken + people)) {
+                return true;
+            }
+        }
+    }
+
+    private static void give(Map<Key, AtomicInteger> counts, Key key, int people) {
+        counter(counts, key).addAndGet(-people);
+    }
+
+    private static int remaining(Map<Key, AtomicInteger> counts, Key key, int capacity) {
+        AtomicInteger counter = counts.get(key);
+        return Math.max(capacity - (counter != null ? counter.get() : 0), 0);
+    }
+
+    // Counters are never removed, so a reservation cannot race with a counter being dropped
+    private static AtomicInteger counter(Map<Key, AtomicInteger> counts, Key key) {
+        return counts.computeIfAbsent(key, k -> new AtomicInteger());
+    }
+}
@@ -0,0 +1,238 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Booking;
+import com.nepaltourismmanagementapp.model.User;
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * In-process feed of booking and user changes, so open screens can patch their tables instead of
+ * reloading them.
+ *
+ * The events come from listeners on the booking and user tables, so every change is published
+ * whichever code path made it, right after it is saved. Publishing never blocks the writer: a
+ * subscriber that falls more than {@value #BUFFER_SIZE} events behind gets a {@link Reloaded} in
+ * place of what it missed.
+ */
+public class ChangeFeed {
+
+    private static final int BUFFER_SIZE = 1024;
+
+    public sealed interface Event {
+    }
+
+    /** An event about one booking; {@link #booking()} is the booking as it is now stored. */
+    public sealed interface BookingEvent extends Event {
+        Booking booking();
+    }
+
+    public record BookingCreated(Booking booking) implements BookingEvent {
+    }
+
+    /** A saved change other than a cancellation, usually of the status. */
+    public record BookingStatusChanged(Booking previous, Booking booking) implements BookingEvent {
+    }
+
+    public record BookingCancelled(Booking previous, Booking booking) implements BookingEvent {
+    }
+
+    public record BookingRemoved(Booking booking) implements BookingEvent {
+    }
+
+    /** A user was added or saved; {@link #user()} is the stored user. */
+    public record UserUpdated(User user) implements Event {
+    }
+
+    public record UserRemoved(User user) implements Event {
+    }
+
+    /** Many rows of {@code table} ("bookings" or "users") changed at once; reload what you show. */
+    public record Reloaded(String table) implements Event {
+    }
+
+    private static final ExecutorService delivery = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final SubmissionPublisher<Event> publisher = new SubmissionPublisher<>(delivery, BUFFER_SIZE);
+
+    public static void subscribe(Flow.Subscriber<? super Event> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Calls {@code onEvent} on the JavaFX Application Thread for every event from now on, until the
+     * window showing {@code owner} has been closed or replaced by another scene.
+     */
+    public static void subscribeOnFxThread(Node owner, Consumer<Event> onEvent) {
+        subscribe(new FxSubscriber(owner, onEvent));
+    }
+
+    /**
+     * Puts {@code row} in place of the row with id {@code id} in a displayed list, appends it if the
+     * list has no such row, or removes that row if {@code row} is null. Returns true if the list
+     * changed.
+     */
+    public static <T> boolean apply(List<T> rows, Function<T, String> idOf, String id, T row) {
+        for (int i = 0; i < rows.size(); i++) {
+            if (Objects.equals(idOf.apply(rows.get(i)), id)) {
+                if (row == null) {
+                    rows.remove(i);
+                } else {
+                    rows.set(i, row);
+                }
+                return true;
+            }
+        }
+        if (row == null) {
+            return false;
+        }
+        rows.add(row);
+        return true;
+    }
+
+    static void publish(Event event) {
+        publisher.offer(event, (subscriber, dropped) -> {
+            if (subscriber instanceof FxSubscriber fx) {
+                fx.missed = true;
+            }
+            return false;
+        });
+    }
+
+    /** Publishes the booking table's changes; registered by {@link DataManager}. */
+    static class BookingEvents implements DataCache.Listener<Booking> {
+        private boolean loaded;
+
+        @Override
+        public void reset(List<Booking> rows) {
+            // The first load is not news; a reload or bulk rewrite of loaded rows is
+            if (loaded) {
+                publish(new Reloaded("bookings"));
+            }
+            loaded = !rows.isEmpty();
+        }
+
+        @Override
+        public void added(Booking booking) {
+            loaded = true;
+            publish(new BookingCreated(booking));
+        }
+
+        @Override
+        public void replaced(Booking previous, Booking booking) {
+            if (booking.getStatus() == Booking.BookingStatus.CANCELLED
+                    && (previous == booking || previous.getStatus() != Booking.BookingStatus.CANCELLED)) {
+                publish(new BookingCancelled(previous, booking));
+            } else {
+                publish(new BookingStatusChanged(previous, booking));
+            }
+        }
+
+        @Override
+        public void removed(Booking booking) {
+            publish(new BookingRemoved(booking));
+        }
+    }
+
+    /** Publishes the user table's changes; registered by {@link DataManager}. */
+    static class UserEvents implements DataCache.Listener<User> {
+        private boolean loaded;
+
+        @Override
+        public void reset(List<User> rows) {
+            if (loaded) {
+                publish(new Reloaded("users"));
+            }
+            loaded = !rows.isEmpty();
+        }
+
+        @Override
+        public void added(User user) {
+            loaded = true;
+            publish(new UserUpdated(user));
+        }
+
+        @Override
+        public void replaced(User previous, User user) {
+            publish(new UserUpdated(user));
+        }
+
+        @Override
+        public void removed(User user) {
+            publish(new UserRemoved(user));
+        }
+    }
+
+    private static final class FxSubscriber implements Flow.Subscriber<Event> {
+        private final Node owner;
+        private final Consumer<Event> onEvent;
+        private Flow.Subscription subscription;
+        private boolean shown; // only touched on the FX thread
+        volatile boolean missed;
+
+        FxSubscriber(Node owner, Consumer<Event> onEvent) {
+            this.owner = owner;
+            this.onEvent = onEvent;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(Event event) {
+            Event next = event;
+            if (missed) {
+                missed = false;
+                // Resync both tables: the dropped events may have been about either
+                deliver(new Reloaded("users"));
+                next = new Reloaded("bookings");
+            }
+            deliver(next);
+        }
+
+        private void deliver(Event event) {
+            Platform.runLater(() -> {
+                if (isClosed()) {
+                    subscription.cancel();
+                    return;
+                }
+                onEvent.accept(event);
+            });
+        }
+
+        private boolean isClosed() {
+            Scene scene = owner.getScene();
+            Window window = scene != null ? scene.getWindow() : null;
+            if (window != null && window.isShowing()) {
+                shown = true;
+                return false;
+            }
+            return shown;
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            System.out.println("Warning: change feed stopped: " + throwable.getMessage());
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.nepaltourismmanagementapp.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Reads a line based data file and maps every line, splitting large files into newline-aligned
+ * byte ranges that are read and parsed in parallel on the common fork-join pool. Results are
+ * returned in file order. Small files, and machines with a single core, are read on the calling
+ * thread.
+ *
+ * Chunks are read into heap arrays rather than memory mapped: a mapping stays open until it is
+ * garbage collected, and on Windows an open mapping stops compaction from replacing the file.
+ */
+public final class ChunkedLoader {
+
+    // Below this size the fork-join overhead costs more than it saves
+    private static final long PARALLEL_THRESHOLD = 1 << 20;
+    private static final long MIN_CHUNK_SIZE = 256 * 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ChunkedLoader() {
+    }
+
+    /**
+     * Applies {@code mapper} to every non-empty line (without its line terminator). Lines the mapper
+     * returns null for are left out.
+     */
+    public static <T> List<T> load(Path file, Function<String, T> mapper) throws IOException {
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() < 2) {
+                return parse(channel, 0, size, mapper);
+            }
+            List<long[]> ranges = split(channel, size);
+            List<ChunkTask<T>> tasks = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                tasks.add(new ChunkTask<>(channel, range[0], range[1], mapper));
+            }
+            try {
+                ForkJoinPool.commonPool().invoke(new MergeTask<>(tasks));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            int total = 0;
+            for (ChunkTask<T> task : tasks) {
+                total += task.rows().size();
+            }
+            List<T> rows = new ArrayList<>(total);
+            for (ChunkTask<T> task : tasks) {
+                rows.addAll(task.rows());
+            }
+            return rows;
+        }
+    }
+
+    /** Cuts {@code [0, size)} into ranges that each end just after a newline (or at end of file). */
+    private static List<long[]> split(FileChannel channel, long size) throws IOException {
+        int chunks = Math.max(1, ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD);
+        long chunkSize = Math.max(MIN_CHUNK_SIZE, size / chunks);
+        List<long[]> ranges = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = start + chunkSize >= size ? size : nextLineStart(channel, start + chunkSize, size);
+            ranges.add(new long[]{start, end});
+            start = end;
+        }
+        return ranges;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        long position = from;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static <T> List<T> parse(FileChannel channel, long start, long end, Function<String, T> mapper)
+            throws IOException {
+        List<T> rows = new ArrayList<>();
+        if (end <= start) {
+            return rows;
+        }
+        byte[] bytes = readRange(channel, start, end);
+        int lineStart = 0;
+        for (int i = 0; i <= bytes.length; i++) {
+            if (i < bytes.length && bytes[i] != '\n') {
+                continue;
+            }
+            int lineEnd = i;
+            if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            if (lineEnd > lineStart) {
+                T row = mapper.apply(new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+            lineStart = i + 1;
+        }
+        return rows;
+    }
+
+    /**
+     * The bytes of {@code [start, end)}, read with positional reads so that several threads can
+     * read one channel at once.
+     */
+    static byte[] readRange(FileChannel channel, long start, long end) throws IOException {
+        byte[] bytes = new byte[Math.toIntExact(end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("File shrank while it was being read");
+            }
+        }
+        return bytes;
+    }
+
+    private static final class ChunkTask<T> extends RecursiveTask<List<T>> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final Function<String, T> mapper;
+
+        ChunkTask(FileChannel channel, long start, long end, Function<String, T> mapper) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.mapper = mapper;
+        }
+
+        List<T> rows() {
+            return getRawResult();
+        }
+
+        @Override
+        protected List<T> compute() {
+            try {
+                return parse(channel, start, end, mapper);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static final class MergeTask<T> extends RecursiveTask<Void> {
+        private final List<ChunkTask<T>> tasks;
+
+        MergeTask(List<ChunkTask<T>> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected Void compute() {
+            ForkJoinTask.invokeAll(tasks);
+            return null;
+        }
+    }
+}
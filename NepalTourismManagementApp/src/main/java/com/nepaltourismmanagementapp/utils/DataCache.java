@@ -0,0 +1,360 @@
+package com.nepaltourismmanagementapp.utils;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide cache of the parsed data files.
+ *
+ * Each file is parsed once into a {@link Table}; writes made through DataManager/BookingManager
+ * update the table in place. A WatchService on the data directory drops a table when its file is
+ * changed by another process, so the next read parses the file again.
+ */
+public class DataCache {
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        List<T> load() throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface IoAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * Receives every change to a table's rows, e.g. to maintain secondary indexes. Called while the
+     * table's lock is held.
+     */
+    public interface Listener<T> {
+        /** The table was (re)loaded with {@code rows}; called before the table reports itself loaded. */
+        void reset(List<T> rows);
+
+        /** The table was dropped; called after it stopped reporting itself loaded. */
+        default void dropped() {
+            reset(List.of());
+        }
+
+        void added(T row);
+
+        /** {@code row} replaced {@code previous}; both may be the same instance after an in-place edit. */
+        void replaced(T previous, T row);
+
+        void removed(T row);
+    }
+
+    private static final Map<Path, Table<?>> tables = new ConcurrentHashMap<>();
+    private static volatile Thread watcherThread;
+
+    /**
+     * Registers a table backed by {@code files} (the data file plus any companion files such as its
+     * record log); a change to any of them invalidates the table.
+     */
+    public static <T> Table<T> register(Function<T, String> idOf, Loader<T> loader, Path... files) {
+        List<Path> paths = new ArrayList<>();
+        for (Path file : files) {
+            paths.add(file.toAbsolutePath().normalize());
+        }
+        Table<T> table = new Table<>(paths, idOf, loader);
+        for (Path path : paths) {
+            tables.put(path, table);
+        }
+        return table;
+    }
+
+    /** Drops every table; the next read of each file re-parses it. */
+    public static void invalidateAll() {
+        tables.values().forEach(Table::invalidate);
+    }
+
+    private static void ensureWatcher(Path dir) {
+        if (watcherThread != null || !Files.isDirectory(dir)) {
+            return;
+        }
+        synchronized (DataCache.class) {
+            if (watcherThread != null) {
+                return;
+            }
+            try {
+                WatchService watchService = FileSystems.getDefault().newWatchService();
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                Thread thread = new Thread(() -> watchLoop(dir, watchService), "data-file-watcher");
+                thread.setDaemon(true);
+                thread.start();
+                watcherThread = thread;
+            } catch (IOException e) {
+                System.out.println("Warning: data file watching unavailable: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void watchLoop(Path dir, WatchService watchService) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        invalidateAll();
+                        continue;
+                    }
+                    Path changed = dir.resolve((Path) event.context());
+                    Table<?> table = tables.get(changed);
+                    if (table != null) {
+                        table.onFileEvent();
+                    }
+                }
+                if (!key.reset()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+        invalidateAll();
+        watcherThread = null;
+    }
+
+    /**
+     * Fingerprint (modification time and size of each file) used to tell our own writes apart
+     * from changes made by other processes.
+     */
+    private record Stamp(List<Long> parts) {
+        static Stamp of(List<Path> files) {
+            List<Long> parts = new ArrayList<>(files.size() * 2);
+            for (Path file : files) {
+                try {
+                    parts.add(Files.getLastModifiedTime(file).toMillis());
+                    parts.add(Files.size(file));
+                } catch (IOException e) {
+                    parts.add(-1L);
+                    parts.add(-1L);
+                }
+            }
+            return new Stamp(parts);
+        }
+    }
+
+    /**
+     * Cached rows of one data file, in file order. Rows are also indexed by id (first occurrence
+     * wins, matching the old find-first loops), and each row knows its position in the list, by
+     * identity, so replacing one is constant time.
+     */
+    public static final class Table<T> {
+        private final List<Path> files;
+        private final Function<T, String> idOf;
+        private final Loader<T> loader;
+        private final List<Listener<T>> listeners = new ArrayList<>();
+        private volatile List<T> rows; // null until loaded or after invalidation
+        private Map<String, T> byId;
+        private Map<T, Integer> positionOf;
+        private Stamp stamp;
+
+        private Table(List<Path> files, Function<T, String> idOf, Loader<T> loader) {
+            this.files = files;
+            this.idOf = idOf;
+            this.loader = loader;
+        }
+
+        public synchronized void addListener(Listener<T> listener) {
+            listeners.add(listener);
+            if (rows != null) {
+                listener.reset(rows);
+            }
+        }
+
+        /** Runs {@code query} against the loaded table while no write can interleave. */
+        public synchronized <R> R query(Supplier<R> query) throws IOException {
+            ensureLoaded();
+            return query.get();
+        }
+
+        /**
+         * True if the rows are loaded and every listener has been reset with them; unlike the other
+         * methods this never waits for a writer.
+         */
+        public boolean isLoaded() {
+            return rows != null;
+        }
+
+        /** Loads the rows if they are not loaded yet, without copying them like {@link #getAll}. */
+        public synchronized void load() throws IOException {
+            ensureLoaded();
+        }
+
+        /** True if the rows are loaded and the files have not been changed by anyone else since. */
+        public synchronized boolean isCurrent() {
+            return rows != null && Stamp.of(files).equals(stamp);
+        }
+
+        public synchronized List<T> getAll() throws IOException {
+            ensureLoaded();
+            return new ArrayList<>(rows);
+        }
+
+        public synchronized T get(String id) throws IOException {
+            ensureLoaded();
+            return byId.get(id);
+        }
+
+        /** Like {@link #get}, but reloads first if someone else changed the files since we read them. */
+        public synchronized T getLatest(String id) throws IOException {
+            if (rows != null && !Stamp.of(files).equals(stamp)) {
+                invalidate();
+            }
+            return get(id);
+        }
+
+        public synchronized int size() throws IOException {
+            ensureLoaded();
+            return rows.size();
+        }
+
+        /**
+         * Runs a write against the backing file and then applies {@code change} to the cached rows.
+         * If the file was modified by someone else since we last looked at it, the table is dropped
+         * instead so the next read picks up both changes.
+         */
+        public synchronized void write(IoAction io, Runnable change) throws IOException {
+            boolean stale = rows != null && !Stamp.of(files).equals(stamp);
+            io.run();
+            if (stale) {
+                invalidate();
+                return;
+            }
+            stamp = Stamp.of(files);
+            if (rows != null) {
+                change.run();
+            }
+        }
+
+        public synchronized void add(T row) {
+            if (rows == null)
+                return;
+            positionOf.put(row, rows.size());
+            rows.add(row);
+            byId.putIfAbsent(idOf.apply(row), row);
+            listeners.forEach(listener -> listener.added(row));
+        }
+
+        /** Like {@link #add}, unless a row with the same id is cached already. */
+        public synchronized void addIfAbsent(T row) {
+            if (rows != null && !byId.containsKey(idOf.apply(row))) {
+                add(row);
+            }
+        }
+
+        public synchronized void put(T row) {
+            if (rows == null)
+                return;
+            String id = idOf.apply(row);
+            T existing = byId.get(id);
+            if (existing == null) {
+                add(row);
+                return;
+            }
+            if (existing != row) {
+                int position = positionOf.remove(existing);
+                rows.set(position, row);
+                positionOf.put(row, position);
+                byId.put(id, row);
+            }
+            listeners.forEach(listener -> listener.replaced(existing, row));
+        }
+
+        public synchronized void remove(String id) {
+            if (rows == null)
+                return;
+            // Close the gaps in one pass, moving the rows after them down with their positions
+            int kept = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                T row = rows.get(i);
+                if (Objects.equals(idOf.apply(row), id)) {
+                    positionOf.remove(row);
+                    listeners.forEach(listener -> listener.removed(row));
+                    continue;
+                }
+                if (kept != i) {
+                    rows.set(kept, row);
+                    positionOf.put(row, kept);
+                }
+                kept++;
+            }
+            rows.subList(kept, rows.size()).clear();
+            byId.remove(id);
+        }
+
+        public synchronized void setAll(List<T> all) {
+            List<T> replacement = new ArrayList<>(all);
+            reindex(replacement);
+            rows = replacement;
+        }
+
+        /**
+         * Accepts the current state of the files as our own, e.g. after a compaction that rewrote
+         * them without changing their content.
+         */
+        public synchronized void refreshStamp() {
+            if (rows != null) {
+                stamp = Stamp.of(files);
+            }
+        }
+
+        public synchronized void invalidate() {
+            boolean loaded = rows != null;
+            // Unpublished first, so nobody skips loading while the listeners are already empty
+            rows = null;
+            byId = null;
+            positionOf = null;
+            if (loaded) {
+                listeners.forEach(Listener::dropped);
+            }
+        }
+
+        private synchronized void onFileEvent() {
+            if (rows != null && !Stamp.of(files).equals(stamp)) {
+                invalidate();
+            }
+        }
+
+        private void ensureLoaded() throws IOException {
+            if (rows != null) {
+                return;
+            }
+            ensureWatcher(files.get(0).getParent());
+            Stamp before = Stamp.of(files);
+            List<T> loaded = new ArrayList<>(loader.load());
+            stamp = before;
+            reindex(loaded);
+            // Published last, so isLoaded() is only true once every listener has the rows
+            rows = loaded;
+        }
+
+        private void reindex(List<T> all) {
+            byId = new HashMap<>(Math.max(16, all.size() * 2));
+            positionOf = new IdentityHashMap<>(all.size());
+            for (int i = 0; i < all.size(); i++) {
+                T row = all.get(i);
+                byId.putIfAbsent(idOf.apply(row), row);
+                positionOf.put(row, i);
+            }
+            listeners.forEach(listener -> listener.reset(all));
+        }
+    }
+}
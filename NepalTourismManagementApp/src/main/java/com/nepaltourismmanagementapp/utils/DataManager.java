@@ -1,17 +1,103 @@
 package com.nepaltourismmanagementapp.utils;
 
+import com.nepaltourismmanagementapp.exception.ConcurrentUpdateException;
 import com.nepaltourismmanagementapp.model.*;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
 
 public class DataManager {
     private static final String DATA_DIR = "Data/";
     private static final String USERS_FILE = DATA_DIR + "users.txt";
     private static final String ATTRACTIONS_FILE = DATA_DIR + "attractions.txt";
     private static final String BOOKINGS_FILE = DATA_DIR + "bookings.txt";
+    private static final Path FESTIVALS_FILE = Path.of(DATA_DIR + "festivals.txt");
+
+    // Text files plus append-only change logs; see RecordLog
+    private static final RecordLog usersLog = new RecordLog(USERS_FILE);
+    private static final RecordLog attractionsLog = new RecordLog(ATTRACTIONS_FILE);
+    private static final RecordLog bookingsLog = new RecordLog(BOOKINGS_FILE);
+
+    // Binary copies of the parsed files for fast startup; see Snapshot
+    private static final Path USERS_SNAPSHOT = Path.of(USERS_FILE + ".snap");
+    private static final Path ATTRACTIONS_SNAPSHOT = Path.of(ATTRACTIONS_FILE + ".snap");
+    private static final Path BOOKINGS_SNAPSHOT = Path.of(BOOKINGS_FILE + ".snap");
+    private static final ExecutorService snapshotWriter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Parsed once per process and kept in sync by the write methods below
+    private static final DataCache.Table<User> users = DataCache.register(User::getUserId,
+            DataManager::readUsers, usersLog.getBaseFile(), usersLog.getLogFile());
+    private static final DataCache.Table<Attraction> attractions = DataCache.register(Attraction::getAttractionId,
+            DataManager::readAttractions, attractionsLog.getBaseFile(), attractionsLog.getLogFile());
+    private static final DataCache.Table<Booking> bookings = DataCache.register(Booking::getId,
+            DataManager::readBookings, bookingsLog.getBaseFile(), bookingsLog.getLogFile());
+    // Edited by hand, never written by the app once created; the watcher picks up changes
+    private static final DataCache.Table<Festival> festivals = DataCache.register(Festival::getId,
+            DataManager::readFestivals, FESTIVALS_FILE);
+    private static final FestivalCalendar festivalCalendar = new FestivalCalendar();
+    private static final BookingIndex bookingIndex = new BookingIndex();
+    private static final BookingColumns bookingColumns = new BookingColumns();
+    private static final BookingAggregates bookingAggregates = new BookingAggregates();
+    private static final AttractionCatalog attractionCatalog = new AttractionCatalog();
+    private static final AttractionSearchIndex attractionSearchIndex = new AttractionSearchIndex();
+    private static final AttractionGeoIndex attractionGeoIndex = new AttractionGeoIndex();
+    private static final AttractionFacets attractionFacets = new AttractionFacets();
+    private static final UserIndex userIndex = new UserIndex();
+    private static final GuideSkillIndex guideSkillIndex = new GuideSkillIndex();
+    private static final GuideScheduler guideScheduler = new GuideScheduler(bookings::load);
+    private static final CapacityManager capacityManager = new CapacityManager(bookings::load);
+    private static final AttractionRecommender attractionRecommender = new AttractionRecommender();
+
+    static {
+        bookings.addListener(bookingIndex);
+        bookings.addListener(bookingColumns);
+        bookings.addListener(bookingAggregates);
+        bookings.addListener(guideScheduler);
+        bookings.addListener(capacityManager);
+        bookings.addListener(attractionRecommender);
+        attractions.addListener(attractionCatalog);
+        attractions.addListener(attractionSearchIndex);
+        attractions.addListener(attractionGeoIndex);
+        attractions.addListener(attractionFacets);
+        users.addListener(userIndex);
+        users.addListener(guideSkillIndex);
+        festivals.addListener(festivalCalendar);
+        // Last, so the indexes are up to date by the time anyone hears about a change
+        bookings.addListener(new ChangeFeed.BookingEvents());
+        users.addListener(new ChangeFeed.UserEvents());
+        usersLog.setCompactionListener(() -> {
+            users.refreshStamp();
+            saveSnapshot(users, usersLog, USERS_SNAPSHOT, UserCodec.SNAPSHOT_KIND, UserCodec::writeBinary);
+        });
+        attractionsLog.setCompactionListener(() -> {
+            attractions.refreshStamp();
+            saveSnapshot(attractions, attractionsLog, ATTRACTIONS_SNAPSHOT, AttractionCodec.SNAPSHOT_KIND,
+                    AttractionCodec::writeBinary);
+        });
+        bookingsLog.setCompactionListener(() -> {
+            bookings.refreshStamp();
+            saveSnapshot(bookings, bookingsLog, BOOKINGS_SNAPSHOT, BookingCodec.SNAPSHOT_KIND,
+                    BookingCodec::writeBinary);
+        });
+    }
 
     public static void initializeDataFiles() {
         try {
@@ -30,6 +116,10 @@ public class DataManager {
                 createDefaultAttractions();
             }
 
+            if (!Files.exists(FESTIVALS_FILE)) {
+                createDefaultFestivals();
+            }
+
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -38,7 +128,8 @@ public class DataManager {
     private static void createDefaultAdmin() throws IOException {
         // UPDATED: Added phone number (empty string) to Admin constructor
         Admin admin = new Admin("ADM001", "admin", "admin123", "admin@tourism.np", "System Administrator", "SUPER");
-        saveUser(admin);
+        hashPassword(admin);
+        users.write(() -> usersLog.rewrite(List.of(UserCodec.encode(admin))), () -> users.setAll(List.of(admin)));
     }
 
     private static void createDefaultAttractions() throws IOException {
@@ -61,219 +152,450 @@ public class DataManager {
                         "Wildlife sanctuary with rhinos and tigers", "गैंडा र बाघसहितको वन्यजन्तु अभयारण्य",
                         "Wildlife", 2000.0, "chitwan.jpg", 4.6, true));
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(ATTRACTIONS_FILE))) {
-            for (Attraction attraction : attractions) {
-                writer.println(attraction.toString());
-            }
+        writeAllAttractions(attractions);
+    }
+
+    private static void createDefaultFestivals() throws IOException {
+        // Approximate dates; the lunar festivals move every year, so correct them in the file
+        List<Festival> defaults = Arrays.asList(
+                new Festival("Maghe Sankranti", LocalDate.of(2026, 1, 15), LocalDate.of(2026, 1, 15), 0.10),
+                new Festival("Holi", LocalDate.of(2026, 3, 2), LocalDate.of(2026, 3, 3), 0.10),
+                new Festival("Buddha Jayanti", LocalDate.of(2026, 5, 1), LocalDate.of(2026, 5, 1), 0.12),
+                new Festival("Gunhu Punhi", LocalDate.of(2026, 8, 28), LocalDate.of(2026, 8, 28), 0.08),
+                new Festival("Dashain", LocalDate.of(2026, 10, 11), LocalDate.of(2026, 10, 25), 0.20),
+                new Festival("Tihar", LocalDate.of(2026, 11, 7), LocalDate.of(2026, 11, 11), 0.15));
+        List<String> lines = new ArrayList<>();
+        lines.add("# name,startDate,endDate,discountRate (dates inclusive)");
+        for (Festival festival : defaults) {
+            lines.add(FestivalCodec.encode(festival));
         }
+        Files.write(FESTIVALS_FILE, lines, StandardCharsets.UTF_8);
     }
 
-    public static void saveUser(User user) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(USERS_FILE, true))) {
-            writer.println(user.toString());
+    private static List<Festival> readFestivals() throws IOException {
+        List<Festival> result = new ArrayList<>();
+        if (!Files.exists(FESTIVALS_FILE)) {
+            return result;
         }
+        for (String line : Files.readAllLines(FESTIVALS_FILE, StandardCharsets.UTF_8)) {
+            Festival festival = FestivalCodec.decode(line);
+            if (festival != null) {
+                result.add(festival);
+            }
+        }
+        return result;
     }
 
-    // NEW METHOD: To update an existing user
-    public static void updateUser(User updatedUser) throws IOException {
-        List<User> allUsers = loadAllUsers();
-        boolean found = false;
-        for (int i = 0; i < allUsers.size(); i++) {
-            if (allUsers.get(i).getUserId().equals(updatedUser.getUserId())) {
-                allUsers.set(i, updatedUser); // Replace the old user with the updated one
-                found = true;
-                break;
+    /**
+     * The festival discounts, reloaded first if festivals.txt changed since it was read. Once
+     * loaded this takes no lock, so pricing can call it for every date it quotes.
+     */
+    public static FestivalCalendar festivalCalendar() {
+        if (!festivalCalendar.isCompiled()) {
+            try {
+                festivals.load(); // Compiles the calendar as its listener
+            } catch (IOException e) {
+                System.out.println("Warning: could not read festivals, keeping the previous ones: " + e.getMessage());
             }
         }
-        if (!found) {
-            throw new IOException("User with ID " + updatedUser.getUserId() + " not found for update.");
+        return festivalCalendar;
+    }
+
+    public static void saveUser(User user) throws IOException {
+        hashPassword(user);
+        users.write(() -> usersLog.appendInsert(UserCodec.encode(user)), () -> users.add(user));
+    }
+
+    /**
+     * Saves {@code updatedUser} if the stored user is still at {@code expectedVersion}, the version
+     * the caller started editing from, and bumps its version. Otherwise throws
+     * ConcurrentUpdateException and saves nothing. Change a copy ({@link User#copy}) rather than
+     * the cached user, so a rejected change is not left behind in the cache.
+     */
+    public static void updateUser(User updatedUser, int expectedVersion) throws IOException {
+        String userId = updatedUser.getUserId();
+        hashPassword(updatedUser);
+        users.write(() -> {
+            User current = users.getLatest(userId);
+            if (current == null || current.getVersion() != expectedVersion) {
+                throw new ConcurrentUpdateException(conflictMessage("User " + userId, current));
+            }
+            updatedUser.setVersion(expectedVersion + 1);
+            try {
+                // Append the new version; the old one is dropped at the next compaction
+                usersLog.appendUpdate(UserCodec.encode(updatedUser));
+            } catch (IOException e) {
+                updatedUser.setVersion(expectedVersion);
+                throw e;
+            }
+        }, () -> users.put(updatedUser));
+    }
+
+    public static void deleteUser(String userId) throws IOException {
+        users.write(() -> usersLog.appendDelete(userId), () -> users.remove(userId));
+    }
+
+    public static List<User> loadAllUsers() throws IOException {
+        return users.getAll();
+    }
+
+    public static User findUserByUsername(String username) throws IOException {
+        return users.query(() -> userIndex.findByUsername(username));
+    }
+
+    public static boolean isUsernameTaken(String username) throws IOException {
+        return users.query(() -> userIndex.isTaken(username));
+    }
+
+    public static List<Guide> loadAllGuides() throws IOException {
+        return users.query(userIndex::guides);
+    }
+
+    /** Guides speaking all of {@code languages} and specialized in all of {@code specializations}; see {@link GuideSkillIndex}. */
+    public static List<Guide> findGuides(Collection<String> languages, Collection<String> specializations)
+            throws IOException {
+        return users.query(() -> guideSkillIndex.find(languages, specializations));
+    }
+
+    /** Every guide, in the tiers {@link GuideScheduler#findBestGuide} picks from for a booking. */
+    public static GuideSkillIndex.Tiers guidesBySuitability(String category, String language) throws IOException {
+        return users.query(() -> guideSkillIndex.tiers(category, language));
+    }
+
+    /** Passwords are only ever written as hashes; plaintext ones (new or legacy) are hashed here. */
+    private static void hashPassword(User user) {
+        if (user.getPassword() != null && !PasswordHasher.isHashed(user.getPassword())) {
+            user.setPassword(PasswordHasher.hash(user.getPassword()));
         }
+    }
+
+    public static User findUserById(String userId) throws IOException {
+        return users.get(userId);
+    }
+
+    private static List<User> readUsers() throws IOException {
+        return readTable(users, usersLog, USERS_SNAPSHOT, UserCodec.SNAPSHOT_KIND,
+                UserCodec::readBinary, UserCodec::writeBinary, UserCodec::decode);
+    }
+
+    public static List<Attraction> loadAllAttractions() throws IOException {
+        return attractions.getAll();
+    }
+
+    public static Attraction findAttractionById(String attractionId) throws IOException {
+        return attractions.get(attractionId);
+    }
+
+    /** Runs a lookup against the attraction id index, loading the attractions first if needed. */
+    public static <R> R queryAttractions(Function<AttractionCatalog, R> query) throws IOException {
+        return attractions.query(() -> query.apply(attractionCatalog));
+    }
+
+    /** Active attractions matching {@code query}, best rated first; see {@link AttractionSearchIndex}. */
+    public static List<Attraction> searchAttractions(String query, int limit) throws IOException {
+        return attractions.query(() -> attractionSearchIndex.search(query, limit));
+    }
+
+    /** Filters the attractions by the sidebar's choices; see {@link AttractionFacets}. */
+    public static AttractionFacets.Result filterAttractions(Map<AttractionFacets.Facet, Set<String>> selection,
+            AttractionFacets.Order order, int limit) throws IOException {
+        return filterAttractions(null, selection, order, limit);
+    }
+
+    /**
+     * Like {@link #filterAttractions(Map, AttractionFacets.Order, int)}, among the attractions
+     * matching {@code search} when it is not blank, so results and counts both respect the search.
+     */
+    public static AttractionFacets.Result filterAttractions(String search,
+            Map<AttractionFacets.Facet, Set<String>> selection, AttractionFacets.Order order, int limit)
+            throws IOException {
+        return attractions.query(() -> attractionFacets.query(
+                search == null || search.isBlank() ? null : attractionSearchIndex.matching(search),
+                selection, order, limit));
+    }
 
-        // Rewrite the entire users file
-        try (PrintWriter writer = new PrintWriter(new FileWriter(USERS_FILE, false))) { // false to overwrite
-            for (User user : allUsers) {
-                writer.println(user.toString());
+    /**
+     * Open attractions the tourist has not booked yet, picked by {@link AttractionRecommender} from
+     * what other tourists booked together. Takes no table lock once both tables are loaded.
+     */
+    public static List<Attraction> recommendAttractions(String touristId, int limit) throws IOException {
+        if (!bookings.isLoaded()) {
+            bookings.getAll();
+        }
+        if (!attractions.isLoaded()) {
+            attractions.getAll();
+        }
+        List<String> picks = attractionRecommender.recommend(touristId, limit, attractionId -> {
+            Attraction attraction = attractionCatalog.findById(attractionId);
+            return attraction != null && attraction.isActive();
+        });
+        List<Attraction> result = new ArrayList<>(picks.size());
+        for (String attractionId : picks) {
+            Attraction attraction = attractionCatalog.findById(attractionId);
+            if (attraction != null) {
+                result.add(attraction);
             }
         }
+        return result;
     }
 
-    public static List<User> loadAllUsers() throws IOException {
-        List<User> users = new ArrayList<>();
-        File file = new File(USERS_FILE);
-        if (!file.exists())
-            return users;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                User user = parseUser(line);
-                if (user != null) {
-                    users.add(user);
-                }
+    /** Runs a nearest or radius lookup against the {@link AttractionGeoIndex}. */
+    public static <R> R queryNearby(Function<AttractionGeoIndex, R> query) throws IOException {
+        return attractions.query(() -> query.apply(attractionGeoIndex));
+    }
+
+    public static void saveAttraction(Attraction attraction) throws IOException {
+        attractions.write(() -> attractionsLog.appendInsert(AttractionCodec.encode(attraction)), () -> attractions.add(attraction));
+    }
+
+    public static void updateAttraction(Attraction updatedAttraction) throws IOException {
+        synchronized (attractions) {
+            if (attractions.get(updatedAttraction.getAttractionId()) == null) {
+                return; // Nothing to update, as before
             }
+            attractions.write(() -> attractionsLog.appendUpdate(AttractionCodec.encode(updatedAttraction)),
+                    () -> attractions.put(updatedAttraction));
         }
-        return users;
-    }
-
-    private static User parseUser(String line) {
-        String[] parts = line.split(",", -1); // Use -1 to keep trailing empty strings
-        // User.toString() now produces 7 parts:
-        // userId,username,password,email,fullName,phone,userType
-        if (parts.length < 7)
-            return null; // Minimum parts for a User
-
-        String userType = parts[6]; // userType is now at index 6
-        String userId = parts[0];
-        String username = parts[1];
-        String password = parts[2];
-        String email = parts[3];
-        String fullName = parts[4];
-        String phone = parts[5]; // phone is now at index 5
-
-        switch (userType) {
-            case "ADMIN":
-                if (parts.length >= 8) { // Admin adds 1 more field (adminLevel)
-                    return new Admin(userId, username, password, email, fullName, parts[7]);
-                }
-                break;
-            case "TOURIST":
-                // Tourist.toString() is super.toString() + "," + nationality + "," + age;
-                // So, 7 (from User) + 2 = 9 parts total
-                if (parts.length >= 9) {
-                    return new Tourist(userId, username, password, email, fullName,
-                            parts[7], phone, Integer.parseInt(parts[8])); // nationality, phone (from User), age
-                }
-                break;
-            case "GUIDE":
-                // Guide.toString() is super.toString() + "," + licenseNumber + "," + languages
-                // + "," + specializations + "," + rating + "," + experienceYears;
-                // So, 7 (from User) + 5 = 12 parts total
-                if (parts.length >= 12) {
-                    List<String> languages = parts[8].isEmpty() ? new ArrayList<>()
-                            : Arrays.asList(parts[8].split(";"));
-                    List<String> specializations = parts[9].isEmpty() ? new ArrayList<>()
-                            : Arrays.asList(parts[9].split(";"));
-                    return new Guide(userId, username, password, email, fullName, phone, // Pass phone
-                            parts[7], languages, specializations, Double.parseDouble(parts[10]),
-                            Integer.parseInt(parts[11]));
-                }
-                break;
+    }
+
+    public static void deleteAttraction(String attractionId) throws IOException {
+        attractions.write(() -> attractionsLog.appendDelete(attractionId), () -> attractions.remove(attractionId));
+    }
+
+    private static void writeAllAttractions(List<Attraction> allAttractions) throws IOException {
+        attractions.write(() -> attractionsLog.rewrite(encodeAll(allAttractions, AttractionCodec::encode)), () -> attractions.setAll(allAttractions));
+    }
+
+    private static List<Attraction> readAttractions() throws IOException {
+        return readTable(attractions, attractionsLog, ATTRACTIONS_SNAPSHOT, AttractionCodec.SNAPSHOT_KIND,
+                AttractionCodec::readBinary, AttractionCodec::writeBinary, AttractionCodec::decode);
+    }
+
+    /**
+     * Reserves the places a new booking needs, or throws a CapacityExceededException if they are
+     * not free. Takes no lock once the bookings are loaded; the capacity manager loads them itself
+     * if they are not, or were dropped in the meantime.
+     */
+    public static void reserveCapacity(Booking booking) throws IOException {
+        capacityManager.reserve(booking);
+    }
+
+    public static void releaseCapacity(Booking booking) {
+        capacityManager.release(booking);
+    }
+
+    /**
+     * Picks the best guide free on {@code date} and holds their day for the booking
+     * {@code bookingId}; see {@link GuideScheduler#reserveBestGuide}. Like {@link #reserveCapacity}
+     * this takes no lock once the bookings are loaded, and the scheduler loads them if they are not.
+     */
+    public static Guide reserveBestGuide(GuideSkillIndex.Tiers tiers, LocalDate date, String bookingId)
+            throws IOException {
+        return guideScheduler.reserveBestGuide(tiers, date, bookingId);
+    }
+
+    /** Holds {@code guide}'s day for the booking {@code bookingId} if they are still free that day. */
+    public static boolean reserveGuide(Guide guide, LocalDate date, String bookingId) throws IOException {
+        return guideScheduler.reserve(guide, date, bookingId);
+    }
+
+    public static void releaseGuide(String bookingId) {
+        guideScheduler.release(bookingId);
+    }
+
+    /**
+     * People booked for the attraction on {@code date}, for pricing by demand. Like
+     * {@link #reserveCapacity} this takes no lock once the bookings are loaded.
+     */
+    public static int attractionOccupancy(String attractionId, LocalDate date) throws IOException {
+        if (!bookings.isLoaded()) {
+            bookings.getAll();
         }
-        return null;
+        return capacityManager.takenForAttraction(attractionId, date);
     }
 
-    public static List<Attraction> loadAllAttractions() throws IOException {
-        List<Attraction> attractions = new ArrayList<>();
-        File file = new File(ATTRACTIONS_FILE);
-        if (!file.exists())
-            return attractions;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Attraction attraction = parseAttraction(line);
-                if (attraction != null) {
-                    attractions.add(attraction);
-                }
-            }
+    /** See {@link CapacityManager#changesForAttraction}; loads the bookings first if needed. */
+    public static long attractionOccupancyChanges(String attractionId) throws IOException {
+        if (!bookings.isLoaded()) {
+            bookings.getAll();
         }
-        return attractions;
+        return capacityManager.changesForAttraction(attractionId);
+    }
+
+    public static int attractionCapacity() {
+        return capacityManager.attractionCapacity();
     }
 
-    private static Attraction parseAttraction(String line) {
+    /** Reads the remaining daily capacity, loading the bookings first if needed. */
+    public static <R> R queryCapacity(Function<CapacityManager, R> query) throws IOException {
+        return bookings.query(() -> query.apply(capacityManager));
+    }
+
+    /**
+     * Saves a new booking through the {@link BookingWriter} and waits until it is on disk. Must not
+     * be called while holding the booking table's lock, which the writer needs.
+     */
+    public static void saveBooking(Booking booking) throws IOException {
+        await(BookingWriter.submit(booking));
+    }
+
+    /** Like {@link #saveBooking}, for bookings that must be written together or not at all. */
+    public static void saveBookings(List<Booking> newBookings) throws IOException {
+        await(BookingWriter.submitAll(newBookings));
+    }
+
+    private static void await(CompletableFuture<?> saved) throws IOException {
         try {
-            String[] parts = line.split(",");
-            if (parts.length >= 11) {
-                // Create attraction with basic constructor first
-                Attraction attraction = new Attraction(
-                        parts[0], // attractionId
-                        parts[1], // name
-                        parts[2], // nameNepali
-                        parts[3], // location
-                        parts[4], // description
-                        parts[5], // descriptionNepali
-                        parts[6], // category
-                        Double.parseDouble(parts[7]), // entryFee
-                        parts[8], // imageUrl
-                        Double.parseDouble(parts[9]), // rating
-                        Boolean.parseBoolean(parts[10]) // isActive
-                );
-
-                // Handle additional location fields if they exist
-                if (parts.length >= 15) {
-                    if (parts.length > 11 && !parts[11].isEmpty())
-                        attraction.setDistrict(parts[11]);
-                    if (parts.length > 12 && !parts[12].isEmpty())
-                        attraction.setProvince(parts[12]);
-                    if (parts.length > 13 && !parts[13].isEmpty()) {
-                        try {
-                            attraction.setLatitude(Double.parseDouble(parts[13]));
-                        } catch (NumberFormatException e) {
-                            System.out.println("Warning: Invalid latitude format for " + parts[1] + ": " + parts[13]);
-                        }
-                    }
-                    if (parts.length > 14 && !parts[14].isEmpty()) {
-                        try {
-                            attraction.setLongitude(Double.parseDouble(parts[14]));
-                        } catch (NumberFormatException e) {
-                            System.out.println("Warning: Invalid longitude format for " + parts[1] + ": " + parts[14]);
-                        }
-                    }
-                }
-                return attraction;
+            saved.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Appends new bookings to the log with one write; called by the {@link BookingWriter}, which
+     * then calls {@link #flushBookings}. Throws if the append failed, in which case nothing was saved.
+     */
+    static void appendBookings(List<Booking> newBookings) throws IOException {
+        List<String> lines = encodeAll(newBookings, BookingCodec::encode);
+        bookings.write(() -> bookingsLog.appendInserts(lines), () -> {
+        });
+    }
+
+    /**
+     * Flushes bookings appended by {@link #appendBookings} to disk and only then puts them in the
+     * cache; throws if the flush failed, leaving them out. The fsync runs without the table lock so
+     * other threads can keep reading and reserving meanwhile. A table reloaded in between has read
+     * the bookings from the log already, so only those it lacks are added.
+     */
+    static void flushBookings(List<Booking> newBookings) throws IOException {
+        bookingsLog.force();
+        bookings.write(() -> {
+        }, () -> newBookings.forEach(bookings::addIfAbsent));
+    }
+
+    /**
+     * Persists a changed booking as a single appended record if the stored booking is still at
+     * {@code expectedVersion}, and bumps its version; otherwise throws ConcurrentUpdateException.
+     * Change a copy ({@link Booking#Booking(Booking)}) rather than the cached booking, so a
+     * rejected change is not left behind in the cache.
+     */
+    public static Booking updateBooking(Booking booking, int expectedVersion) throws IOException {
+        String bookingId = booking.getId();
+        bookings.write(() -> {
+            Booking current = bookings.getLatest(bookingId);
+            if (current == null || current.getVersion() != expectedVersion) {
+                throw new ConcurrentUpdateException(conflictMessage("Booking " + bookingId, current));
             }
-            return null;
-        } catch (NumberFormatException e) {
-            System.out.println("Error parsing attraction: " + e.getMessage() + " in line: " + line);
-            // Create a dummy attraction with default values for testing
+            booking.setVersion(expectedVersion + 1);
             try {
-                String[] parts = line.split(",");
-                if (parts.length >= 11) {
-                    return new Attraction(
-                            parts[0], // id
-                            parts[1], // name
-                            parts[2], // nameNepali
-                            parts[3], // location
-                            parts[4], // description
-                            parts[5], // descriptionNepali
-                            parts[6], // category
-                            1000.0, // default entryFee
-                            parts[8], // imageUrl
-                            4.5, // default rating
-                            true // default isActive
-                    );
-                }
-            } catch (Exception ex) {
-                System.out.println("Failed to create dummy attraction: " + ex.getMessage());
+                bookingsLog.appendUpdate(BookingCodec.encode(booking));
+            } catch (IOException e) {
+                booking.setVersion(expectedVersion);
+                throw e;
             }
-            return null;
-        } catch (Exception e) {
-            System.out.println("Unexpected error parsing attraction: " + e.getMessage());
-            return null;
-        }
+        }, () -> bookings.put(booking));
+        return booking;
     }
 
-    public static void saveBooking(Booking booking) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(BOOKINGS_FILE, true))) {
-            writer.println(booking.toString());
-        }
+    private static String conflictMessage(String record, Object current) {
+        return current == null
+                ? record + " no longer exists."
+                : record + " was changed by someone else. Please reload it and try again.";
+    }
+
+    public static void saveAllBookings(List<Booking> allBookings) throws IOException {
+        bookings.write(() -> bookingsLog.rewrite(encodeAll(allBookings, BookingCodec::encode)), () -> bookings.setAll(allBookings));
     }
 
     public static List<Booking> loadAllBookings() throws IOException {
-        List<Booking> bookings = new ArrayList<>();
-        File file = new File(BOOKINGS_FILE);
-        if (!file.exists())
-            return bookings;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Booking booking = Booking.fromString(line); // Use Booking's static fromString
-                if (booking != null) {
-                    bookings.add(booking);
+        return bookings.getAll();
+    }
+
+    public static Booking findBookingById(String bookingId) throws IOException {
+        return bookings.query(() -> bookingIndex.findById(bookingId));
+    }
+
+    /** Runs a lookup against the booking indexes, loading the bookings first if needed. */
+    public static <R> R queryBookings(Function<BookingIndex, R> query) throws IOException {
+        return bookings.query(() -> query.apply(bookingIndex));
+    }
+
+    /** Reads the running booking totals, loading the bookings first if needed. */
+    public static <R> R queryBookingTotals(Function<BookingAggregates, R> query) throws IOException {
+        return bookings.query(() -> query.apply(bookingAggregates));
+    }
+
+    /** Looks up the guides' booked dates, loading the bookings first if needed. */
+    public static <R> R queryGuideSchedule(Function<GuideScheduler, R> query) throws IOException {
+        return bookings.query(() -> query.apply(guideScheduler));
+    }
+
+    /** Runs an aggregate over the columnar copy of the bookings, loading them first if needed. */
+    public static <R> R queryBookingStats(Function<BookingColumns, R> query) throws IOException {
+        return bookings.query(() -> query.apply(bookingColumns));
+    }
+
+    private static List<Booking> readBookings() throws IOException {
+        return readTable(bookings, bookingsLog, BOOKINGS_SNAPSHOT, BookingCodec.SNAPSHOT_KIND,
+                BookingCodec::readBinary, BookingCodec::writeBinary, BookingCodec::decode);
+    }
+
+    /**
+     * Loads a table from its snapshot when that is still up to date, otherwise from the text file
+     * and log. After a text load a fresh snapshot is made in the background: right away if the log
+     * is empty, or by compacting first.
+     */
+    private static <T> List<T> readTable(DataCache.Table<T> table, RecordLog log, Path snapshot, String kind,
+            Snapshot.RowReader<T> binaryReader, Snapshot.RowWriter<T> binaryWriter,
+            Function<String, T> textDecoder) throws IOException {
+        List<Path> sources = List.of(log.getBaseFile(), log.getLogFile());
+        List<T> rows = Snapshot.read(snapshot, kind, sources, binaryReader);
+        if (rows != null) {
+            log.loadedWithEmptyLog(rows.size());
+            return rows;
+        }
+        rows = log.readLive(textDecoder);
+        if (log.isLogEmpty()) {
+            saveSnapshot(table, log, snapshot, kind, binaryWriter);
+        } else {
+            log.compactInBackground();
+        }
+        return rows;
+    }
+
+    /**
+     * Writes the table's rows to its snapshot if they match the files and the log is empty. Runs on
+     * the snapshot thread when called with the table locked (e.g. from inside a load or write), so
+     * the rows it sees include the change in progress.
+     */
+    private static <T> void saveSnapshot(DataCache.Table<T> table, RecordLog log, Path snapshot, String kind,
+            Snapshot.RowWriter<T> binaryWriter) {
+        if (Thread.holdsLock(table)) {
+            snapshotWriter.execute(() -> saveSnapshot(table, log, snapshot, kind, binaryWriter));
+            return;
+        }
+        synchronized (table) {
+            try {
+                if (!table.isCurrent() || !log.isLogEmpty()) {
+                    return;
                 }
+                Snapshot.write(snapshot, kind, List.of(log.getBaseFile(), log.getLogFile()), table.getAll(),
+                        binaryWriter);
+            } catch (IOException e) {
+                System.out.println("Warning: could not write snapshot " + snapshot + ": " + e.getMessage());
             }
         }
-        return bookings;
     }
-}
\ No newline at end of file
+
+    private static <T> List<String> encodeAll(List<T> rows, Function<T, String> encoder) {
+        List<String> lines = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            lines.add(encoder.apply(row));
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,136 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Festival;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The festival discounts from festivals.txt, compiled into one array slot per day between the
+ * first festival's start and the last one's end.
+ *
+ * Looking up a trek date is an index into that array, with no locking and no allocation, so pricing
+ * many dates at once costs next to nothing. Where festivals overlap, the larger discount wins (the
+ * earlier line in the file on a tie). As a listener on the festivals table it is recompiled on
+ * every reload, before the table reports itself loaded; while the table is dropped it keeps the
+ * previous festivals and {@link #isCompiled} is false until {@link DataManager#festivalCalendar()}
+ * reloads it.
+ */
+public class FestivalCalendar implements DataCache.Listener<Festival> {
+
+    // A festival longer than this is a typo in the file, not a reason to allocate years of slots
+    private static final int MAX_FESTIVAL_DAYS = 60;
+
+    private record Compiled(long firstDay, double[] rates, short[] festivalOf, String[] names) {
+    }
+
+    private static final Compiled EMPTY = new Compiled(0, new double[0], new short[0], new String[] { null });
+
+    private volatile Compiled compiled = EMPTY;
+    private volatile int generation;
+    private volatile boolean current; // compiled from the festivals table as loaded now
+    private final List<Festival> festivals = new ArrayList<>(); // guarded by the table's lock
+
+    /** True once compiled from the loaded festivals table, false again after it was dropped. */
+    public boolean isCompiled() {
+        return current;
+    }
+
+    @Override
+    public void reset(List<Festival> rows) {
+        festivals.clear();
+        festivals.addAll(rows);
+        compile();
+        current = true;
+    }
+
+    @Override
+    public void dropped() {
+        current = false; // Keep pricing with the previous festivals until the reload
+    }
+
+    @Override
+    public void added(Festival row) {
+        festivals.add(row);
+        compile();
+    }
+
+    @Override
+    public void replaced(Festival previous, Festival row) {
+        festivals.replaceAll(festival -> festival == previous ? row : festival);
+        compile();
+    }
+
+    @Override
+    public void removed(Festival row) {
+        festivals.remove(row);
+        compile();
+    }
+
+    /** Replaces the compiled calendar with one for {@link #festivals}. */
+    private void compile() {
+        List<Festival> kept = new ArrayList<>(festivals.size());
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        for (Festival festival : festivals) {
+            long start = festival.getStartDate().toEpochDay();
+            long end = festival.getEndDate().toEpochDay();
+            if (end - start >= MAX_FESTIVAL_DAYS || kept.size() == Short.MAX_VALUE) {
+                System.out.println("Warning: ignoring festival " + festival);
+                continue;
+            }
+            kept.add(festival);
+            first = Math.min(first, start);
+            last = Math.max(last, end);
+        }
+        if (kept.isEmpty()) {
+            compiled = EMPTY;
+            generation++;
+            return;
+        }
+
+        double[] rates = new double[(int) (last - first + 1)];
+        short[] festivalOf = new short[rates.length]; // index into names; 0 means no festival
+        String[] names = new String[kept.size() + 1];
+        for (int i = 0; i < kept.size(); i++) {
+            Festival festival = kept.get(i);
+            names[i + 1] = festival.getName();
+            int from = (int) (festival.getStartDate().toEpochDay() - first);
+            int to = (int) (festival.getEndDate().toEpochDay() - first);
+            for (int day = from; day <= to; day++) {
+                if (festivalOf[day] == 0 || festival.getDiscountRate() > rates[day]) {
+                    rates[day] = festival.getDiscountRate();
+                    festivalOf[day] = (short) (i + 1);
+                }
+            }
+        }
+        compiled = new Compiled(first, rates, festivalOf, names);
+        generation++; // after the swap, so a result stamped with the new generation used the new rates
+    }
+
+    /** Changes every time the calendar is reloaded. */
+    public int generation() {
+        return generation;
+    }
+
+    /** Share of the price taken off on the day {@code epochDay}, 0 outside every festival. */
+    public double discountRate(long epochDay) {
+        Compiled calendar = compiled;
+        long slot = epochDay - calendar.firstDay();
+        return slot >= 0 && slot < calendar.rates().length ? calendar.rates()[(int) slot] : 0.0;
+    }
+
+    public double discountRate(LocalDate date) {
+        return discountRate(date.toEpochDay());
+    }
+
+    /** Name of the festival whose discount applies on {@code date}, or null. */
+    public String festivalOn(LocalDate date) {
+        Compiled calendar = compiled;
+        long slot = date.toEpochDay() - calendar.firstDay();
+        return slot >= 0 && slot < calendar.festivalOf().length
+                ? calendar.names()[calendar.festivalOf()[(int) slot]]
+                : null;
+    }
+}
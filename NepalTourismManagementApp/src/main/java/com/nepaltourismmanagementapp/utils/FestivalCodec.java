@@ -0,0 +1,50 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Festival;
+
+/**
+ * Reads and writes the festivals.txt line format: name,startDate,endDate,discountRate with
+ * yyyy-MM-dd dates (both inclusive) and the rate as a fraction, e.g. 0.20. Blank lines and lines
+ * starting with '#' are comments.
+ */
+public final class FestivalCodec {
+
+    private static final int FIELDS = 4;
+
+    private FestivalCodec() {
+    }
+
+    public static String encode(Festival festival) {
+        return new RecordFields.Writer(64)
+                .field(festival.getName())
+                .field(festival.getStartDate())
+                .field(festival.getEndDate())
+                .field(festival.getDiscountRate())
+                .toString();
+    }
+
+    /** Returns null for comments and for lines that cannot be parsed. */
+    public static Festival decode(CharSequence line) {
+        if (line.isEmpty() || line.charAt(0) == '#' || line.toString().isBlank()) {
+            return null;
+        }
+        RecordFields.Reader reader = new RecordFields.Reader(line);
+        if (reader.remaining() < FIELDS) {
+            System.out.println("Warning: skipping malformed festival line: " + line);
+            return null;
+        }
+        try {
+            Festival festival = new Festival(reader.nextString().trim(), reader.nextDate(), reader.nextDate(),
+                    reader.nextDouble());
+            if (festival.getEndDate().isBefore(festival.getStartDate())
+                    || festival.getDiscountRate() < 0 || festival.getDiscountRate() > 1) {
+                System.out.println("Warning: skipping festival with invalid dates or discount: " + line);
+                return null;
+            }
+            return festival;
+        } catch (RuntimeException e) {
+            System.out.println("Warning: skipping malformed festival line: " + line);
+            return null;
+        }
+    }
+}
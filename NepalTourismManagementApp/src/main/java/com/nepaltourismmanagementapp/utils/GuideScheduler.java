@@ -0,0 +1,265 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Booking;
+import com.nepaltourismmanagementapp.model.Guide;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Booked trek dates per guide, for picking a free guide when a tourist books.
+ *
+ * Every guide has a map of how many bookings they lead on each day, kept up to date by the booking
+ * table like {@link BookingAggregates}, so checking one guide for a date is two hash lookups.
+ * Picking a guide still checks every guide of the best matching tier (see {@link #findBestGuide}),
+ * so it costs time in proportion to the size of that tier; {@link GuideSkillIndex} keeps the tiers
+ * small by matching on skills first. Cancelled bookings do not take up a day. A guide can lead
+ * {@code nepaltourism.guide.daily.bookings} groups a day (default 1).
+ *
+ * A new booking holds its guide's day with a compare-and-set on the day's count before it is
+ * saved, the same way {@link CapacityManager} holds places, so two tourists booking at once never
+ * get the same free day and neither waits for the other's booking to reach the disk. While the
+ * booking table is dropped the counts are empty, so a reservation then has it loaded again first.
+ */
+public class GuideScheduler implements DataCache.Listener<Booking> {
+
+    private static final int DAILY_BOOKINGS = Integer.getInteger("nepaltourism.guide.daily.bookings", 1);
+
+    /** The guide and date a booking takes up, so the same day can be freed again. */
+    private record Slot(String guide, LocalDate trekDate, boolean open) {
+        static Slot of(Booking booking) {
+            Booking.BookingStatus status = booking.getStatus();
+            if (status == Booking.BookingStatus.CANCELLED || booking.getGuideUsername() == null
+                    || booking.getTrekDate() == null) {
+                return null;
+            }
+            return new Slot(booking.getGuideUsername(), booking.getTrekDate(),
+                    status != Booking.BookingStatus.COMPLETED);
+        }
+    }
+
+    // Counters are never removed, so a reservation cannot race with a counter being dropped
+    private static final class Schedule {
+        final Map<LocalDate, AtomicInteger> bookingsByDate = new ConcurrentHashMap<>();
+        // Bookings not yet completed or cancelled, used to spread new bookings evenly
+        final AtomicInteger openBookings = new AtomicInteger();
+    }
+
+    private final Map<String, Schedule> byGuide = new ConcurrentHashMap<>();
+    // Held but not saved yet, by booking id; they still count if the table is reloaded in between
+    private final Map<String, Slot> pending = new ConcurrentHashMap<>();
+    // Only touched from the listener callbacks, which the booking table makes one at a time
+    private final Map<Booking, Slot> counted = new IdentityHashMap<>();
+    // Reservations share the read lock; only a rebuild of the counts needs them all to stop
+    private final ReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private boolean loaded; // guarded by rebuildLock: the counts hold the whole booking table
+    private final DataCache.IoAction loadBookings;
+
+    /** {@code loadBookings} loads the booking table this listens to, which resets the counts. */
+    public GuideScheduler(DataCache.IoAction loadBookings) {
+        this.loadBookings = loadBookings;
+    }
+
+    @Override
+    public void reset(List<Booking> rows) {
+        rebuildLock.writeLock().lock();
+        try {
+            byGuide.clear();
+            counted.clear();
+            for (Booking booking : rows) {
+                pending.remove(booking.getId());
+                count(booking);
+            }
+            for (Slot slot : pending.values()) {
+                add(slot, 1);
+            }
+            loaded = true;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void dropped() {
+        rebuildLock.writeLock().lock();
+        try {
+            byGuide.clear();
+            counted.clear();
+            loaded = false;
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void added(Booking booking) {
+        // Counted before its hold is let go, so the day never looks free in between
+        count(booking);
+        Slot held = pending.remove(booking.getId());
+        if (held != null) {
+            add(held, -1);
+        }
+    }
+
+    @Override
+    public void replaced(Booking previous, Booking booking) {
+        // previous may be the same instance, already changed in place, so remove by its snapshot
+        Slot old = counted.remove(previous);
+        count(booking);
+        if (old != null) {
+            add(old, -1);
+        }
+    }
+
+    @Override
+    public void removed(Booking booking) {
+        Slot slot = counted.remove(booking);
+        if (slot != null) {
+            add(slot, -1);
+        }
+    }
+
+    /** Number of bookings the guide leads (or has held) on {@code date}. */
+    public int bookingsOn(String guideId, LocalDate date) {
+        Schedule schedule = byGuide.get(guideId);
+        AtomicInteger count = schedule != null ? schedule.bookingsByDate.get(date) : null;
+        return count != null ? count.get() : 0;
+    }
+
+    public boolean isFree(Guide guide, LocalDate date) {
+        return guide.isAvailable() && bookingsOn(guide.getUserId(), date) < DAILY_BOOKINGS;
+    }
+
+    /**
+     * The best guide free on {@code date}, or null if none is. The first of the {@code tiers} (see
+     * {@link GuideSkillIndex#tiers}) with a free guide is used, and within it the guide with the
+     * fewest open bookings and then the best rated; the tiers after it are never looked at.
+     */
+    public Guide findBestGuide(GuideSkillIndex.Tiers tiers, LocalDate date) {
+        Guide[] guides = tiers.guides();
+        for (BitSet tier : tiers.tiers()) {
+            Guide best = null;
+            int bestLoad = 0;
+            for (int i = tier.nextSetBit(0); i >= 0; i = tier.nextSetBit(i + 1)) {
+                Guide guide = guides[i];
+                if (!guide.isAvailable()) {
+                    continue;
+                }
+                // One lookup for both the day's bookings and the load, rather than isFree's own
+                Schedule schedule = byGuide.get(guide.getUserId());
+                int load = 0;
+                if (schedule != null) {
+                    AtomicInteger count = schedule.bookingsByDate.get(date);
+                    if (count != null && count.get() >= DAILY_BOOKINGS) {
+                        continue;
+                    }
+                    load = schedule.openBookings.get();
+                }
+                if (best == null || load < bestLoad || (load == bestLoad && guide.getRating() > best.getRating())) {
+                    best = guide;
+                    bestLoad = load;
+                }
+            }
+            if (best != null) {
+                return best;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Like {@link #findBestGuide}, but also holds the guide's day for the booking {@code bookingId}.
+     * Must be followed by saving that booking or by {@link #release}.
+     */
+    public Guide reserveBestGuide(GuideSkillIndex.Tiers tiers, LocalDate date, String bookingId)
+            throws IOException {
+        while (true) {
+            rebuildLock.readLock().lock();
+            try {
+                while (loaded) {
+                    Guide best = findBestGuide(tiers, date);
+                    if (best == null || take(best, date, bookingId)) {
+                        return best;
+                    }
+                    // Another booking took that guide's last place of the day meanwhile; pick again
+                }
+            } finally {
+                rebuildLock.readLock().unlock();
+            }
+            loadBookings.run();
+        }
+    }
+
+    /** Holds {@code guide}'s day for the booking {@code bookingId} if they are free; see {@link #reserveBestGuide}. */
+    public boolean reserve(Guide guide, LocalDate date, String bookingId) throws IOException {
+        while (true) {
+            rebuildLock.readLock().lock();
+            try {
+                if (loaded) {
+                    return guide.isAvailable() && take(guide, date, bookingId);
+                }
+            } finally {
+                rebuildLock.readLock().unlock();
+            }
+            loadBookings.run();
+        }
+    }
+
+    /** Lets go of the day held for a booking that was not saved. */
+    public void release(String bookingId) {
+        rebuildLock.readLock().lock();
+        try {
+            Slot slot = pending.remove(bookingId);
+            if (slot != null) {
+                add(slot, -1);
+            }
+        } finally {
+            rebuildLock.readLock().unlock();
+        }
+    }
+
+    private boolean take(Guide guide, LocalDate date, String bookingId) {
+        Schedule schedule = schedule(guide.getUserId());
+        AtomicInteger count = schedule.bookingsByDate.computeIfAbsent(date, d -> new AtomicInteger());
+        while (true) {
+            int taken = count.get();
+            if (taken >= DAILY_BOOKINGS) {
+                return false;
+            }
+            if (count.compareAndSet(taken, taken + 1)) {
+                break;
+            }
+        }
+        schedule.openBookings.incrementAndGet();
+        pending.put(bookingId, new Slot(guide.getUserId(), date, true));
+        return true;
+    }
+
+    private void count(Booking booking) {
+        Slot slot = Slot.of(booking);
+        if (slot != null) {
+            counted.put(booking, slot);
+            add(slot, 1);
+        }
+    }
+
+    private void add(Slot slot, int delta) {
+        Schedule schedule = schedule(slot.guide());
+        schedule.bookingsByDate.computeIfAbsent(slot.trekDate(), d -> new AtomicInteger()).addAndGet(delta);
+        if (slot.open()) {
+            schedule.openBookings.addAndGet(delta);
+        }
+    }
+
+    private Schedule schedule(String guideId) {
+        return byGuide.computeIfAbsent(guideId, k -> new Schedule());
+    }
+}
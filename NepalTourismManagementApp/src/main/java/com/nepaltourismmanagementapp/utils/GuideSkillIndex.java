@@ -0,0 +1,235 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Guide;
+import com.nepaltourismmanagementapp.model.User;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bitset index over the guides' languages and specializations, for assigning guides and the
+ * admin's guide search.
+ *
+ * Every language and specialization seen is given a number (compared trimmed and ignoring case),
+ * each guide's skills are kept as a mask of those numbers, and each number has a bitset of the
+ * guide slots that have it. "Speaks Japanese and German, specializes in Mountain" is then the AND
+ * of three bitsets, and the match tiers used to pick a guide for a booking are a few ANDs and
+ * AND-NOTs, however many guides there are.
+ *
+ * Only guides get a slot in the {@link SlotTable}; the other users are ignored, and a user edited
+ * into or out of being a guide is added or removed like any other guide.
+ */
+public class GuideSkillIndex implements DataCache.Listener<User> {
+
+    /**
+     * The guides split by how well they suit a booking, best tier first: each tier holds the
+     * numbers of its guides in {@code guides}. A snapshot, so it can be read without any lock.
+     */
+    public record Tiers(Guide[] guides, List<BitSet> tiers) {
+    }
+
+    /** A guide's languages and specializations as filed, so they can be unset after an in-place edit. */
+    private record Skills(BitSet languages, BitSet specializations) {
+    }
+
+    /** Numbers for the values of one kind of skill, and the guides having each of them. */
+    private static final class Dictionary {
+        final Map<String, Integer> numberOf = new HashMap<>();
+        final List<BitSet> guidesWith = new ArrayList<>();
+
+        BitSet encode(List<String> values) {
+            BitSet mask = new BitSet();
+            for (String value : values) {
+                String key = normalize(value);
+                if (key.isEmpty()) {
+                    continue;
+                }
+                Integer number = numberOf.get(key);
+                if (number == null) {
+                    number = guidesWith.size();
+                    numberOf.put(key, number);
+                    guidesWith.add(new BitSet());
+                }
+                mask.set(number);
+            }
+            return mask;
+        }
+
+        /** The guides having {@code value}, or null if no guide ever had it. */
+        BitSet guidesWith(String value) {
+            Integer number = numberOf.get(normalize(value));
+            return number != null ? guidesWith.get(number) : null;
+        }
+
+        void clear() {
+            numberOf.clear();
+            guidesWith.clear();
+        }
+    }
+
+    private final Dictionary languages = new Dictionary();
+    private final Dictionary specializations = new Dictionary();
+    private final SlotTable<Guide, Skills> slots = new SlotTable<>();
+
+    @Override
+    public synchronized void reset(List<User> rows) {
+        languages.clear();
+        specializations.clear();
+        slots.clear();
+        for (User user : rows) {
+            added(user);
+        }
+    }
+
+    @Override
+    public synchronized void added(User user) {
+        if (user instanceof Guide guide) {
+            Skills skills = skillsOf(guide);
+            file(slots.add(guide, skills), skills);
+        }
+    }
+
+    @Override
+    public synchronized void replaced(User previous, User user) {
+        Integer slot = previous instanceof Guide guide ? slots.slotOf(guide) : null;
+        if (slot == null) {
+            added(user);
+            return;
+        }
+        unfile(slot);
+        if (user instanceof Guide guide) {
+            Skills skills = skillsOf(guide);
+            slots.set(slot, guide, skills);
+            file(slot, skills);
+        } else {
+            slots.remove(slot);
+        }
+    }
+
+    @Override
+    public synchronized void removed(User user) {
+        Integer slot = user instanceof Guide guide ? slots.slotOf(guide) : null;
+        if (slot == null) {
+            return;
+        }
+        unfile(slot);
+        slots.remove(slot);
+        if (slots.isWorn()) {
+            reset(new ArrayList<>(slots.liveRows()));
+        }
+    }
+
+    /**
+     * Guides speaking every one of {@code wantedLanguages} and specialized in every one of
+     * {@code wantedSpecializations}, in table order. Leaving both empty lists every guide.
+     */
+    public synchronized List<Guide> find(Collection<String> wantedLanguages, Collection<String> wantedSpecializations) {
+        BitSet matches = (BitSet) slots.live().clone();
+        if (!narrow(matches, languages, wantedLanguages) || !narrow(matches, specializations, wantedSpecializations)) {
+            return List.of();
+        }
+        return guidesIn(matches);
+    }
+
+    /**
+     * Every guide, split by how well they suit a booking: specialized in {@code category} and
+     * speaking {@code language}, then only specialized, then only speaking it, then the rest. Each
+     * tier is in table order.
+     */
+    public synchronized Tiers tiers(String category, String language) {
+        BitSet specialized = category != null ? specializations.guidesWith(category) : null;
+        BitSet speaking = language != null ? languages.guidesWith(language) : null;
+        BitSet both = and(specialized, speaking);
+        BitSet onlySpecialized = andNot(specialized, speaking);
+        BitSet onlySpeaking = andNot(speaking, specialized);
+        BitSet rest = (BitSet) slots.live().clone();
+        if (specialized != null) {
+            rest.andNot(specialized);
+        }
+        if (speaking != null) {
+            rest.andNot(speaking);
+        }
+        Guide[] guides = new Guide[slots.size()];
+        for (int slot = 0; slot < guides.length; slot++) {
+            guides[slot] = slots.get(slot);
+        }
+        return new Tiers(guides, List.of(both, onlySpecialized, onlySpeaking, rest));
+    }
+
+    /** ANDs in the guides having each of {@code wanted}; false once nothing can match any more. */
+    private static boolean narrow(BitSet matches, Dictionary dictionary, Collection<String> wanted) {
+        for (String value : wanted) {
+            if (normalize(value).isEmpty()) {
+                continue;
+            }
+            BitSet guides = dictionary.guidesWith(value);
+            if (guides == null) {
+                return false;
+            }
+            matches.and(guides);
+            if (matches.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Both return a new bitset; a null one (a value no guide has) matches nothing
+    private static BitSet and(BitSet bits, BitSet other) {
+        if (bits == null || other == null) {
+            return new BitSet();
+        }
+        BitSet result = (BitSet) bits.clone();
+        result.and(other);
+        return result;
+    }
+
+    private static BitSet andNot(BitSet bits, BitSet other) {
+        if (bits == null) {
+            return new BitSet();
+        }
+        BitSet result = (BitSet) bits.clone();
+        if (other != null) {
+            result.andNot(other);
+        }
+        return result;
+    }
+
+    private List<Guide> guidesIn(BitSet bits) {
+        List<Guide> result = new ArrayList<>(bits.cardinality());
+        for (int slot = bits.nextSetBit(0); slot >= 0; slot = bits.nextSetBit(slot + 1)) {
+            result.add(slots.get(slot));
+        }
+        return result;
+    }
+
+    static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Skills skillsOf(Guide guide) {
+        return new Skills(languages.encode(guide.getLanguages()), specializations.encode(guide.getSpecializations()));
+    }
+
+    private void file(int slot, Skills skills) {
+        setAll(languages, skills.languages(), slot, true);
+        setAll(specializations, skills.specializations(), slot, true);
+    }
+
+    private void unfile(int slot) {
+        Skills skills = slots.filed(slot);
+        setAll(languages, skills.languages(), slot, false);
+        setAll(specializations, skills.specializations(), slot, false);
+    }
+
+    private static void setAll(Dictionary dictionary, BitSet mask, int slot, boolean value) {
+        for (int number = mask.nextSetBit(0); number >= 0; number = mask.nextSetBit(number + 1)) {
+            dictionary.guidesWith.get(number).set(slot, value);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Attraction;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Orders a set of attractions into a trip with as little travelling between them as it can find.
+ *
+ * The distances between the stops come from their coordinates ({@link AttractionGeoIndex#distanceKm})
+ * and are cached per set of stops, so replanning the same trip with other dates costs nothing. The
+ * order is a nearest-neighbour route from every stop in turn, each improved with 2-opt (reversing
+ * any stretch of the route that makes it shorter) until nothing improves; the starts are run in
+ * parallel on the common fork-join pool and the shortest route wins. A 15-stop trip takes well
+ * under a millisecond. The route is open: it does not come back to the first stop.
+ *
+ * The stops are then spread evenly over the date range in visiting order, and
+ * {@link BookingManager#bookItinerary} books the whole plan at once.
+ */
+public class ItineraryPlanner {
+
+    // Plenty for the trips being edited at any one time; cleared rather than evicted one by one
+    private static final int MAX_CACHED_MATRICES = 256;
+
+    /** One visit of the plan and the distance travelled to it from the stop before. */
+    public record Stop(Attraction attraction, LocalDate date, double kmFromPrevious) {
+    }
+
+    /** The stops in visiting order and the total distance between them. */
+    public record Plan(List<Stop> stops, double totalKm) {
+    }
+
+    /** Distances between the stops, which are sorted by id, and the coordinates they came from. */
+    private record Matrix(List<Attraction> stops, double[] coordinates, double[][] km) {
+    }
+
+    private static final Map<List<String>, Matrix> matrices = new ConcurrentHashMap<>();
+
+    /**
+     * Plans a visit to each of {@code attractionIds} between {@code from} and {@code to}, both
+     * inclusive. Throws if an attraction does not exist or is closed; ones without coordinates are
+     * visited last, since their distance from the others is unknown.
+     */
+    public static Plan plan(List<String> attractionIds, LocalDate from, LocalDate to) throws IOException {
+        if (to.isBefore(from)) {
+            throw new IOException("The trip cannot end before it starts.");
+        }
+        List<String> ids = new ArrayList<>(new TreeSet<>(attractionIds));
+        List<Attraction> stops = DataManager.queryAttractions(catalog -> ids.stream().map(catalog::findById).toList());
+        for (int i = 0; i < stops.size(); i++) {
+            if (stops.get(i) == null || !stops.get(i).isActive()) {
+                throw new IOException("Attraction " + ids.get(i) + " cannot be booked.");
+            }
+        }
+
+        List<Attraction> located = new ArrayList<>();
+        List<Attraction> unlocated = new ArrayList<>();
+        for (Attraction stop : stops) {
+            (AttractionGeoIndex.hasCoordinates(stop) ? located : unlocated).add(stop);
+        }
+        Matrix matrix = matrixFor(located);
+        int[] route = shortestRoute(matrix.km());
+
+        List<Stop> planned = new ArrayList<>(stops.size());
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        double totalKm = 0;
+        for (int i = 0; i < stops.size(); i++) {
+            // Stop i of n goes on day i * days / n, so the stops are spread over the whole range
+            LocalDate date = from.plusDays(i * days / stops.size());
+            if (i < route.length) {
+                double km = i > 0 ? matrix.km()[route[i - 1]][route[i]] : 0;
+                totalKm += km;
+                planned.add(new Stop(matrix.stops().get(route[i]), date, km));
+            } else {
+                planned.add(new Stop(unlocated.get(i - route.length), date, 0));
+            }
+        }
+        return new Plan(planned, totalKm);
+    }
+
+    /** The cached distances between {@code stops}, recomputed if any of them has moved. */
+    private static Matrix matrixFor(List<Attraction> stops) {
+        List<String> key = stops.stream().map(Attraction::getAttractionId).toList();
+        double[] coordinates = new double[stops.size() * 2];
+        for (int i = 0; i < stops.size(); i++) {
+            coordinates[2 * i] = stops.get(i).getLatitude();
+            coordinates[2 * i + 1] = stops.get(i).getLongitude();
+        }
+        Matrix cached = matrices.get(key);
+        if (cached != null && Arrays.equals(cached.coordinates(), coordinates)) {
+            return cached;
+        }
+
+        int n = stops.size();
+        double[][] km = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                km[i][j] = km[j][i] = AttractionGeoIndex.distanceKm(coordinates[2 * i], coordinates[2 * i + 1],
+                        coordinates[2 * j], coordinates[2 * j + 1]);
+            }
+        }
+        Matrix matrix = new Matrix(List.copyOf(stops), coordinates, km);
+        if (matrices.size() >= MAX_CACHED_MATRICES) {
+            matrices.clear();
+        }
+        matrices.put(key, matrix);
+        return matrix;
+    }
+
+    /** The shortest route found over the 2-opt improved nearest-neighbour routes from every stop. */
+    static int[] shortestRoute(double[][] km) {
+        int n = km.length;
+        if (n <= 2) {
+            return IntStream.range(0, n).toArray();
+        }
+        return IntStream.range(0, n).parallel()
+                .mapToObj(start -> twoOpt(nearestNeighbour(km, start), km))
+                .min(Comparator.comparingDouble((int[] route) -> length(route, km))
+                        .thenComparing(Arrays::compare)) // the same route whichever thread finishes first
+                .orElseThrow();
+    }
+
+    /** Starts at {@code start} and always goes to the closest stop not visited yet. */
+    private static int[] nearestNeighbour(double[][] km, int start) {
+        int n = km.length;
+        int[] route = new int[n];
+        boolean[] visited = new boolean[n];
+        route[0] = start;
+        visited[start] = true;
+        for (int i = 1; i < n; i++) {
+            int from = route[i - 1];
+            int next = -1;
+            for (int candidate = 0; candidate < n; candidate++) {
+                if (!visited[candidate] && (next < 0 || km[from][candidate] < km[from][next])) {
+                    next = candidate;
+                }
+            }
+            route[i] = next;
+            visited[next] = true;
+        }
+        return route;
+    }
+
+    /**
+     * Reverses stretches of {@code route} while that shortens it. The route is open, so reversing a
+     * stretch that reaches either end only changes the one edge joining it to the rest.
+     */
+    private static int[] twoOpt(int[] route, double[][] km) {
+        int n = route.length;
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < n - 1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    double before = 0;
+                    double after = 0;
+                    if (i > 0) {
+                        before += km[route[i - 1]][route[i]];
+                        after += km[route[i - 1]][route[j]];
+                    }
+                    if (j < n - 1) {
+                        before += km[route[j]][route[j + 1]];
+                        after += km[route[i]][route[j + 1]];
+                    }
+                    // A small margin so rounding cannot flip the same stretch back and forth forever
+                    if (after < before - 1e-9) {
+                        reverse(route, i, j);
+                        improved = true;
+                    }
+                }
+            }
+        }
+        return route;
+    }
+
+    private static void reverse(int[] route, int from, int to) {
+        for (; from < to; from++, to--) {
+            int stop = route[from];
+            route[from] = route[to];
+            route[to] = stop;
+        }
+    }
+
+    private static double length(int[] route, double[][] km) {
+        double total = 0;
+        for (int i = 1; i < route.length; i++) {
+            total += km[route[i - 1]][route[i]];
+        }
+        return total;
+    }
+}
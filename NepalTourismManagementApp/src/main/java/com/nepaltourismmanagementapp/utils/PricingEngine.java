@@ -0,0 +1,231 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Attraction;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prices a visit by how full the attraction already is that day.
+ *
+ * The entry fee per person is multiplied by a demand factor read off a piecewise-linear curve of
+ * the day's occupancy once the group is added (booked people over the attraction's daily capacity),
+ * then the festival discount for the date is taken off. The curve is made of the points in
+ * {@code nepaltourism.pricing.lowDemand} (default {@value #DEFAULT_LOW_DEMAND}) and
+ * {@code nepaltourism.pricing.surge} (default {@value #DEFAULT_SURGE}), each "occupancy:factor",
+ * interpolated in between; with the defaults a day between 30% and 70% full is priced at the fee.
+ *
+ * The occupancy comes from the {@link CapacityManager} counters, so a quote never scans the
+ * bookings. Quotes are cached per attraction, date and group size and reused until that day's
+ * occupancy, the fee or the festival discount changes. {@link #fareCalendar} prices a whole window
+ * of days at once and is cached per attraction in the same way.
+ */
+public class PricingEngine {
+
+    private static final String DEFAULT_LOW_DEMAND = "0:0.85,0.3:1";
+    private static final String DEFAULT_SURGE = "0.7:1,0.9:1.25,1:1.5";
+    // Plenty for every attraction over the booking horizon; cleared rather than evicted one by one
+    private static final int MAX_CACHED_QUOTES = 50_000;
+
+    private static final double[][] curve = parseCurve(
+            System.getProperty("nepaltourism.pricing.lowDemand", DEFAULT_LOW_DEMAND) + ","
+                    + System.getProperty("nepaltourism.pricing.surge", DEFAULT_SURGE));
+
+    /** A priced visit; {@code total} is what the booking will cost. */
+    public record Quote(double basePrice, double demandFactor, double festivalDiscount, double total,
+            int placesLeft) {
+
+        public boolean isHighDemand() {
+            return demandFactor > 1;
+        }
+
+        public boolean isLowDemand() {
+            return demandFactor < 1;
+        }
+
+        /** Suffix for a displayed price, empty at the normal fee. */
+        public String demandNote() {
+            if (isHighDemand()) {
+                return " (high demand, " + placesLeft + " places left)";
+            }
+            return isLowDemand() ? " (quiet day price)" : "";
+        }
+    }
+
+    /**
+     * Price, festival discount and places left for each day from {@code firstDay} on, as parallel
+     * arrays indexed by day; days with no places left keep their price but cannot be booked. The
+     * arrays are shared with other callers through the cache, so treat them as read-only.
+     */
+    public record FareCalendar(LocalDate firstDay, double[] prices, double[] discounts, int[] placesLeft) {
+
+        public int days() {
+            return prices.length;
+        }
+
+        public LocalDate dateAt(int index) {
+            return firstDay.plusDays(index);
+        }
+
+        /** Index of {@code date}, or -1 if it is outside the window. */
+        public int indexOf(LocalDate date) {
+            long index = date.toEpochDay() - firstDay.toEpochDay();
+            return index >= 0 && index < prices.length ? (int) index : -1;
+        }
+
+        /** Up to {@code count} bookable days, cheapest first (earliest first on equal prices). */
+        public List<LocalDate> cheapestDays(int count) {
+            List<Integer> open = new ArrayList<>();
+            for (int i = 0; i < prices.length; i++) {
+                if (placesLeft[i] > 0) {
+                    open.add(i);
+                }
+            }
+            open.sort(Comparator.comparingDouble((Integer i) -> prices[i]).thenComparingInt(i -> i));
+            List<LocalDate> result = new ArrayList<>();
+            for (int i = 0; i < Math.min(count, open.size()); i++) {
+                result.add(dateAt(open.get(i)));
+            }
+            return result;
+        }
+    }
+
+    private record Key(String attractionId, long epochDay, int people) {
+    }
+
+    /** A quote and what it was computed from, to tell whether it still holds. */
+    private record Cached(double fee, int taken, double festivalRate, Quote quote) {
+    }
+
+    /** A fare calendar and what it was computed from. */
+    private record CachedCalendar(LocalDate from, int days, int people, double fee, long occupancyChanges,
+            int festivalGeneration, FareCalendar calendar) {
+    }
+
+    private static final Map<Key, Cached> quotes = new ConcurrentHashMap<>();
+    // One per attraction: the window the booking screen last asked for
+    private static final Map<String, CachedCalendar> calendars = new ConcurrentHashMap<>();
+
+    public static Quote quote(Attraction attraction, LocalDate date, int people) throws IOException {
+        return quote(attraction.getAttractionId(), attraction.getEntryFee(), date, people);
+    }
+
+    /** Prices {@code people} visiting {@code attractionId} at {@code fee} a head on {@code date}. */
+    public static Quote quote(String attractionId, double fee, LocalDate date, int people) throws IOException {
+        LocalDate day = date != null ? date : LocalDate.now();
+        int taken = DataManager.attractionOccupancy(attractionId, day);
+        double festivalRate = DataManager.festivalCalendar().discountRate(day);
+        Key key = new Key(attractionId, day.toEpochDay(), people);
+        Cached cached = quotes.get(key);
+        if (cached != null && cached.taken() == taken && cached.fee() == fee && cached.festivalRate() == festivalRate) {
+            return cached.quote();
+        }
+
+        int capacity = DataManager.attractionCapacity();
+        Quote quote = price(fee, people, taken, capacity, festivalRate);
+        if (quotes.size() >= MAX_CACHED_QUOTES) {
+            quotes.clear();
+        }
+        quotes.put(key, new Cached(fee, taken, festivalRate, quote));
+        return quote;
+    }
+
+    /**
+     * Prices {@code people} visiting the attraction on each of the {@code days} days from
+     * {@code from}, from the occupancy counters and the festival calendar alone. Asking again for
+     * the same window returns the same result until a booking for the attraction changes.
+     */
+    public static FareCalendar fareCalendar(Attraction attraction, LocalDate from, int days, int people)
+            throws IOException {
+        String attractionId = attraction.getAttractionId();
+        double fee = attraction.getEntryFee();
+        // Read the stamps before the counters: a change in between only makes the next call recompute
+        long occupancyChanges = DataManager.attractionOccupancyChanges(attractionId);
+        FestivalCalendar festivals = DataManager.festivalCalendar();
+        int festivalGeneration = festivals.generation();
+        CachedCalendar cached = calendars.get(attractionId);
+        if (cached != null && cached.from().equals(from) && cached.days() == days && cached.people() == people
+                && cached.fee() == fee && cached.occupancyChanges() == occupancyChanges
+                && cached.festivalGeneration() == festivalGeneration) {
+            return cached.calendar();
+        }
+
+        int capacity = DataManager.attractionCapacity();
+        double[] prices = new double[days];
+        double[] discounts = new double[days];
+        int[] placesLeft = new int[days];
+        long firstDay = from.toEpochDay();
+        LocalDate date = from;
+        for (int i = 0; i < days; i++) {
+            Quote quote = price(fee, people, DataManager.attractionOccupancy(attractionId, date), capacity,
+                    festivals.discountRate(firstDay + i));
+            prices[i] = quote.total();
+            discounts[i] = quote.festivalDiscount();
+            placesLeft[i] = quote.placesLeft();
+            date = date.plusDays(1);
+        }
+        FareCalendar calendar = new FareCalendar(from, prices, discounts, placesLeft);
+        calendars.put(attractionId, new CachedCalendar(from, days, people, fee, occupancyChanges,
+                festivalGeneration, calendar));
+        return calendar;
+    }
+
+    static Quote price(double fee, int people, int taken, int capacity, double festivalRate) {
+        double basePrice = fee * people;
+        double occupancy = capacity > 0 ? (double) (taken + Math.max(people, 1)) / capacity : 1;
+        double factor = demandFactor(occupancy);
+        double demandPrice = basePrice * factor;
+        double discount = demandPrice * festivalRate;
+        return new Quote(basePrice, factor, discount, demandPrice - discount, Math.max(capacity - taken, 0));
+    }
+
+    /** The curve's factor at {@code occupancy}, interpolated between its points. */
+    static double demandFactor(double occupancy) {
+        double x = Math.min(Math.max(occupancy, 0), 1);
+        if (x <= curve[0][0]) {
+            return curve[0][1];
+        }
+        for (int i = 1; i < curve.length; i++) {
+            if (x <= curve[i][0]) {
+                double[] from = curve[i - 1];
+                double[] to = curve[i];
+                return from[1] + (to[1] - from[1]) * (x - from[0]) / (to[0] - from[0]);
+            }
+        }
+        return curve[curve.length - 1][1];
+    }
+
+    /** Parses "occupancy:factor,..." into points sorted by occupancy, ignoring bad entries. */
+    private static double[][] parseCurve(String spec) {
+        TreeMap<Double, Double> points = new TreeMap<>();
+        for (String point : spec.split(",")) {
+            String[] parts = point.trim().split(":");
+            try {
+                double occupancy = Double.parseDouble(parts[0].trim());
+                double factor = Double.parseDouble(parts[1].trim());
+                if (occupancy >= 0 && occupancy <= 1 && factor > 0) {
+                    points.put(occupancy, factor);
+                    continue;
+                }
+            } catch (RuntimeException e) {
+                // Reported below
+            }
+            System.out.println("Warning: ignoring pricing curve point '" + point + "'");
+        }
+        if (points.isEmpty()) {
+            points.put(0.0, 1.0);
+        }
+        double[][] curve = new double[points.size()][];
+        int i = 0;
+        for (Map.Entry<Double, Double> point : points.entrySet()) {
+            curve[i++] = new double[] { point.getKey(), point.getValue() };
+        }
+        return curve;
+    }
+}
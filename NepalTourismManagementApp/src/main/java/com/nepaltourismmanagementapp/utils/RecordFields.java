@@ -0,0 +1,298 @@
+package com.nepaltourismmanagementapp.utils;
+
+import java.time.LocalDate;
+
+/**
+ * Field-level reading and writing for the comma separated data files.
+ *
+ * Fields are separated by ',' and may contain an escaped comma ({@code \,}), backslash
+ * ({@code \\}) or line break ({@code \n}, {@code \r}). Numbers and dates are parsed straight from
+ * the line without cutting out a substring first; only text fields allocate.
+ */
+public final class RecordFields {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private RecordFields() {
+    }
+
+    /** Single pass reader over one line. Each {@code next...} call consumes one field. */
+    public static final class Reader {
+        private final CharSequence line;
+        private final int end;
+        private int pos;
+        private boolean exhausted;
+
+        public Reader(CharSequence line) {
+            this.line = line;
+            this.end = line.length();
+        }
+
+        public boolean hasNext() {
+            return !exhausted;
+        }
+
+        /** Number of fields left, counting escapes correctly. Does not move the reader. */
+        public int remaining() {
+            if (exhausted) {
+                return 0;
+            }
+            int count = 1;
+            for (int i = pos; i < end; i++) {
+                char c = line.charAt(i);
+                if (c == '\\') {
+                    i++;
+                } else if (c == ',') {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        public void skip() {
+            fieldEnd(true);
+        }
+
+        public String nextString() {
+            int start = pos;
+            int stop = fieldEnd(false);
+            if (stop < 0) {
+                return unescape(start);
+            }
+            return line.subSequence(start, stop).toString();
+        }
+
+        public int nextInt() {
+            int start = pos;
+            int stop = fieldEnd(true);
+            int i = start;
+            boolean negative = false;
+            if (i < stop && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+                negative = line.charAt(i) == '-';
+                i++;
+            }
+            if (i == stop || stop - i > 9) {
+                return Integer.parseInt(line.subSequence(start, stop).toString());
+            }
+            int value = 0;
+            for (; i < stop; i++) {
+                int digit = line.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return Integer.parseInt(line.subSequence(start, stop).toString());
+                }
+                value = value * 10 + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Plain decimals ("4.8", "-12", "86.9250") are parsed exactly from a long mantissa;
+         * anything else (exponents, very long fractions, NaN) falls back to Double.parseDouble.
+         */
+        public double nextDouble() {
+            int start = pos;
+            int stop = fieldEnd(true);
+            int i = start;
+            boolean negative = false;
+            if (i < stop && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+                negative = line.charAt(i) == '-';
+                i++;
+            }
+            long mantissa = 0;
+            int fractionDigits = 0;
+            boolean seenDigit = false;
+            boolean seenPoint = false;
+            for (; i < stop; i++) {
+                char c = line.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    mantissa = mantissa * 10 + (c - '0');
+                    seenDigit = true;
+                    if (seenPoint) {
+                        fractionDigits++;
+                    }
+                    if (mantissa >= MAX_EXACT_MANTISSA || fractionDigits >= POWERS_OF_TEN.length) {
+                        return Double.parseDouble(line.subSequence(start, stop).toString());
+                    }
+                } else if (c == '.' && !seenPoint) {
+                    seenPoint = true;
+                } else {
+                    return Double.parseDouble(line.subSequence(start, stop).toString());
+                }
+            }
+            if (!seenDigit) {
+                return Double.parseDouble(line.subSequence(start, stop).toString());
+            }
+            // Both operands are exact doubles, so a single division is correctly rounded
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+
+        public boolean nextBoolean() {
+            int start = pos;
+            int stop = fieldEnd(true);
+            return stop - start == 4
+                    && (line.charAt(start) | 0x20) == 't' && (line.charAt(start + 1) | 0x20) == 'r'
+                    && (line.charAt(start + 2) | 0x20) == 'u' && (line.charAt(start + 3) | 0x20) == 'e';
+        }
+
+        /** Parses yyyy-MM-dd without a formatter; other shapes go through LocalDate.parse. */
+        public LocalDate nextDate() {
+            int start = pos;
+            int stop = fieldEnd(true);
+            if (stop - start == 10 && line.charAt(start + 4) == '-' && line.charAt(start + 7) == '-') {
+                int year = digits(start, 4);
+                int month = digits(start + 5, 2);
+                int day = digits(start + 8, 2);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    return LocalDate.of(year, month, day);
+                }
+            }
+            return LocalDate.parse(line.subSequence(start, stop).toString());
+        }
+
+        private int digits(int from, int count) {
+            int value = 0;
+            for (int i = from; i < from + count; i++) {
+                int digit = line.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return -1;
+                }
+                value = value * 10 + digit;
+            }
+            return value;
+        }
+
+        /**
+         * Moves past the current field and returns where it ends, or -1 if it contains escapes
+         * (in which case the reader has not moved and the caller must unescape).
+         */
+        private int fieldEnd(boolean ignoreEscapes) {
+            if (exhausted) {
+                throw new IllegalStateException("No more fields");
+            }
+            for (int i = pos; i < end; i++) {
+                char c = line.charAt(i);
+                if (c == ',') {
+                    pos = i + 1;
+                    return i;
+                }
+                if (c == '\\') {
+                    if (!ignoreEscapes) {
+                        return -1;
+                    }
+                    i++;
+                }
+            }
+            int stop = end;
+            pos = end;
+            exhausted = true;
+            return stop;
+        }
+
+        private String unescape(int start) {
+            StringBuilder value = new StringBuilder();
+            int i = start;
+            for (; i < end; i++) {
+                char c = line.charAt(i);
+                if (c == ',') {
+                    break;
+                }
+                if (c == '\\' && i + 1 < end) {
+                    char escaped = line.charAt(++i);
+                    value.append(escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+                } else {
+                    value.append(c);
+                }
+            }
+            if (i < end) {
+                pos = i + 1;
+            } else {
+                pos = end;
+                exhausted = true;
+            }
+            return value.toString();
+        }
+    }
+
+    /** Appends fields to a line, escaping text as needed. */
+    public static final class Writer {
+        private final StringBuilder line;
+        private boolean first = true;
+
+        public Writer(int capacity) {
+            this.line = new StringBuilder(capacity);
+        }
+
+        /** Writes {@code null} as the text "null", as the old toString based format did. */
+        public Writer field(String value) {
+            separate();
+            if (value == null) {
+                line.append("null");
+                return this;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case ',' -> line.append("\\,");
+                    case '\\' -> line.append("\\\\");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    default -> line.append(c);
+                }
+            }
+            return this;
+        }
+
+        public Writer field(int value) {
+            separate();
+            line.append(value);
+            return this;
+        }
+
+        public Writer field(double value) {
+            separate();
+            line.append(value);
+            return this;
+        }
+
+        public Writer field(boolean value) {
+            separate();
+            line.append(value);
+            return this;
+        }
+
+        public Writer field(LocalDate date) {
+            separate();
+            int year = date.getYear();
+            if (year < 1000 || year > 9999) {
+                line.append(date);
+                return this;
+            }
+            line.append(year).append('-');
+            twoDigits(date.getMonthValue());
+            line.append('-');
+            twoDigits(date.getDayOfMonth());
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return line.toString();
+        }
+
+        private void twoDigits(int value) {
+            line.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+        }
+
+        private void separate() {
+            if (!first) {
+                line.append(',');
+            }
+            first = false;
+        }
+    }
+}
@@ -0,0 +1,514 @@
+package com.nepaltourismmanagementapp.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only storage for one data file.
+ *
+ * The plain text file (e.g. {@code Data/bookings.txt}) holds the last compacted state. Every
+ * insert, update and delete after that is appended to a sibling log ({@code bookings.txt.log}) as
+ * one CRC-protected record, so changing one row costs one append instead of a full rewrite.
+ * Records are keyed by the first comma-separated field (the row id). Once enough superseded
+ * versions pile up, a background compactor folds the log into a new text file and swaps it in
+ * with an atomic rename, so a crash can never leave a truncated data file behind.
+ *
+ * A swap replaces two files, the base and the log, so both new versions are written and flushed
+ * as {@code .tmp} files first and the base is renamed before the log. A crash in between leaves
+ * the new base next to the old log, whose records the base already holds; the temp log still
+ * being there without a temp base says so, and the next use of the log finishes the swap instead
+ * of replaying those records a second time.
+ *
+ * Log record format: {@code <op> <crc32 hex> <payload>} where op is {@code I} (insert, appends the
+ * row like the old append-to-file did), {@code P} (put, replaces the row with the same id) or
+ * {@code D} (delete, payload is the row id).
+ */
+public class RecordLog {
+    private static final char INSERT = 'I';
+    private static final char PUT = 'P';
+    private static final char DELETE = 'D';
+    private static final int HEADER_LENGTH = 11; // op + space + 8 hex digits + space
+
+    // Compact once superseded versions reach this many, or half the live rows if that is larger
+    private static final int MIN_GARBAGE_FOR_COMPACTION = 256;
+
+    private static final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "record-log-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final List<RecordLog> openLogs = new ArrayList<>();
+
+    static {
+        // Leave the text files fully up to date when the application exits
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            synchronized (openLogs) {
+                for (RecordLog log : openLogs) {
+                    try {
+                        if (log.logRecords > 0) {
+                            log.compact();
+                        }
+                    } catch (IOException e) {
+                        System.out.println("Warning: could not compact " + log.baseFile + ": " + e.getMessage());
+                    }
+                }
+            }
+        }, "record-log-shutdown"));
+    }
+
+    private final Path baseFile;
+    private final Path logFile;
+    private final Path tmpBase;
+    private final Path tmpLog;
+    private boolean swapChecked; // an interrupted swap has been looked for since this log was opened
+    private final Object compactionLock = new Object(); // one compaction or rewrite at a time
+    private Runnable compactionListener = () -> {
+    };
+
+    // Bookkeeping for the compaction threshold; refreshed whenever the log is replayed
+    private int liveRecords;
+    private int logRecords;
+    private int garbageRecords;
+    private boolean compactionScheduled;
+
+    public RecordLog(String baseFile) {
+        this.baseFile = Path.of(baseFile);
+        this.logFile = Path.of(baseFile + ".log");
+        this.tmpBase = Path.of(baseFile + ".tmp");
+        this.tmpLog = Path.of(baseFile + ".log.tmp");
+        synchronized (openLogs) {
+            openLogs.add(this);
+        }
+    }
+
+    public Path getBaseFile() {
+        return baseFile;
+    }
+
+    public Path getLogFile() {
+        return logFile;
+    }
+
+    /** True when every change has been folded into the base file. */
+    public synchronized boolean isLogEmpty() throws IOException {
+        finishInterruptedSwap();
+        return !Files.exists(logFile) || Files.size(logFile) == 0;
+    }
+
+    /**
+     * Records that the rows were loaded from somewhere other than {@link #readLive} (a snapshot of
+     * the base file taken while the log was empty), for the compaction bookkeeping.
+     */
+    public synchronized void loadedWithEmptyLog(int liveRows) {
+        liveRecords = liveRows;
+        logRecords = 0;
+        garbageRecords = 0;
+    }
+
+    /** Called (outside the log's lock) after a compaction has swapped in new files. */
+    public void setCompactionListener(Runnable listener) {
+        this.compactionListener = listener;
+    }
+
+    /**
+     * Reads the base file and replays the log over it, returning the live rows in file order with
+     * each line turned into a row by {@code decoder} (lines it returns null for are left out). The
+     * base file is decoded in parallel when it is large, see {@link ChunkedLoader}.
+     * A torn or corrupt record ends the replay and is cut off so later appends stay readable.
+     */
+    public synchronized <T> List<T> readLive(Function<String, T> decoder) throws IOException {
+        finishInterruptedSwap();
+        Replay<T> replay = new Replay<>(decoder);
+        replay.base(ChunkedLoader.load(baseFile, line -> new Row<>(keyOf(line), decoder.apply(line))));
+        long validLength = replayLog(replay, Long.MAX_VALUE);
+        if (Files.exists(logFile) && Files.size(logFile) > validLength) {
+            System.out.println("Warning: discarding corrupt tail of " + logFile);
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+        liveRecords = replay.liveCount();
+        logRecords = replay.logRecords;
+        garbageRecords = replay.garbage;
+        return replay.rows();
+    }
+
+    public void appendInsert(String line) throws IOException {
+        append(INSERT, line, false);
+    }
+
+    public void appendUpdate(String line) throws IOException {
+        append(PUT, line, true);
+    }
+
+    public void appendDelete(String id) throws IOException {
+        append(DELETE, id, true);
+    }
+
+    /** Appends one insert record per line with a single write; see {@link #force}. */
+    public void appendInserts(List<String> lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        List<byte[]> records = new ArrayList<>(lines.size());
+        int length = 0;
+        for (String line : lines) {
+            byte[] record = encode(INSERT, line);
+            records.add(record);
+            length += record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        records.forEach(buffer::put);
+        buffer.flip();
+        synchronized (this) {
+            finishInterruptedSwap();
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            logRecords += lines.size();
+            liveRecords += lines.size();
+        }
+    }
+
+    /**
+     * Flushes everything appended so far to disk. Takes no lock, so appends can go on while a
+     * group of earlier ones is being flushed.
+     */
+    public void force() throws IOException {
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            channel.force(false);
+        }
+    }
+
+    /** Replaces the whole file, e.g. for bulk saves. The log is emptied afterwards. */
+    public void rewrite(List<String> rows) throws IOException {
+        synchronized (compactionLock) {
+            synchronized (this) {
+                finishInterruptedSwap();
+                writeLines(tmpBase, rows);
+                writeLines(tmpLog, List.of());
+                swap();
+                liveRecords = rows.size();
+                logRecords = 0;
+                garbageRecords = 0;
+            }
+        }
+        compactionListener.run();
+    }
+
+    /**
+     * Folds the log into a fresh base file. The expensive rewrite runs without holding the lock;
+     * records appended meanwhile are carried over into the new log before the swap.
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            compactLocked();
+        }
+        compactionListener.run();
+    }
+
+    private void compactLocked() throws IOException {
+        long foldedLength;
+        synchronized (this) {
+            compactionScheduled = false;
+            finishInterruptedSwap();
+            if (!Files.exists(logFile)) {
+                return;
+            }
+            foldedLength = Files.size(logFile);
+        }
+
+        Replay<String> replay = new Replay<>(Function.identity());
+        replay.base(ChunkedLoader.load(baseFile, line -> new Row<>(keyOf(line), line)));
+        foldedLength = replayLog(replay, foldedLength);
+        List<String> rows = replay.rows();
+        writeLines(tmpBase, rows);
+
+        synchronized (this) {
+            int carried = 0;
+            try (FileChannel in = FileChannel.open(logFile, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(tmpLog, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING)) {
+                long tail = in.size() - foldedLength;
+                if (tail > 0) {
+                    in.transferTo(foldedLength, tail, out);
+                    carried = logRecords - replay.logRecords;
+                }
+                out.force(true);
+            }
+            swap();
+            liveRecords = rows.size();
+            logRecords = Math.max(0, carried);
+            garbageRecords = 0;
+        }
+    }
+
+    private void append(char op, String payload, boolean supersedes) throws IOException {
+        synchronized (this) {
+            finishInterruptedSwap();
+            byte[] record = encode(op, payload);
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            logRecords++;
+            if (supersedes) {
+                garbageRecords++;
+            }
+            if (op == INSERT) {
+                liveRecords++;
+            }
+            if (garbageRecords >= Math.max(MIN_GARBAGE_FOR_COMPACTION, liveRecords / 2)) {
+                compactInBackground();
+            }
+        }
+    }
+
+    /** Queues a compaction on the background compactor unless one is already pending. */
+    public synchronized void compactInBackground() {
+        if (compactionScheduled) {
+            return;
+        }
+        compactionScheduled = true;
+        compactor.execute(() -> {
+            try {
+                compact();
+            } catch (IOException e) {
+                System.out.println("Warning: compaction of " + baseFile + " failed: " + e.getMessage());
+            }
+        });
+    }
+
+    static byte[] encode(char op, String payload) {
+        byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+        CRC32 crc = new CRC32();
+        crc.update(op);
+        crc.update(body);
+        byte[] record = new byte[HEADER_LENGTH + body.length + 1];
+        record[0] = (byte) op;
+        record[1] = ' ';
+        // Same as String.format("%08x"), which showed up when appending many records at once
+        long value = crc.getValue();
+        for (int i = 9; i >= 2; i--) {
+            record[i] = (byte) Character.forDigit((int) (value & 0xf), 16);
+            value >>>= 4;
+        }
+        record[10] = ' ';
+        System.arraycopy(body, 0, record, HEADER_LENGTH, body.length);
+        record[record.length - 1] = '\n';
+        return record;
+    }
+
+    /** Replays log records up to {@code limit} bytes and returns the length of the valid prefix. */
+    private long replayLog(Replay<?> replay, long limit) throws IOException {
+        if (!Files.exists(logFile)) {
+            return 0;
+        }
+        long valid = 0;
+        long size = Files.size(logFile);
+        try (BufferedReader reader = Files.newBufferedReader(logFile, StandardCharsets.UTF_8)) {
+            String line;
+            while (valid < limit && (line = reader.readLine()) != null) {
+                char op = line.isEmpty() ? 0 : line.charAt(0);
+                if (line.length() < HEADER_LENGTH || (op != INSERT && op != PUT && op != DELETE)) {
+                    break;
+                }
+                String payload = line.substring(HEADER_LENGTH);
+                long expected;
+                try {
+                    expected = Long.parseLong(line, 2, 10, 16);
+                } catch (NumberFormatException e) {
+                    break;
+                }
+                byte[] body = payload.getBytes(StandardCharsets.UTF_8);
+                CRC32 crc = new CRC32();
+                crc.update(op);
+                crc.update(body);
+                if (crc.getValue() != expected) {
+                    break;
+                }
+                long recordLength = HEADER_LENGTH + body.length + 1;
+                if (valid + recordLength > size) {
+                    break; // last line has no newline yet: torn write
+                }
+                if (op == INSERT) {
+                    replay.insert(payload);
+                } else if (op == PUT) {
+                    replay.put(payload);
+                } else {
+                    replay.delete(payload);
+                }
+                valid += recordLength;
+            }
+        }
+        return valid;
+    }
+
+    /**
+     * Renames the written and flushed temp base and temp log over the real ones, base first. Each
+     * rename is made durable before the next, so after a crash the temp files tell how far it got.
+     */
+    private void swap() throws IOException {
+        move(tmpBase, baseFile);
+        syncDirectory();
+        move(tmpLog, logFile);
+        syncDirectory();
+    }
+
+    /** Completes a {@link #swap} that a crash cut short, once per opened log; see the class doc. */
+    private void finishInterruptedSwap() throws IOException {
+        if (swapChecked) {
+            return;
+        }
+        if (Files.exists(tmpBase)) {
+            // Nothing was renamed yet: the old base and log are still whole
+            Files.deleteIfExists(tmpBase);
+            Files.deleteIfExists(tmpLog);
+        } else if (Files.exists(tmpLog)) {
+            System.out.println("Warning: finishing an interrupted compaction of " + baseFile);
+            move(tmpLog, logFile);
+            syncDirectory();
+        }
+        swapChecked = true;
+    }
+
+    private void syncDirectory() {
+        Path dir = baseFile.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some platforms (Windows) cannot open a directory; the renames are then left to the file system
+        }
+    }
+
+    private static void writeLines(Path file, List<String> rows) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (String row : rows) {
+                writer.write(row);
+                writer.newLine();
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static String keyOf(String line) {
+        int comma = line.indexOf(',');
+        return comma < 0 ? line : line.substring(0, comma);
+    }
+
+    /** A decoded row and the id it is stored under. */
+    private record Row<T>(String key, T value) {
+    }
+
+    /**
+     * Applies base rows and log records in order. Rows keep their original position when updated;
+     * an update replaces the first row with that id, a delete removes every row with that id.
+     * Lines that fail to decode keep their slot (so later records still find them) but are not
+     * returned as live rows.
+     */
+    private static final class Replay<T> {
+        private final Function<String, T> decoder;
+        private final List<Row<T>> rows = new ArrayList<>();
+        private final Map<String, Integer> firstIndex = new HashMap<>();
+        private int deleted;
+        int logRecords;
+        int garbage;
+
+        Replay(Function<String, T> decoder) {
+            this.decoder = decoder;
+        }
+
+        void base(List<Row<T>> baseRows) {
+            for (Row<T> row : baseRows) {
+                add(row);
+            }
+        }
+
+        void insert(String line) {
+            logRecords++;
+            add(new Row<>(keyOf(line), decoder.apply(line)));
+        }
+
+        void put(String line) {
+            logRecords++;
+            Row<T> row = new Row<>(keyOf(line), decoder.apply(line));
+            Integer index = firstIndex.get(row.key());
+            if (index != null) {
+                rows.set(index, row);
+                garbage++;
+            } else {
+                add(row);
+            }
+        }
+
+        void delete(String id) {
+            logRecords++;
+            garbage++;
+            if (firstIndex.remove(id) == null) {
+                return;
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                Row<T> row = rows.get(i);
+                if (row != null && row.key().equals(id)) {
+                    rows.set(i, null);
+                    deleted++;
+                }
+            }
+        }
+
+        int liveCount() {
+            return rows.size() - deleted;
+        }
+
+        List<T> rows() {
+            List<T> live = new ArrayList<>(liveCount());
+            for (Row<T> row : rows) {
+                if (row != null && row.value() != null) {
+                    live.add(row.value());
+                }
+            }
+            return live;
+        }
+
+        private void add(Row<T> row) {
+            firstIndex.putIfAbsent(row.key(), rows.size());
+            rows.add(row);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.nepaltourismmanagementapp.utils;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rows of a bitset index by slot number, shared by {@link AttractionFacets},
+ * {@link AttractionSearchIndex} and {@link GuideSkillIndex}.
+ *
+ * A row added gets the next slot, a row replaced in place keeps its slot and a removed row leaves a
+ * hole, so bitsets of slots built by the index stay valid. Next to each row the table keeps what the
+ * index filed it under, so the index can unset exactly that later. Once {@link #isWorn} says holes
+ * take up half the slots, the index rebuilds itself from {@link #liveRows}. Rows are looked up by
+ * identity, since a cached row may be edited in place. Not synchronized; the index owning it is.
+ */
+final class SlotTable<T, F> {
+
+    // Below this many slots holes cost too little to be worth a rebuild
+    private static final int MIN_REBUILT = 64;
+
+    private final List<T> rows = new ArrayList<>();
+    private final List<F> filed = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final Map<T, Integer> slotOf = new IdentityHashMap<>();
+
+    /** Puts {@code row} in the next slot and returns it. */
+    int add(T row, F filedUnder) {
+        int slot = rows.size();
+        rows.add(row);
+        filed.add(filedUnder);
+        live.set(slot);
+        slotOf.put(row, slot);
+        return slot;
+    }
+
+    /** Puts {@code row} in the live {@code slot} in place of the row there. */
+    void set(int slot, T row, F filedUnder) {
+        slotOf.remove(rows.get(slot));
+        rows.set(slot, row);
+        filed.set(slot, filedUnder);
+        slotOf.put(row, slot);
+    }
+
+    /** Empties {@code slot}, leaving a hole. */
+    void remove(int slot) {
+        slotOf.remove(rows.get(slot));
+        rows.set(slot, null);
+        filed.set(slot, null);
+        live.clear(slot);
+    }
+
+    /** The slot of {@code row}, or null if it is not in the table. */
+    Integer slotOf(T row) {
+        return slotOf.get(row);
+    }
+
+    /** The row in {@code slot}, or null for a hole. */
+    T get(int slot) {
+        return rows.get(slot);
+    }
+
+    F filed(int slot) {
+        return filed.get(slot);
+    }
+
+    /** The slots holding a row; must not be changed by the caller. */
+    BitSet live() {
+        return live;
+    }
+
+    /** The number of slots, holes included. */
+    int size() {
+        return rows.size();
+    }
+
+    boolean isWorn() {
+        return rows.size() > MIN_REBUILT && live.cardinality() < rows.size() / 2;
+    }
+
+    /** The rows in slot order, without the holes. */
+    List<T> liveRows() {
+        List<T> result = new ArrayList<>(live.cardinality());
+        for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+            result.add(rows.get(slot));
+        }
+        return result;
+    }
+
+    void clear() {
+        rows.clear();
+        filed.clear();
+        live.clear();
+        slotOf.clear();
+    }
+}
@@ -0,0 +1,299 @@
+package com.nepaltourismmanagementapp.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary copy of one data file's parsed rows, used to skip text parsing at startup.
+ *
+ * The text files stay the source of truth. A snapshot remembers the modification time and size of
+ * the files it was made from and is only used while they are unchanged; otherwise the caller falls
+ * back to parsing the text. Layout: magic, kind, file fingerprint, string dictionary (every string
+ * field and enum name is stored once as length-prefixed UTF-8 and referenced by index), row count,
+ * rows, CRC32 of everything before it.
+ *
+ * A snapshot is read with one read into a heap buffer, not memory mapped: a mapping stays open
+ * until it is garbage collected, and on Windows that stops the next snapshot from replacing it.
+ */
+public final class Snapshot {
+    private static final int MAGIC = 0x4E54534E; // "NTSN"
+    private static final int NULL_DATE = Integer.MIN_VALUE;
+
+    @FunctionalInterface
+    public interface RowWriter<T> {
+        void write(T row, Output out) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface RowReader<T> {
+        T read(Input in);
+    }
+
+    private Snapshot() {
+    }
+
+    /**
+     * Writes {@code rows} to {@code snapshot}, tagged with the current state of {@code sources}.
+     * {@code kind} names the row format; bump it whenever the format of a row changes.
+     */
+    public static <T> void write(Path snapshot, String kind, List<Path> sources, List<T> rows, RowWriter<T> writer)
+            throws IOException {
+        Output out = new Output();
+        for (T row : rows) {
+            writer.write(row, out);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(out.body.size() + out.dictionaryBytes + 1024);
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(MAGIC);
+        data.writeUTF(kind);
+        long[] fingerprint = fingerprint(sources);
+        data.writeInt(fingerprint.length);
+        for (long part : fingerprint) {
+            data.writeLong(part);
+        }
+        data.writeInt(out.strings.size());
+        for (String value : out.strings) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            data.writeInt(utf8.length);
+            data.write(utf8);
+        }
+        data.writeInt(rows.size());
+        out.body.writeTo(data);
+        data.flush();
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray(), 0, bytes.size());
+        data.writeLong(crc.getValue());
+        data.flush();
+
+        Path tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        Files.write(tmp, bytes.toByteArray());
+        RecordLog.move(tmp, snapshot);
+    }
+
+    /**
+     * Returns the rows stored in {@code snapshot}, or null if there is no usable snapshot: missing,
+     * of another kind, corrupt, or made from files that have changed since.
+     */
+    public static <T> List<T> read(Path snapshot, String kind, List<Path> sources, RowReader<T> reader) {
+        if (!Files.exists(snapshot)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 16 || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(ChunkedLoader.readRange(channel, 0, size));
+            int bodyLength = (int) size - Long.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, bodyLength));
+            if (crc.getValue() != buffer.getLong(bodyLength)) {
+                System.out.println("Warning: ignoring corrupt snapshot " + snapshot);
+                return null;
+            }
+            Input in = new Input(buffer);
+            if (buffer.getInt() != MAGIC || !kind.equals(in.readUtf()) || !matches(in, fingerprint(sources))) {
+                return null;
+            }
+            in.readDictionary();
+            int count = buffer.getInt();
+            List<T> rows = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                rows.add(reader.read(in));
+            }
+            return rows;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Warning: could not read snapshot " + snapshot + ": " + e);
+            return null;
+        }
+    }
+
+    private static boolean matches(Input in, long[] expected) {
+        int parts = in.buffer.getInt();
+        boolean same = parts == expected.length;
+        for (int i = 0; i < parts; i++) {
+            long part = in.buffer.getLong();
+            same &= i < expected.length && part == expected[i];
+        }
+        return same;
+    }
+
+    private static long[] fingerprint(List<Path> files) {
+        long[] parts = new long[files.size() * 2];
+        for (int i = 0; i < files.size(); i++) {
+            try {
+                parts[2 * i] = Files.getLastModifiedTime(files.get(i)).toMillis();
+                parts[2 * i + 1] = Files.size(files.get(i));
+            } catch (IOException e) {
+                parts[2 * i] = -1;
+                parts[2 * i + 1] = -1;
+            }
+        }
+        return parts;
+    }
+
+    /** Field sink for one snapshot. Strings and enum names go through the dictionary. */
+    public static final class Output {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 16);
+        private final DataOutputStream data = new DataOutputStream(body);
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+        private int dictionaryBytes;
+
+        private Output() {
+        }
+
+        /** Null is kept as null. */
+        public void writeString(String value) throws IOException {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            Integer index = dictionary.get(value);
+            if (index == null) {
+                strings.add(value);
+                index = strings.size();
+                dictionary.put(value, index);
+                dictionaryBytes += 4 + value.length() * 3;
+            }
+            writeVarInt(index);
+        }
+
+        public void writeEnum(Enum<?> value) throws IOException {
+            writeString(value == null ? null : value.name());
+        }
+
+        public void writeInt(int value) throws IOException {
+            data.writeInt(value);
+        }
+
+        public void writeDouble(double value) throws IOException {
+            data.writeDouble(value);
+        }
+
+        public void writeBoolean(boolean value) throws IOException {
+            data.writeBoolean(value);
+        }
+
+        /** Stored as the epoch day. */
+        public void writeDate(LocalDate date) throws IOException {
+            data.writeInt(date == null ? NULL_DATE : (int) date.toEpochDay());
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                data.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data.writeByte(value);
+        }
+    }
+
+    /** Field source over a snapshot read into memory, mirroring {@link Output}. */
+    public static final class Input {
+        private final ByteBuffer buffer;
+        private String[] strings;
+        private Object[] enumCache;
+        private final LocalDate[] dateCache = new LocalDate[4096];
+
+        private Input(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public String readString() {
+            int index = readVarInt();
+            return index == 0 ? null : strings[index - 1];
+        }
+
+        @SuppressWarnings("unchecked")
+        public <E extends Enum<E>> E readEnum(Class<E> type) {
+            int index = readVarInt();
+            if (index == 0) {
+                return null;
+            }
+            Object cached = enumCache[index - 1];
+            if (cached == null || cached.getClass() != type) {
+                cached = Enum.valueOf(type, strings[index - 1]);
+                enumCache[index - 1] = cached;
+            }
+            return (E) cached;
+        }
+
+        public int readInt() {
+            return buffer.getInt();
+        }
+
+        public double readDouble() {
+            return buffer.getDouble();
+        }
+
+        public boolean readBoolean() {
+            return buffer.get() != 0;
+        }
+
+        public LocalDate readDate() {
+            int epochDay = buffer.getInt();
+            if (epochDay == NULL_DATE) {
+                return null;
+            }
+            // Dates repeat a lot across rows; share the instances
+            int slot = epochDay & (dateCache.length - 1);
+            LocalDate date = dateCache[slot];
+            if (date == null || date.toEpochDay() != epochDay) {
+                date = LocalDate.ofEpochDay(epochDay);
+                dateCache[slot] = date;
+            }
+            return date;
+        }
+
+        private String readUtf() {
+            int length = buffer.getShort() & 0xFFFF;
+            byte[] utf8 = new byte[length];
+            buffer.get(utf8);
+            return new String(utf8, StandardCharsets.UTF_8); // plain ASCII kinds only
+        }
+
+        private void readDictionary() {
+            int count = buffer.getInt();
+            strings = new String[count];
+            enumCache = new Object[count];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int length = buffer.getInt();
+                if (length > scratch.length) {
+                    scratch = new byte[Math.max(length, scratch.length * 2)];
+                }
+                buffer.get(scratch, 0, length);
+                strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+            }
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new UncheckedIOException(new IOException("Malformed snapshot"));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Admin;
+import com.nepaltourismmanagementapp.model.Guide;
+import com.nepaltourismmanagementapp.model.Tourist;
+import com.nepaltourismmanagementapp.model.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the users.txt line format. Every user starts with
+ * userId,username,password,email,fullName,phone,userType followed by the type's own fields:
+ * adminLevel for admins, nationality,age for tourists and
+ * licenseNumber,languages,specializations,rating,experienceYears,available for guides (lists joined
+ * with ';'; lines written before guides had the available flag count as available), and then the
+ * record version (0 for lines written before users had versions).
+ */
+public final class UserCodec {
+    public static final String SNAPSHOT_KIND = "users/3";
+
+    private UserCodec() {
+    }
+
+    public static String encode(User user) {
+        RecordFields.Writer writer = new RecordFields.Writer(128)
+                .field(user.getUserId())
+                .field(user.getUsername())
+                .field(user.getPassword())
+                .field(user.getEmail())
+                .field(user.getFullName())
+                .field(user.getPhone())
+                .field(user.getUserType());
+        if (user instanceof Admin admin) {
+            writer.field(admin.getAdminLevel());
+        } else if (user instanceof Tourist tourist) {
+            writer.field(tourist.getNationality()).field(tourist.getAge());
+        } else if (user instanceof Guide guide) {
+            writer.field(guide.getLicenseNumber())
+                    .field(String.join(";", guide.getLanguages()))
+                    .field(String.join(";", guide.getSpecializations()))
+                    .field(guide.getRating())
+                    .field(guide.getExperienceYears())
+                    .field(guide.isAvailable());
+        }
+        return writer.field(user.getVersion()).toString();
+    }
+
+    /** Returns null for unknown user types and lines missing the type's fields. */
+    public static User decode(CharSequence line) {
+        RecordFields.Reader reader = new RecordFields.Reader(line);
+        int fields = reader.remaining();
+        if (fields < 7) {
+            return null;
+        }
+        try {
+            String userId = reader.nextString();
+            String username = reader.nextString();
+            String password = reader.nextString();
+            String email = reader.nextString();
+            String fullName = reader.nextString();
+            String phone = reader.nextString();
+            String userType = reader.nextString();
+
+            User user = null;
+            switch (userType) {
+                case "ADMIN":
+                    if (fields >= 8) {
+                        user = new Admin(userId, username, password, email, fullName, reader.nextString());
+                    }
+                    break;
+                case "TOURIST":
+                    if (fields >= 9) {
+                        String nationality = reader.nextString();
+                        user = new Tourist(userId, username, password, email, fullName,
+                                nationality, phone, reader.nextInt());
+                    }
+                    break;
+                case "GUIDE":
+                    if (fields >= 12) {
+                        String license = reader.nextString();
+                        List<String> languages = splitList(reader.nextString());
+                        List<String> specializations = splitList(reader.nextString());
+                        double rating = reader.nextDouble();
+                        int experienceYears = reader.nextInt();
+                        Guide guide = new Guide(userId, username, password, email, fullName, phone,
+                                license, languages, specializations, rating, experienceYears);
+                        if (fields >= 13) {
+                            guide.setAvailable(reader.nextBoolean());
+                        }
+                        user = guide;
+                    }
+                    break;
+            }
+            if (user != null && reader.hasNext()) {
+                user.setVersion(reader.nextInt());
+            }
+            return user;
+        } catch (RuntimeException e) {
+            System.out.println("Warning: skipping malformed user line: " + line);
+            return null;
+        }
+    }
+
+    /** Snapshot row format; change {@link #SNAPSHOT_KIND} along with it. */
+    public static void writeBinary(User user, Snapshot.Output out) throws IOException {
+        out.writeString(user.getUserType());
+        out.writeInt(user.getVersion());
+        out.writeString(user.getUserId());
+        out.writeString(user.getUsername());
+        out.writeString(user.getPassword());
+        out.writeString(user.getEmail());
+        out.writeString(user.getFullName());
+        out.writeString(user.getPhone());
+        if (user instanceof Admin admin) {
+            out.writeString(admin.getAdminLevel());
+        } else if (user instanceof Tourist tourist) {
+            out.writeString(tourist.getNationality());
+            out.writeInt(tourist.getAge());
+        } else if (user instanceof Guide guide) {
+            out.writeString(guide.getLicenseNumber());
+            out.writeString(String.join(";", guide.getLanguages()));
+            out.writeString(String.join(";", guide.getSpecializations()));
+            out.writeDouble(guide.getRating());
+            out.writeInt(guide.getExperienceYears());
+            out.writeBoolean(guide.isAvailable());
+        }
+    }
+
+    public static User readBinary(Snapshot.Input in) {
+        String userType = in.readString();
+        int version = in.readInt();
+        String userId = in.readString();
+        String username = in.readString();
+        String password = in.readString();
+        String email = in.readString();
+        String fullName = in.readString();
+        String phone = in.readString();
+        User user = switch (userType) {
+            case "ADMIN" -> new Admin(userId, username, password, email, fullName, in.readString());
+            case "TOURIST" -> {
+                String nationality = in.readString();
+                yield new Tourist(userId, username, password, email, fullName, nationality, phone, in.readInt());
+            }
+            case "GUIDE" -> {
+                String license = in.readString();
+                List<String> languages = splitList(in.readString());
+                List<String> specializations = splitList(in.readString());
+                double rating = in.readDouble();
+                Guide guide = new Guide(userId, username, password, email, fullName, phone,
+                        license, languages, specializations, rating, in.readInt());
+                guide.setAvailable(in.readBoolean());
+                yield guide;
+            }
+            default -> throw new IllegalStateException("Unknown user type in snapshot: " + userType);
+        };
+        user.setVersion(version);
+        return user;
+    }
+
+    private static List<String> splitList(String value) {
+        List<String> items = new ArrayList<>();
+        if (value.isEmpty()) {
+            return items;
+        }
+        int start = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            if (i == value.length() || value.charAt(i) == ';') {
+                items.add(value.substring(start, i));
+                start = i + 1;
+            }
+        }
+        return items;
+    }
+}
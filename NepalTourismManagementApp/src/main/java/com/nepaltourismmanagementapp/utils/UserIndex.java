@@ -0,0 +1,93 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Guide;
+import com.nepaltourismmanagementapp.model.User;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Username index over the cached users, so logging in and checking for a taken username cost one
+ * hash probe instead of a scan of every user. Also keeps the guides, in table order, so listing
+ * them does not filter every user ({@link GuideSkillIndex} finds them by skill). Kept up to date
+ * by the user table like {@link BookingIndex}.
+ */
+public class UserIndex implements DataCache.Listener<User> {
+
+    // Buckets in table order; the first user with a username is the one that can log in
+    private final Map<String, List<User>> byUsername = new HashMap<>();
+    private final Map<User, String> indexedNames = new IdentityHashMap<>();
+    private final Set<Guide> guides = new LinkedHashSet<>();
+
+    @Override
+    public synchronized void reset(List<User> rows) {
+        byUsername.clear();
+        indexedNames.clear();
+        guides.clear();
+        for (User user : rows) {
+            index(user);
+        }
+    }
+
+    @Override
+    public synchronized void added(User user) {
+        index(user);
+    }
+
+    @Override
+    public synchronized void replaced(User previous, User user) {
+        unindex(previous);
+        index(user);
+    }
+
+    @Override
+    public synchronized void removed(User user) {
+        unindex(user);
+    }
+
+    public synchronized User findByUsername(String username) {
+        List<User> bucket = byUsername.get(username);
+        return bucket != null ? bucket.get(0) : null;
+    }
+
+    public synchronized boolean isTaken(String username) {
+        return byUsername.containsKey(username);
+    }
+
+    public synchronized List<Guide> guides() {
+        return new ArrayList<>(guides);
+    }
+
+    private void index(User user) {
+        String username = user.getUsername();
+        indexedNames.put(user, username);
+        if (user instanceof Guide guide) {
+            guides.add(guide);
+        }
+        if (username != null) {
+            byUsername.computeIfAbsent(username, k -> new ArrayList<>(1)).add(user);
+        }
+    }
+
+    private void unindex(User user) {
+        if (!indexedNames.containsKey(user)) {
+            return;
+        }
+        String username = indexedNames.remove(user);
+        if (user instanceof Guide guide) {
+            guides.remove(guide);
+        }
+        List<User> bucket = byUsername.get(username);
+        if (bucket != null) {
+            bucket.removeIf(row -> row == user);
+            if (bucket.isEmpty()) {
+                byUsername.remove(username);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Attraction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttractionFacetsTest {
+
+    private static Attraction attraction(String id, String category, String district, double fee, double rating) {
+        return new Attraction(id, "Place " + id, "", district, "Bagmati", 0, 0, "", "", category, fee, "", rating,
+                true);
+    }
+
+    private static List<String> ids(AttractionFacets.Result result) {
+        return result.attractions().stream().map(Attraction::getAttractionId).toList();
+    }
+
+    @Test
+    void choicesAreOredWithinAFacetAndAndedAcrossFacets() {
+        AttractionFacets facets = new AttractionFacets();
+        facets.reset(List.of(
+                attraction("A1", "Religious", "Kathmandu", 0, 4.8),
+                attraction("A2", "Heritage", "Lalitpur", 1000, 4.2),
+                attraction("A3", "Religious", "Lalitpur", 300, 3.5),
+                attraction("A4", "Adventure", "Kathmandu", 6000, 4.9)));
+
+        AttractionFacets.Result result = facets.query(Map.of(
+                AttractionFacets.Facet.CATEGORY, Set.of("Religious", "Heritage"),
+                AttractionFacets.Facet.DISTRICT, Set.of("Lalitpur")), AttractionFacets.Order.BEST_RATED, 10);
+
+        assertEquals(List.of("A2", "A3"), ids(result));
+        assertEquals(2, result.total());
+        // A facet's counts ignore its own choices but apply the other facets'
+        assertEquals(Map.of("Heritage", 1, "Religious", 1, "Adventure", 0),
+                result.counts().get(AttractionFacets.Facet.CATEGORY));
+        assertEquals(Map.of("Kathmandu", 1, "Lalitpur", 2), result.counts().get(AttractionFacets.Facet.DISTRICT));
+        assertEquals(List.of("Free", "Under NPR 500", "NPR 500 - 1,999", "NPR 5,000 and more"),
+                List.copyOf(facets.query(Map.of(), AttractionFacets.Order.BEST_RATED, 10)
+                        .counts().get(AttractionFacets.Facet.FEE_BAND).keySet()));
+    }
+
+    @Test
+    void searchMatchesNarrowBothResultsAndCounts() {
+        AttractionFacets facets = new AttractionFacets();
+        Attraction a1 = attraction("A1", "Religious", "Kathmandu", 0, 4.8);
+        Attraction a2 = attraction("A2", "Heritage", "Lalitpur", 1000, 4.2);
+        Attraction a3 = attraction("A3", "Religious", "Lalitpur", 300, 3.5);
+        facets.reset(List.of(a1, a2, a3));
+
+        AttractionFacets.Result result = facets.query(List.of(a2, a3),
+                Map.of(AttractionFacets.Facet.CATEGORY, Set.of("Religious")), AttractionFacets.Order.BEST_RATED, 10);
+
+        assertEquals(List.of("A3"), ids(result));
+        assertEquals(Map.of("Religious", 1, "Heritage", 1), result.counts().get(AttractionFacets.Facet.CATEGORY));
+        assertEquals(Map.of("Lalitpur", 1, "Kathmandu", 0), result.counts().get(AttractionFacets.Facet.DISTRICT));
+    }
+
+    @Test
+    void followsEditsRemovalsAndTheRebuildAfterThem() {
+        AttractionFacets facets = new AttractionFacets();
+        List<Attraction> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(attraction("A" + i, i % 2 == 0 ? "Religious" : "Heritage", "Kathmandu", 0, i / 100.0));
+        }
+        facets.reset(rows);
+
+        // Edited in place, so the index has to unset the values it filed the attraction under
+        Attraction edited = rows.get(0);
+        edited.setCategory("Adventure");
+        facets.replaced(edited, edited);
+        for (int i = 1; i < 80; i++) {
+            facets.removed(rows.get(i));
+        }
+        facets.added(attraction("NEW", "Adventure", "Pokhara", 0, 5));
+
+        AttractionFacets.Result result = facets.query(Map.of(AttractionFacets.Facet.CATEGORY, Set.of("Adventure")),
+                AttractionFacets.Order.NEWEST_FIRST, 10);
+        assertEquals(List.of("NEW", "A0"), ids(result));
+        AttractionFacets.Result all = facets.query(Map.of(), AttractionFacets.Order.BEST_RATED, 3);
+        assertEquals(22, all.total());
+        assertEquals(List.of("NEW", "A99", "A98"), ids(all));
+        assertEquals(Map.of("Adventure", 2, "Religious", 10, "Heritage", 10),
+                all.counts().get(AttractionFacets.Facet.CATEGORY));
+    }
+}
@@ -0,0 +1,97 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Attraction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AttractionGeoIndexTest {
+
+    private static Attraction attraction(String id, double latitude, double longitude, boolean active) {
+        return new Attraction(id, id, "", "Kathmandu", "Bagmati", latitude, longitude, "", "", "Nature", 0, "", 4,
+                active);
+    }
+
+    /** Attractions scattered over Nepal, a few closed and a few without coordinates. */
+    private static List<Attraction> scattered(int count) {
+        Random random = new Random(42);
+        List<Attraction> attractions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            boolean located = i % 50 != 0;
+            attractions.add(attraction("A" + i, located ? 26.4 + random.nextDouble() * 4 : 0,
+                    located ? 80 + random.nextDouble() * 8.2 : 0, i % 7 != 0));
+        }
+        return attractions;
+    }
+
+    private static List<String> closest(List<Attraction> attractions, double latitude, double longitude,
+            double radiusKm, int k) {
+        return attractions.stream()
+                .filter(a -> a.isActive() && AttractionGeoIndex.hasCoordinates(a))
+                .filter(a -> distance(a, latitude, longitude) <= radiusKm)
+                .sorted(Comparator.comparingDouble(a -> distance(a, latitude, longitude)))
+                .limit(k)
+                .map(Attraction::getAttractionId)
+                .toList();
+    }
+
+    private static double distance(Attraction attraction, double latitude, double longitude) {
+        return AttractionGeoIndex.distanceKm(latitude, longitude, attraction.getLatitude(), attraction.getLongitude());
+    }
+
+    private static List<String> ids(List<AttractionGeoIndex.Nearby> nearby) {
+        return nearby.stream().map(n -> n.attraction().getAttractionId()).toList();
+    }
+
+    @Test
+    void distanceIsGreatCircleKilometres() {
+        // Kathmandu to Pokhara, about 140 km as the crow flies
+        double km = AttractionGeoIndex.distanceKm(27.7172, 85.3240, 28.2096, 83.9856);
+        assertTrue(km > 135 && km < 150, "got " + km);
+        assertEquals(0, AttractionGeoIndex.distanceKm(28, 84, 28, 84));
+    }
+
+    @Test
+    void nearestAndWithinMatchAFullScan() {
+        List<Attraction> attractions = scattered(2000);
+        AttractionGeoIndex index = new AttractionGeoIndex();
+        index.reset(attractions);
+        Random random = new Random(7);
+        for (int query = 0; query < 50; query++) {
+            double latitude = 26 + random.nextDouble() * 5;
+            double longitude = 79.5 + random.nextDouble() * 9;
+            int k = 1 + random.nextInt(20);
+            assertEquals(closest(attractions, latitude, longitude, Double.MAX_VALUE, k),
+                    ids(index.nearest(latitude, longitude, k)));
+            double radiusKm = random.nextDouble() * 60;
+            assertEquals(closest(attractions, latitude, longitude, radiusKm, Integer.MAX_VALUE),
+                    ids(index.within(latitude, longitude, radiusKm)));
+        }
+    }
+
+    @Test
+    void nearestToAnAttractionLeavesItOutAndFollowsMoves() {
+        Attraction temple = attraction("TEMPLE", 27.71, 85.35, true);
+        Attraction square = attraction("SQUARE", 27.70, 85.31, true);
+        Attraction lake = attraction("LAKE", 28.21, 83.96, true);
+        AttractionGeoIndex index = new AttractionGeoIndex();
+        index.reset(List.of(temple, square, lake));
+        assertEquals(List.of("SQUARE", "LAKE"), ids(index.nearest(temple, 5)));
+
+        // Moved next to the lake, edited in place
+        square.setLatitude(28.20);
+        square.setLongitude(83.95);
+        index.replaced(square, square);
+        assertEquals(List.of("SQUARE", "TEMPLE"), ids(index.nearest(lake, 5)));
+        assertEquals(List.of("TEMPLE"), ids(index.within(27.71, 85.35, 10)));
+
+        index.removed(lake);
+        assertEquals(List.of("TEMPLE"), ids(index.nearest(square, 5)));
+    }
+}
@@ -0,0 +1,52 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Booking;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttractionRecommenderTest {
+
+    private final List<Booking> bookings = new ArrayList<>();
+
+    private static Booking booking(String tourist, String attraction) {
+        return new Booking(tourist + "-" + attraction, tourist, "GUD001", attraction, LocalDate.of(2030, 1, 1), 100);
+    }
+
+    private AttractionRecommender recommender() {
+        for (String[] visit : new String[][] { { "T1", "A1" }, { "T2", "A1" }, { "T2", "A2" }, { "T3", "A1" },
+                { "T3", "A2" }, { "T4", "A1" }, { "T4", "A3" }, { "T5", "A4" }, { "T6", "A4" }, { "T7", "A4" } }) {
+            bookings.add(booking(visit[0], visit[1]));
+        }
+        AttractionRecommender recommender = new AttractionRecommender();
+        recommender.reset(bookings);
+        return recommender;
+    }
+
+    @Test
+    void ranksWhatOthersBookedTogetherThenFillsUpWithThePopular() {
+        AttractionRecommender recommender = recommender();
+        // A2 was booked with A1 twice, A3 once; A4 only comes in as the most popular of the rest
+        assertEquals(List.of("A2", "A3", "A4"), recommender.recommend("T1", 5, id -> true));
+        assertEquals(List.of("A2"), recommender.recommend("T1", 1, id -> true));
+        assertEquals(List.of("A3", "A4"), recommender.recommend("T1", 2, id -> !id.equals("A2")));
+        assertEquals(List.of("A1", "A4", "A2", "A3"), recommender.recommend("NEW", 10, id -> true));
+        assertEquals(List.of(), recommender.recommend("T1", 0, id -> true));
+    }
+
+    @Test
+    void cancellingABookingTakesItsPairsAway() {
+        AttractionRecommender recommender = recommender();
+        Booking cancelled = bookings.stream().filter(b -> b.getId().equals("T4-A1")).findFirst().orElseThrow();
+        cancelled.setStatus(Booking.BookingStatus.CANCELLED);
+        recommender.replaced(cancelled, cancelled);
+        assertEquals(List.of("A2", "A4", "A3"), recommender.recommend("T1", 5, id -> true));
+
+        recommender.added(booking("T1", "A4"));
+        assertEquals(List.of("A2", "A3"), recommender.recommend("T1", 5, id -> true));
+    }
+}
@@ -0,0 +1,71 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Attraction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AttractionSearchIndexTest {
+
+    private static Attraction attraction(String id, String name, String nameNepali, double rating, boolean active) {
+        return new Attraction(id, name, nameNepali, "Kathmandu", "Bagmati", 0, 0, "", "", "Religious", 0, "", rating,
+                active);
+    }
+
+    private static List<String> ids(List<Attraction> attractions) {
+        return attractions.stream().map(Attraction::getAttractionId).toList();
+    }
+
+    private static AttractionSearchIndex index() {
+        AttractionSearchIndex index = new AttractionSearchIndex();
+        index.reset(List.of(
+                attraction("A1", "Pashupatinath Temple", "पशुपतिनाथ मन्दिर", 4.2, true),
+                attraction("A2", "Sagarmatha Base Camp", "सगरमाथा आधार शिविर", 4.9, true),
+                attraction("A3", "Patan Durbar Square", "पाटन दरबार", 4.5, true),
+                attraction("A4", "Pashupati Old Ghat", "", 4.8, false)));
+        return index;
+    }
+
+    @Test
+    void matchesEveryWordAsAPrefixBestRatedFirst() {
+        AttractionSearchIndex index = index();
+        assertEquals(List.of("A3", "A1"), ids(index.search("pa", 10)));
+        assertEquals(List.of("A1"), ids(index.search("PASH temple", 10)));
+        assertEquals(List.of("A2"), ids(index.search("सगर", 10)));
+        assertEquals(List.of(), ids(index.search("pash camp", 10)));
+        assertEquals(List.of("A2"), ids(index.search("", 1)));
+    }
+
+    @Test
+    void matchingListsClosedAttractionsToo() {
+        assertEquals(List.of("A1", "A4"), ids(index().matching("pashupati")).stream().sorted().toList());
+    }
+
+    @Test
+    void tokenizeKeepsDevanagariMarksAndReadsItsDigits() {
+        assertEquals(List.of("पशुपतिनाथ", "2080", "abc"), AttractionSearchIndex.tokenize("पशुपतिनाथ, २०८० ABC"));
+        assertEquals(List.of("क्ष"), AttractionSearchIndex.tokenize("क्\u200Dष"));
+    }
+
+    @Test
+    void editedAttractionsAreFoundByTheirNewWordsOnly() {
+        AttractionSearchIndex index = new AttractionSearchIndex();
+        List<Attraction> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(attraction("A" + i, "Lake " + i, "", i / 100.0, true));
+        }
+        index.reset(rows);
+        // Enough edits to rebuild the index along the way
+        for (int i = 0; i < 60; i++) {
+            Attraction attraction = rows.get(i);
+            attraction.setName("Hill " + i);
+            index.replaced(attraction, attraction);
+        }
+        assertEquals(40, index.search("lake", 1000).size());
+        assertEquals(List.of("A59", "A58"), ids(index.search("hill", 2)));
+        assertEquals(List.of("A7"), ids(index.search("hill 7", 10)));
+    }
+}
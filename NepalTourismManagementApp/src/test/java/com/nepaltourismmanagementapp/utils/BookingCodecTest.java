@@ -0,0 +1,64 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Booking;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookingCodecTest {
+
+    private static Booking booking(String notes) {
+        Booking booking = new Booking("BK1", "TOU598", "GUD001", "ATT001", LocalDate.of(2025, 7, 19),
+                LocalDate.of(2025, 7, 20), Booking.BookingStatus.CONFIRMED, 3000.0, 150.0, notes, true, 3);
+        booking.setVersion(4);
+        return booking;
+    }
+
+    @Test
+    void notesWithCommasBackslashesAndLineBreaksSurviveARoundTrip() {
+        String notes = "pick up at C:\\gate\\, then lunch,\nvegetarian; no nuts\\";
+        Booking decoded = BookingCodec.decode(BookingCodec.encode(booking(notes)));
+
+        assertNotNull(decoded);
+        assertEquals(notes, decoded.getNotes());
+        assertTrue(decoded.isEmergencyReported());
+        assertEquals(3, decoded.getNumberOfPeople());
+        assertEquals(4, decoded.getVersion());
+        assertEquals(BookingCodec.encode(booking(notes)), BookingCodec.encode(decoded));
+    }
+
+    @Test
+    void aLegacyLineGetsItsCommasBackAndKeepsItsBackslashes() {
+        // As the old Booking.toString wrote it: no escapes, commas in the notes stored as ';'
+        String legacy = "BK1752937827175,TOU598,GUD001,ATT001,2025-07-19,2025-07-20,CONFIRMED,3000.0,0.0,"
+                + "meet at C:\\gate; bring water\\,false,3";
+        Booking decoded = BookingCodec.decode(legacy);
+
+        assertNotNull(decoded);
+        assertEquals("BK1752937827175", decoded.getId());
+        assertEquals("meet at C:\\gate, bring water\\", decoded.getNotes());
+        assertEquals(3, decoded.getNumberOfPeople());
+        assertEquals(0, decoded.getVersion());
+
+        // Saved again it takes the current format and reads back the same
+        Booking again = BookingCodec.decode(BookingCodec.encode(decoded));
+        assertNotNull(again);
+        assertEquals(decoded.getNotes(), again.getNotes());
+        assertEquals(decoded.getTrekDate(), again.getTrekDate());
+    }
+
+    @Test
+    void legacyLinesWithoutTheLaterFieldsTakeTheirDefaults() {
+        Booking decoded = BookingCodec.decode("BK2,TOU1,GUD1,ATT2,2025-01-02,2025-01-03,PENDING,100.0,0.0,");
+
+        assertNotNull(decoded);
+        assertNull(decoded.getNotes());
+        assertEquals(1, decoded.getNumberOfPeople());
+        assertNull(BookingCodec.decode("BK3,TOU1,GUD1"));
+    }
+}
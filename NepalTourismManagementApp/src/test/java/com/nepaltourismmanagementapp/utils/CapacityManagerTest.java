@@ -0,0 +1,152 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.exception.CapacityExceededException;
+import com.nepaltourismmanagementapp.model.Booking;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CapacityManagerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 4, 14);
+
+    private static Booking booking(String id, String guide, int people) {
+        Booking booking = new Booking(id, "tourist", guide, "ATT001", DAY, 1000);
+        booking.setNumberOfPeople(people);
+        return booking;
+    }
+
+    @Test
+    void concurrentReservationsNeverGoOverTheAttractionCapacity() throws Exception {
+        CapacityManager capacity = new CapacityManager(() -> {
+        });
+        capacity.reset(List.of());
+        int attempts = 64;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService threads = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < attempts; i++) {
+                Booking booking = booking("B" + i, "guide" + i, 7);
+                results.add(threads.submit(() -> {
+                    start.await();
+                    try {
+                        capacity.reserve(booking);
+                        return true;
+                    } catch (CapacityExceededException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int reserved = 0;
+            for (Future<Boolean> result : results) {
+                reserved += result.get() ? 1 : 0;
+            }
+            int limit = capacity.attractionCapacity() / 7;
+            assertEquals(limit, reserved);
+            assertEquals(limit * 7, capacity.takenForAttraction("ATT001", DAY));
+        }
+    }
+
+    @Test
+    void releasedPlacesCanBeTakenAgain() throws Exception {
+        CapacityManager capacity = new CapacityManager(() -> {
+        });
+        capacity.reset(List.of());
+        Booking first = booking("B1", "guide1", 15);
+        capacity.reserve(first);
+        assertEquals(0, capacity.remainingForGuide("guide1", DAY));
+        assertThrows(CapacityExceededException.class, () -> capacity.reserve(booking("B2", "guide1", 1)));
+
+        capacity.release(first);
+        assertEquals(15, capacity.remainingForGuide("guide1", DAY));
+        capacity.reserve(booking("B3", "guide1", 15));
+    }
+
+    @Test
+    void savedReservationIsCountedOnceAndSurvivesAReload() throws Exception {
+        CapacityManager capacity = new CapacityManager(() -> {
+        });
+        capacity.reset(List.of());
+        Booking saved = booking("B1", "guide1", 4);
+        Booking stillPending = booking("B2", "guide2", 3);
+        capacity.reserve(saved);
+        capacity.reserve(stillPending);
+
+        capacity.added(saved);
+        assertEquals(7, capacity.takenForAttraction("ATT001", DAY));
+
+        // A reload sees the saved booking in the table and keeps the pending one
+        capacity.reset(List.of(saved));
+        assertEquals(7, capacity.takenForAttraction("ATT001", DAY));
+        capacity.release(stillPending);
+        assertEquals(4, capacity.takenForAttraction("ATT001", DAY));
+        assertTrue(capacity.remainingForAttraction("ATT001", DAY) > 0);
+    }
+
+    @Test
+    void reservationsWhileTheTableIsDroppedAndReloadedNeverOverbook(@TempDir Path dir) throws Exception {
+        // The table already holds 90 of the day's 100 places
+        List<Booking> rows = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            rows.add(booking("SAVED" + i, "saved" + i, 10));
+        }
+        DataCache.Table<Booking> table = DataCache.register(Booking::getId, () -> rows, dir.resolve("bookings.txt"));
+        CapacityManager capacity = new CapacityManager(table::load);
+        table.addListener(capacity);
+        int free = capacity.attractionCapacity() - 90;
+
+        AtomicBoolean reserving = new AtomicBoolean(true);
+        Thread reloader = new Thread(() -> {
+            while (reserving.get()) {
+                table.invalidate();
+                try {
+                    table.load();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        reloader.start();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService threads = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 200; i++) {
+                Booking booking = booking("B" + i, "guide" + i, 1);
+                results.add(threads.submit(() -> {
+                    start.await();
+                    try {
+                        capacity.reserve(booking);
+                        return true;
+                    } catch (CapacityExceededException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int reserved = 0;
+            for (Future<Boolean> result : results) {
+                reserved += result.get() ? 1 : 0;
+            }
+            reserving.set(false);
+            reloader.join();
+            assertEquals(free, reserved);
+        }
+        table.load();
+        assertEquals(capacity.attractionCapacity(), capacity.takenForAttraction("ATT001", DAY));
+    }
+}
@@ -0,0 +1,36 @@
+package com.nepaltourismmanagementapp.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DataCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private DataCache.Table<String> table(List<String> rows) {
+        return DataCache.register(row -> row.substring(0, row.indexOf(':')), () -> rows, dir.resolve("rows.txt"));
+    }
+
+    @Test
+    void putReplacesInPlaceAfterRemovesHaveShiftedTheRows() throws IOException {
+        DataCache.Table<String> table = table(List.of("1:a", "2:a", "3:a", "2:dup", "4:a"));
+        table.load();
+
+        table.remove("2");
+        table.put("4:b");
+        table.put("1:b");
+        table.add("5:a");
+        table.put("5:b");
+        table.put("6:a");
+
+        assertEquals(List.of("1:b", "3:a", "4:b", "5:b", "6:a"), table.getAll());
+        assertEquals("4:b", table.get("4"));
+    }
+}
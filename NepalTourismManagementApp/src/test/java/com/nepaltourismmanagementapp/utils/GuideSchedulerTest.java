@@ -0,0 +1,172 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Booking;
+import com.nepaltourismmanagementapp.model.Guide;
+import com.nepaltourismmanagementapp.model.User;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GuideSchedulerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 4, 14);
+
+    private static Guide guide(String id, String language, String specialization) {
+        return new Guide(id, id, "secret", id + "@example.com", "Guide " + id, "", "LIC-" + id, List.of(language),
+                List.of(specialization), 4.0, 5);
+    }
+
+    private static Booking booking(String id, String guide, LocalDate date) {
+        return new Booking(id, "tourist", guide, "ATT001", date, 100);
+    }
+
+    private static GuideSkillIndex.Tiers tiers(List<Guide> guides, String category, String language) {
+        GuideSkillIndex index = new GuideSkillIndex();
+        index.reset(new ArrayList<User>(guides));
+        return index.tiers(category, language);
+    }
+
+    @Test
+    void picksFromTheBestTierWithAFreeGuideAndTheLeastBusyInIt() throws Exception {
+        Guide busy = guide("BUSY", "English", "Mountain");
+        Guide idle = guide("IDLE", "English", "Mountain");
+        Guide other = guide("OTHER", "German", "Cultural");
+        GuideSkillIndex.Tiers tiers = tiers(List.of(busy, idle, other), "Mountain", "English");
+        GuideScheduler scheduler = new GuideScheduler(() -> {
+        });
+        scheduler.reset(List.of(booking("B1", "BUSY", DAY.plusDays(3))));
+
+        assertEquals("IDLE", scheduler.reserveBestGuide(tiers, DAY, "B2").getUserId());
+        assertEquals("BUSY", scheduler.reserveBestGuide(tiers, DAY, "B3").getUserId());
+        assertEquals("OTHER", scheduler.reserveBestGuide(tiers, DAY, "B4").getUserId());
+        assertNull(scheduler.reserveBestGuide(tiers, DAY, "B5"));
+
+        scheduler.release("B2");
+        assertTrue(scheduler.isFree(idle, DAY));
+        assertTrue(scheduler.reserve(idle, DAY, "B6"));
+        assertFalse(scheduler.reserve(idle, DAY, "B7"));
+    }
+
+    @Test
+    void aSavedHoldIsCountedOnceAndSurvivesAReload() throws Exception {
+        Guide guide = guide("G1", "English", "Mountain");
+        GuideScheduler scheduler = new GuideScheduler(() -> {
+        });
+        scheduler.reset(List.of());
+        assertTrue(scheduler.reserve(guide, DAY, "B1"));
+        assertTrue(scheduler.reserve(guide, DAY.plusDays(1), "B2"));
+
+        scheduler.added(booking("B1", "G1", DAY));
+        assertEquals(1, scheduler.bookingsOn("G1", DAY));
+        // A reload sees B1 in the table and keeps the hold of the unsaved B2
+        scheduler.reset(List.of(booking("B1", "G1", DAY)));
+        assertEquals(1, scheduler.bookingsOn("G1", DAY));
+        assertEquals(1, scheduler.bookingsOn("G1", DAY.plusDays(1)));
+        scheduler.release("B2");
+        assertEquals(0, scheduler.bookingsOn("G1", DAY.plusDays(1)));
+    }
+
+    @Test
+    void concurrentBookingsNeverShareAGuidesDay() throws Exception {
+        List<Guide> guides = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            guides.add(guide("G" + i, "English", "Mountain"));
+        }
+        GuideSkillIndex.Tiers tiers = tiers(guides, "Mountain", "English");
+        GuideScheduler scheduler = new GuideScheduler(() -> {
+        });
+        scheduler.reset(List.of());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Guide>> results = new ArrayList<>();
+        try (ExecutorService threads = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 40; i++) {
+                String bookingId = "B" + i;
+                results.add(threads.submit(() -> {
+                    start.await();
+                    return scheduler.reserveBestGuide(tiers, DAY, bookingId);
+                }));
+            }
+            start.countDown();
+            Set<String> booked = new HashSet<>();
+            int none = 0;
+            for (Future<Guide> result : results) {
+                Guide guide = result.get();
+                if (guide == null) {
+                    none++;
+                } else {
+                    assertTrue(booked.add(guide.getUserId()), guide.getUserId() + " booked twice");
+                }
+            }
+            assertEquals(8, booked.size());
+            assertEquals(32, none);
+        }
+    }
+
+    @Test
+    void reservationsWhileTheTableIsDroppedAndReloadedNeverShareADay(@TempDir Path dir) throws Exception {
+        List<Guide> guides = new ArrayList<>();
+        List<Booking> rows = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            guides.add(guide("G" + i, "English", "Mountain"));
+            if (i % 2 == 0) {
+                rows.add(booking("SAVED" + i, "G" + i, DAY));
+            }
+        }
+        GuideSkillIndex.Tiers tiers = tiers(guides, "Mountain", "English");
+        DataCache.Table<Booking> table = DataCache.register(Booking::getId, () -> rows, dir.resolve("bookings.txt"));
+        GuideScheduler scheduler = new GuideScheduler(table::load);
+        table.addListener(scheduler);
+
+        AtomicBoolean reserving = new AtomicBoolean(true);
+        Thread reloader = new Thread(() -> {
+            while (reserving.get()) {
+                table.invalidate();
+                try {
+                    table.load();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        reloader.start();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Guide>> results = new ArrayList<>();
+        try (ExecutorService threads = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 100; i++) {
+                String bookingId = "B" + i;
+                results.add(threads.submit(() -> {
+                    start.await();
+                    return scheduler.reserveBestGuide(tiers, DAY, bookingId);
+                }));
+            }
+            start.countDown();
+            Set<String> booked = new HashSet<>();
+            for (Future<Guide> result : results) {
+                Guide guide = result.get();
+                if (guide != null) {
+                    assertTrue(booked.add(guide.getUserId()), guide.getUserId() + " booked twice");
+                }
+            }
+            reserving.set(false);
+            reloader.join();
+            assertEquals(Set.of("G1", "G3", "G5", "G7"), booked);
+        }
+    }
+}
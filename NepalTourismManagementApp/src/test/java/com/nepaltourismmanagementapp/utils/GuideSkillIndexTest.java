@@ -0,0 +1,83 @@
+package com.nepaltourismmanagementapp.utils;
+
+import com.nepaltourismmanagementapp.model.Guide;
+import com.nepaltourismmanagementapp.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GuideSkillIndexTest {
+
+    private static Guide guide(String id, List<String> languages, List<String> specializations) {
+        return new Guide(id, id, "secret", id + "@example.com", "Guide " + id, "", "LIC-" + id, languages,
+                specializations, 4.0, 5);
+    }
+
+    private static List<String> ids(List<Guide> guides) {
+        return guides.stream().map(Guide::getUserId).toList();
+    }
+
+    private static List<List<String>> ids(GuideSkillIndex.Tiers tiers) {
+        List<List<String>> result = new ArrayList<>();
+        for (BitSet tier : tiers.tiers()) {
+            List<String> ids = new ArrayList<>();
+            tier.stream().forEach(slot -> ids.add(tiers.guides()[slot].getUserId()));
+            result.add(ids);
+        }
+        return result;
+    }
+
+    private static GuideSkillIndex index() {
+        GuideSkillIndex index = new GuideSkillIndex();
+        index.reset(List.<User>of(
+                guide("G1", List.of("English", "Japanese"), List.of("Mountain")),
+                guide("G2", List.of(" english "), List.of("Cultural")),
+                guide("G3", List.of("German"), List.of("Mountain", "Cultural")),
+                guide("G4", List.of("Japanese", "German"), List.of())));
+        return index;
+    }
+
+    @Test
+    void findsGuidesHavingEverySkillIgnoringCase() {
+        GuideSkillIndex index = index();
+        assertEquals(List.of("G1", "G2"), ids(index.find(List.of("ENGLISH"), List.of())));
+        assertEquals(List.of("G3"), ids(index.find(List.of("german"), List.of("mountain"))));
+        assertEquals(List.of("G4"), ids(index.find(List.of("Japanese", "German"), List.of(""))));
+        assertEquals(List.of(), ids(index.find(List.of("French"), List.of())));
+        assertEquals(4, index.find(List.of(), List.of()).size());
+    }
+
+    @Test
+    void tiersPutTheBestSuitedGuidesFirst() {
+        assertEquals(List.of(List.of("G3"), List.of("G1"), List.of("G4"), List.of("G2")),
+                ids(index().tiers("Mountain", "German")));
+        assertEquals(List.of(List.of(), List.of(), List.of(), List.of("G1", "G2", "G3", "G4")),
+                ids(index().tiers("Wildlife", "French")));
+    }
+
+    @Test
+    void followsEditedAndRemovedGuidesAcrossARebuild() {
+        GuideSkillIndex index = new GuideSkillIndex();
+        List<Guide> guides = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            guides.add(guide("G" + i, List.of(i % 2 == 0 ? "English" : "Nepali"), List.of("Trekking")));
+        }
+        index.reset(new ArrayList<>(guides));
+
+        // Edited in place, so the index has to unset the skills it filed the guide under
+        Guide edited = guides.get(0);
+        edited.setLanguages(List.of("French"));
+        index.replaced(edited, edited);
+        for (int i = 1; i < 80; i++) {
+            index.removed(guides.get(i));
+        }
+
+        assertEquals(List.of("G0"), ids(index.find(List.of("french"), List.of())));
+        assertEquals(10, index.find(List.of("english"), List.of("trekking")).size());
+        assertEquals(21, index.find(List.of(), List.of()).size());
+    }
+}
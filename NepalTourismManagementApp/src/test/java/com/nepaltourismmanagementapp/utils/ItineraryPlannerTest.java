@@ -0,0 +1,101 @@
+package com.nepaltourismmanagementapp.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ItineraryPlannerTest {
+
+    private static double[][] distances(double[][] points) {
+        int n = points.length;
+        double[][] km = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                km[i][j] = Math.hypot(points[i][0] - points[j][0], points[i][1] - points[j][1]);
+            }
+        }
+        return km;
+    }
+
+    private static double length(int[] route, double[][] km) {
+        double total = 0;
+        for (int i = 1; i < route.length; i++) {
+            total += km[route[i - 1]][route[i]];
+        }
+        return total;
+    }
+
+    /** The shortest open route by trying every order. */
+    private static double bruteForce(double[][] km) {
+        int[] route = IntStream.range(0, km.length).toArray();
+        double best = Double.MAX_VALUE;
+        do {
+            best = Math.min(best, length(route, km));
+        } while (nextPermutation(route));
+        return best;
+    }
+
+    private static boolean nextPermutation(int[] a) {
+        int i = a.length - 2;
+        while (i >= 0 && a[i] >= a[i + 1]) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        int j = a.length - 1;
+        while (a[j] <= a[i]) {
+            j--;
+        }
+        int swap = a[i];
+        a[i] = a[j];
+        a[j] = swap;
+        for (int l = i + 1, r = a.length - 1; l < r; l++, r--) {
+            swap = a[l];
+            a[l] = a[r];
+            a[r] = swap;
+        }
+        return true;
+    }
+
+    @Test
+    void visitsStopsOnALineFromOneEndToTheOther() {
+        double[][] km = distances(new double[][] { { 30, 0 }, { 0, 0 }, { 50, 0 }, { 10, 0 }, { 40, 0 }, { 20, 0 } });
+        int[] route = ItineraryPlanner.shortestRoute(km);
+        assertEquals(50, length(route, km), 1e-9);
+        assertArrayEquals(new int[] { 1, 3, 5, 0, 4, 2 }, route);
+    }
+
+    @Test
+    void comesCloseToTheShortestRouteOfSmallTrips() {
+        Random random = new Random(3);
+        for (int trip = 0; trip < 30; trip++) {
+            double[][] points = new double[2 + random.nextInt(7)][];
+            for (int i = 0; i < points.length; i++) {
+                points[i] = new double[] { random.nextDouble() * 200, random.nextDouble() * 200 };
+            }
+            double[][] km = distances(points);
+            int[] route = ItineraryPlanner.shortestRoute(km);
+
+            int[] visited = route.clone();
+            Arrays.sort(visited);
+            assertArrayEquals(IntStream.range(0, points.length).toArray(), visited);
+            // 2-opt is a heuristic: it may miss the optimum, but not by much on trips this small
+            double shortest = bruteForce(km);
+            assertTrue(length(route, km) <= shortest * 1.05 + 1e-9, length(route, km) + " vs " + shortest);
+        }
+    }
+
+    @Test
+    void keepsTinyTripsInTheirOrder() {
+        assertArrayEquals(new int[0], ItineraryPlanner.shortestRoute(new double[0][0]));
+        assertArrayEquals(new int[] { 0 }, ItineraryPlanner.shortestRoute(new double[][] { { 0 } }));
+        assertArrayEquals(new int[] { 0, 1 }, ItineraryPlanner.shortestRoute(new double[][] { { 0, 5 }, { 5, 0 } }));
+    }
+}
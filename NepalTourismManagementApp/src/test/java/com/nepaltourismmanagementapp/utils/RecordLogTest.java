@@ -0,0 +1,132 @@
+package com.nepaltourismmanagementapp.utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RecordLogTest {
+
+    @TempDir
+    Path dir;
+
+    private static RecordLog open(Path dir) {
+        return new RecordLog(dir.resolve("rows.txt").toString());
+    }
+
+    private static List<String> read(Path dir) throws IOException {
+        return open(dir).readLive(Function.identity());
+    }
+
+    @Test
+    void replayAppliesInsertsUpdatesAndDeletesOverTheBase() throws IOException {
+        RecordLog log = open(dir);
+        log.rewrite(List.of("1,base", "2,base"));
+        log.appendInsert("3,new");
+        log.appendUpdate("1,edited");
+        log.appendDelete("2");
+        log.appendInserts(List.of("4,batch", "5,batch"));
+        log.force();
+
+        assertEquals(List.of("1,edited", "3,new", "4,batch", "5,batch"), read(dir));
+    }
+
+    @Test
+    void aTornLastRecordIsCutOffAndLaterAppendsStayReadable() throws IOException {
+        RecordLog log = open(dir);
+        log.appendInsert("1,whole");
+        byte[] record = RecordLog.encode('I', "2,torn");
+        Files.write(log.getLogFile(), Arrays.copyOf(record, record.length - 1), StandardOpenOption.APPEND);
+        long wholeLength = Files.size(log.getLogFile()) - (record.length - 1);
+
+        RecordLog reopened = open(dir);
+        assertEquals(List.of("1,whole"), reopened.readLive(Function.identity()));
+        assertEquals(wholeLength, Files.size(log.getLogFile()));
+
+        reopened.appendInsert("3,after");
+        assertEquals(List.of("1,whole", "3,after"), read(dir));
+    }
+
+    @Test
+    void aRecordWithABadChecksumEndsTheReplay() throws IOException {
+        RecordLog log = open(dir);
+        log.appendInsert("1,good");
+        log.appendInsert("2,flipped");
+        log.appendInsert("3,lost");
+        byte[] bytes = Files.readAllBytes(log.getLogFile());
+        int second = RecordLog.encode('I', "1,good").length;
+        bytes[second + 13] ^= 1; // a payload byte of the second record
+        Files.write(log.getLogFile(), bytes);
+
+        assertEquals(List.of("1,good"), read(dir));
+    }
+
+    @Test
+    void compactionFoldsTheLogIntoTheBase() throws IOException {
+        RecordLog log = open(dir);
+        log.rewrite(List.of("1,base", "2,base"));
+        log.appendUpdate("1,edited");
+        log.appendDelete("2");
+        log.appendInsert("3,new");
+
+        log.compact();
+
+        assertEquals(List.of("1,edited", "3,new"), Files.readAllLines(log.getBaseFile()));
+        assertTrue(log.isLogEmpty());
+        assertEquals(List.of("1,edited", "3,new"), read(dir));
+        assertFalse(Files.exists(dir.resolve("rows.txt.tmp")));
+        assertFalse(Files.exists(dir.resolve("rows.txt.log.tmp")));
+    }
+
+    @Test
+    void rewriteReplacesTheBaseAndEmptiesTheLog() throws IOException {
+        RecordLog log = open(dir);
+        log.appendInsert("1,old");
+        log.appendInsert("2,old");
+
+        log.rewrite(List.of("7,fresh"));
+
+        assertTrue(log.isLogEmpty());
+        assertEquals(List.of("7,fresh"), read(dir));
+    }
+
+    @Test
+    void aCrashBetweenTheTwoRenamesNeitherDuplicatesNorLosesRecords() throws IOException {
+        RecordLog log = open(dir);
+        log.rewrite(List.of("1,base"));
+        log.appendInsert("2,folded");
+        log.appendUpdate("1,folded");
+        // The compactor renamed the new base in but died before the new log, which holds a record
+        // appended while it ran
+        Files.write(log.getBaseFile(), List.of("1,folded", "2,folded"));
+        Files.write(dir.resolve("rows.txt.log.tmp"), RecordLog.encode('I', "3,carried"));
+
+        assertEquals(List.of("1,folded", "2,folded", "3,carried"), read(dir));
+        assertFalse(Files.exists(dir.resolve("rows.txt.log.tmp")));
+        assertEquals(List.of("1,folded", "2,folded", "3,carried"), read(dir));
+    }
+
+    @Test
+    void aCrashBeforeTheRenamesKeepsTheOldFiles() throws IOException {
+        RecordLog log = open(dir);
+        log.rewrite(List.of("1,base"));
+        log.appendInsert("2,logged");
+        Files.write(dir.resolve("rows.txt.tmp"), List.of("1,base", "2,logged"));
+        Files.write(dir.resolve("rows.txt.log.tmp"), "I 0000".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(List.of("1,base", "2,logged"), read(dir));
+        assertFalse(Files.exists(dir.resolve("rows.txt.tmp")));
+        assertFalse(Files.exists(dir.resolve("rows.txt.log.tmp")));
+    }
+}